@@ -3,11 +3,17 @@ package com.example.paymentreconciliation;
 import com.shared.security.EnableSharedSecurity;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.example.paymentreconciliation", "com.shared"})
 @EnableSharedSecurity
+@EnableScheduling
 public class ReconciliationServiceApplication {
     public static void main(String[] args) {
-        SpringApplication.run(ReconciliationServiceApplication.class, args);
+        SpringApplication application = new SpringApplication(ReconciliationServiceApplication.class);
+        // Startup steps (bean creation, repository bootstrap, ...) with timings, served by /actuator/startup
+        application.setApplicationStartup(new BufferingApplicationStartup(2048));
+        application.run(args);
     }
 }
@@ -0,0 +1,156 @@
+package com.example.paymentreconciliation.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings shared by all file ingestion pipelines (MT940, VAN).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ingestion")
+public class IngestionProperties {
+    /**
+     * Identity of this replica in ingestion_claim.owner. Defaults to pid@hostname; only used to tell
+     * owners apart, so it need not survive a restart.
+     */
+    private String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+    /**
+     * How long a claimed file stays owned by a node without a renewal before another node may take it
+     * over. The owner renews it every third of the lease while the file makes progress.
+     */
+    private long claimLeaseSeconds = 300;
+    /**
+     * Import errors stored individually per run and error code; further ones are only counted.
+     */
+    private int errorSampleLimit = 100;
+    /**
+     * File hashes kept in the in-process dedupe registry, and how far back it is warmed at startup.
+     * Older hashes are checked against import_run.
+     */
+    private int hashRegistryMaxEntries = 100000;
+    private int hashRegistryWarmDays = 30;
+    /**
+     * Stage concurrency and queue sizes per file type, keyed by lower-case file type (mt940, van).
+     */
+    private Map<String, Pipeline> pipeline = new ConcurrentHashMap<>();
+    /**
+     * Run file and persist stages on virtual threads when the runtime is Java 21+; ignored (platform
+     * thread pools) on older runtimes.
+     */
+    private boolean virtualThreads = false;
+    /**
+     * Persist batches allowed to hold a connection at once in virtual-thread mode. 0 uses the Hikari pool size.
+     */
+    private int dbPermits = 0;
+    /**
+     * Archive layout: content-addressed (gzip under the file's SHA-256) or dated (ARCHIVE/YYYY/MM/DD, uncompressed).
+     */
+    private String archiveMode = "content-addressed";
+    /**
+     * Deflate level 1-9 for the content-addressed archive.
+     */
+    private int archiveCompressionLevel = 6;
+    /**
+     * Import runs replayed from the archive in parallel.
+     */
+    private int replayConcurrency = 4;
+    /**
+     * Transactions per second across a replay job; 0 for no limit.
+     */
+    private int replayRowsPerSecond = 2000;
+    /**
+     * Heap available to files being ingested at once. 0 uses memory-budget-fraction of the max heap.
+     */
+    private long memoryBudgetBytes = 0;
+    private double memoryBudgetFraction = 0.5;
+    /**
+     * Largest estimated in-memory cost (size x expansion factor) parsed whole; larger files are streamed.
+     * 0 uses half the budget.
+     */
+    private long inMemoryMaxBytes = 0;
+    /**
+     * Budget charged for a streamed file, whatever its size.
+     */
+    private long streamingReserveBytes = 32L * 1024 * 1024;
+    /**
+     * Files larger than this are quarantined without being read; 0 for no limit.
+     */
+    private long maxFileSizeBytes = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * Staged pipeline settings for one file type.
+     */
+    public static class Pipeline {
+        /**
+         * Files of this type processed in parallel (discover/hash/parse/validate stage).
+         */
+        private int fileConcurrency = 1;
+        /**
+         * Persist workers shared by all files of this type; each file is persisted in order by one worker.
+         */
+        private int persistConcurrency = 2;
+        /**
+         * Parsed batches (MT940 statements, VAN chunks) buffered per file before parsing blocks.
+         */
+        private int queueCapacity = 4;
+        /**
+         * Heap used while parsing, per byte of file, for admission control.
+         */
+        private double expansionFactor = 4.0;
+
+        public int getFileConcurrency() { return fileConcurrency; }
+        public void setFileConcurrency(int fileConcurrency) { this.fileConcurrency = fileConcurrency; }
+        public int getPersistConcurrency() { return persistConcurrency; }
+        public void setPersistConcurrency(int persistConcurrency) { this.persistConcurrency = persistConcurrency; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public double getExpansionFactor() { return expansionFactor; }
+        public void setExpansionFactor(double expansionFactor) { this.expansionFactor = expansionFactor; }
+    }
+
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+    public long getClaimLeaseSeconds() { return claimLeaseSeconds; }
+    public void setClaimLeaseSeconds(long claimLeaseSeconds) { this.claimLeaseSeconds = claimLeaseSeconds; }
+    public int getErrorSampleLimit() { return errorSampleLimit; }
+    public void setErrorSampleLimit(int errorSampleLimit) { this.errorSampleLimit = errorSampleLimit; }
+    public int getHashRegistryMaxEntries() { return hashRegistryMaxEntries; }
+    public void setHashRegistryMaxEntries(int hashRegistryMaxEntries) { this.hashRegistryMaxEntries = hashRegistryMaxEntries; }
+    public int getHashRegistryWarmDays() { return hashRegistryWarmDays; }
+    public void setHashRegistryWarmDays(int hashRegistryWarmDays) { this.hashRegistryWarmDays = hashRegistryWarmDays; }
+    public Map<String, Pipeline> getPipeline() { return pipeline; }
+    public void setPipeline(Map<String, Pipeline> pipeline) { this.pipeline = new ConcurrentHashMap<>(pipeline); }
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+    public int getDbPermits() { return dbPermits; }
+    public void setDbPermits(int dbPermits) { this.dbPermits = dbPermits; }
+    public String getArchiveMode() { return archiveMode; }
+    public void setArchiveMode(String archiveMode) { this.archiveMode = archiveMode; }
+    public int getArchiveCompressionLevel() { return archiveCompressionLevel; }
+    public void setArchiveCompressionLevel(int archiveCompressionLevel) { this.archiveCompressionLevel = archiveCompressionLevel; }
+    public int getReplayConcurrency() { return replayConcurrency; }
+    public void setReplayConcurrency(int replayConcurrency) { this.replayConcurrency = replayConcurrency; }
+    public int getReplayRowsPerSecond() { return replayRowsPerSecond; }
+    public void setReplayRowsPerSecond(int replayRowsPerSecond) { this.replayRowsPerSecond = replayRowsPerSecond; }
+    public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) { this.memoryBudgetBytes = memoryBudgetBytes; }
+    public double getMemoryBudgetFraction() { return memoryBudgetFraction; }
+    public void setMemoryBudgetFraction(double memoryBudgetFraction) { this.memoryBudgetFraction = memoryBudgetFraction; }
+    public long getInMemoryMaxBytes() { return inMemoryMaxBytes; }
+    public void setInMemoryMaxBytes(long inMemoryMaxBytes) { this.inMemoryMaxBytes = inMemoryMaxBytes; }
+    public long getStreamingReserveBytes() { return streamingReserveBytes; }
+    public void setStreamingReserveBytes(long streamingReserveBytes) { this.streamingReserveBytes = streamingReserveBytes; }
+    public long getMaxFileSizeBytes() { return maxFileSizeBytes; }
+    public void setMaxFileSizeBytes(long maxFileSizeBytes) { this.maxFileSizeBytes = maxFileSizeBytes; }
+
+    /**
+     * Pipeline settings for the file type, falling back to defaults when not configured.
+     */
+    public Pipeline getPipeline(String fileType) {
+        return pipeline.computeIfAbsent(fileType.toLowerCase(), type -> new Pipeline());
+    }
+}
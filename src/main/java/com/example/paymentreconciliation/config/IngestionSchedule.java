@@ -0,0 +1,41 @@
+package com.example.paymentreconciliation.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Built-in inbox polling for one file type (mt940.schedule, van.schedule).
+ */
+public class IngestionSchedule {
+    private boolean enabled = false;
+    /**
+     * Delay between the end of one poll and the start of the next; 0 for cron-only polling.
+     */
+    private long fixedDelayMs = 60000;
+    private long initialDelayMs = 0;
+    /**
+     * Extra polls at these cron expressions (e.g. just after bank cut-off times), in addition to the fixed delay.
+     */
+    private List<String> crons = new ArrayList<>();
+    /**
+     * Time zone for the cron expressions; empty for the system zone.
+     */
+    private String zone = "";
+    /**
+     * Random delay of up to this many milliseconds added to every poll, so replicas do not poll in lockstep.
+     */
+    private long jitterMs = 0;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getFixedDelayMs() { return fixedDelayMs; }
+    public void setFixedDelayMs(long fixedDelayMs) { this.fixedDelayMs = fixedDelayMs; }
+    public long getInitialDelayMs() { return initialDelayMs; }
+    public void setInitialDelayMs(long initialDelayMs) { this.initialDelayMs = initialDelayMs; }
+    public List<String> getCrons() { return crons; }
+    public void setCrons(List<String> crons) { this.crons = crons; }
+    public String getZone() { return zone; }
+    public void setZone(String zone) { this.zone = zone; }
+    public long getJitterMs() { return jitterMs; }
+    public void setJitterMs(long jitterMs) { this.jitterMs = jitterMs; }
+}
@@ -11,6 +11,7 @@ public class Mt940IngestionProperties {
     private String processingDir;
     private String archiveDir;
     private String quarantineDir;
+    private IngestionSchedule schedule = new IngestionSchedule();
     public String getBaseDir() { return baseDir; }
     public void setBaseDir(String baseDir) { this.baseDir = baseDir; }
     public String getInboxDir() { return inboxDir; }
@@ -21,4 +22,6 @@ public class Mt940IngestionProperties {
     public void setArchiveDir(String archiveDir) { this.archiveDir = archiveDir; }
     public String getQuarantineDir() { return quarantineDir; }
     public void setQuarantineDir(String quarantineDir) { this.quarantineDir = quarantineDir; }
+    public IngestionSchedule getSchedule() { return schedule; }
+    public void setSchedule(IngestionSchedule schedule) { this.schedule = schedule; }
 }
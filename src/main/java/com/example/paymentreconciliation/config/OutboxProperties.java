@@ -0,0 +1,71 @@
+package com.example.paymentreconciliation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transactional outbox for imported transactions and reconciliation outcomes, and the relay that
+ * pushes it to downstream consumers.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+    /**
+     * Write outbox rows alongside imported records and run the relay.
+     */
+    private boolean enabled = false;
+    /**
+     * Sink the relay publishes to: webhook, file or memory.
+     */
+    private String sink = "memory";
+    private int batchSize = 500;
+    private long relayIntervalMs = 1000;
+    /**
+     * Events younger than this are not relayed yet, so a transaction that took a lower id but
+     * committed later is not overtaken within its stream.
+     */
+    private long settleMs = 2000;
+    /**
+     * Upper bound of the exponential back-off after a failed publish.
+     */
+    private long maxBackoffMs = 300000;
+    /**
+     * Rejections (OutboxSink.RejectedException) before a single event is dead-lettered (dead_lettered_at
+     * set, no longer relayed) so the events behind it can flow. Failures while the sink is unavailable
+     * are retried without limit and do not count.
+     */
+    private int maxAttempts = 10;
+    /**
+     * Published events are deleted after this many days.
+     */
+    private int retainDays = 7;
+    private String webhookUrl;
+    private int webhookTimeoutSeconds = 30;
+    /**
+     * Newline-delimited JSON file appended to by the file sink.
+     */
+    private String filePath = "./outbox/outbox.ndjson";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getSink() { return sink; }
+    public void setSink(String sink) { this.sink = sink; }
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public long getRelayIntervalMs() { return relayIntervalMs; }
+    public void setRelayIntervalMs(long relayIntervalMs) { this.relayIntervalMs = relayIntervalMs; }
+    public long getSettleMs() { return settleMs; }
+    public void setSettleMs(long settleMs) { this.settleMs = settleMs; }
+    public long getMaxBackoffMs() { return maxBackoffMs; }
+    public void setMaxBackoffMs(long maxBackoffMs) { this.maxBackoffMs = maxBackoffMs; }
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+    public int getRetainDays() { return retainDays; }
+    public void setRetainDays(int retainDays) { this.retainDays = retainDays; }
+    public String getWebhookUrl() { return webhookUrl; }
+    public void setWebhookUrl(String webhookUrl) { this.webhookUrl = webhookUrl; }
+    public int getWebhookTimeoutSeconds() { return webhookTimeoutSeconds; }
+    public void setWebhookTimeoutSeconds(int webhookTimeoutSeconds) { this.webhookTimeoutSeconds = webhookTimeoutSeconds; }
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+}
@@ -0,0 +1,44 @@
+package com.example.paymentreconciliation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Monthly range-partition maintenance for statement_transaction and van_transaction
+ * (see db/partitioning.sql). Tables that are not partitioned are left alone.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "partitioning")
+public class PartitioningProperties {
+    private boolean enabled = true;
+    /**
+     * Schema holding the partitioned tables.
+     */
+    private String schema = "payment_flow";
+    /**
+     * Schema that detached partitions are moved to.
+     */
+    private String archiveSchema = "payment_flow_archive";
+    /**
+     * Future monthly partitions kept ahead of the current month.
+     */
+    private int monthsAhead = 3;
+    /**
+     * Monthly partitions kept attached, including the current month; older ones are detached.
+     */
+    private int retainMonths = 24;
+    private String maintenanceCron = "0 15 2 * * *";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getSchema() { return schema; }
+    public void setSchema(String schema) { this.schema = schema; }
+    public String getArchiveSchema() { return archiveSchema; }
+    public void setArchiveSchema(String archiveSchema) { this.archiveSchema = archiveSchema; }
+    public int getMonthsAhead() { return monthsAhead; }
+    public void setMonthsAhead(int monthsAhead) { this.monthsAhead = monthsAhead; }
+    public int getRetainMonths() { return retainMonths; }
+    public void setRetainMonths(int retainMonths) { this.retainMonths = retainMonths; }
+    public String getMaintenanceCron() { return maintenanceCron; }
+    public void setMaintenanceCron(String maintenanceCron) { this.maintenanceCron = maintenanceCron; }
+}
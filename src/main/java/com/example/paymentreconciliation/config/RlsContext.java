@@ -0,0 +1,92 @@
+package com.example.paymentreconciliation.config;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Tenant and user the current thread works for, applied to every connection it borrows by
+ * {@link RlsDataSource}. Threads without a context get the deployment default (rls.tenant, rls.system-user).
+ * Work handed to other threads carries the context along through {@link #wrap(Runnable)}.
+ */
+public final class RlsContext {
+    private static final ThreadLocal<RlsContext> CURRENT = new ThreadLocal<>();
+
+    private final String tenant;
+    private final String user;
+
+    public RlsContext(String tenant, String user) {
+        this.tenant = tenant != null ? tenant : "";
+        this.user = user != null ? user : "";
+    }
+
+    public String getTenant() { return tenant; }
+    public String getUser() { return user; }
+
+    /**
+     * The calling thread's context, or null when it has none.
+     */
+    public static RlsContext current() {
+        return CURRENT.get();
+    }
+
+    public static void set(RlsContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * The task run with the calling thread's current context, restoring the running thread's own afterwards.
+     */
+    public static Runnable wrap(Runnable task) {
+        RlsContext context = current();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            RlsContext previous = CURRENT.get();
+            CURRENT.set(context);
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public static <T> Consumer<T> wrap(Consumer<T> action) {
+        RlsContext context = current();
+        if (context == null) {
+            return action;
+        }
+        return item -> {
+            RlsContext previous = CURRENT.get();
+            CURRENT.set(context);
+            try {
+                action.accept(item);
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RlsContext)) return false;
+        RlsContext other = (RlsContext) o;
+        return tenant.equals(other.tenant) && user.equals(other.user);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tenant, user);
+    }
+
+    @Override
+    public String toString() {
+        return "RlsContext[tenant=" + tenant + ", user=" + user + "]";
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.paymentreconciliation.config;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Sets the request's {@link RlsContext}: the deployment tenant (rls.tenant; deployments are
+ * single-tenant, the principal does not carry one) and the authenticated user. Registered after the
+ * security filter chain, so the authentication is already resolved.
+ */
+@Component
+public class RlsContextFilter extends OncePerRequestFilter {
+    @Autowired
+    private RlsProperties rlsProperties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!rlsProperties.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
+        RlsContext.set(new RlsContext(rlsProperties.getTenant(), user));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RlsContext.clear();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.paymentreconciliation.config;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Applies the borrowing thread's {@link RlsContext} to each connection handed out by the pool.
+ * Tenant and user are written in one round trip as session settings, and the context last written
+ * is remembered per physical connection, so a borrow that needs the same context as the connection
+ * already has costs no statement. Batch ingestion runs under one context, so its chunk transactions
+ * normally borrow a connection that is already set.
+ * <p>
+ * The settings are written while the connection is still in auto-commit (Hikari auto-commit: true),
+ * so they commit at once and cannot be undone by a rollback of the caller's transaction. If a
+ * connection arrives with auto-commit off, its context is written but not remembered.
+ * <p>
+ * Publishes {@code rls.context} counted by outcome (applied, skipped) and an {@code rls.context.apply} timer.
+ */
+public class RlsDataSource extends DelegatingDataSource {
+    private static final Logger log = LoggerFactoryProvider.getLogger(RlsDataSource.class);
+    private static final String SET_CONTEXT_SQL = "select set_config(?, ?, false), set_config(?, ?, false)";
+
+    private final RlsProperties props;
+    private final RlsContext defaultContext;
+    private final ObjectProvider<MeterRegistry> registry;
+    // Keyed by the physical connection, which outlives the pool's per-borrow proxies; entries go when the pool retires it
+    private final Map<Connection, RlsContext> applied = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public RlsDataSource(DataSource target, RlsProperties props, ObjectProvider<MeterRegistry> registry) {
+        super(target);
+        this.props = props;
+        this.defaultContext = new RlsContext(props.getTenant(), props.getSystemUser());
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return applyContext(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return applyContext(super.getConnection(username, password));
+    }
+
+    private Connection applyContext(Connection connection) throws SQLException {
+        RlsContext context = RlsContext.current() != null ? RlsContext.current() : defaultContext;
+        Connection physical = physical(connection);
+        if (context.equals(applied.get(physical))) {
+            count("skipped");
+            return connection;
+        }
+        long start = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(SET_CONTEXT_SQL)) {
+            statement.setString(1, props.getTenantSetting());
+            statement.setString(2, context.getTenant());
+            statement.setString(3, props.getUserSetting());
+            statement.setString(4, context.getUser());
+            statement.execute();
+        } catch (SQLException e) {
+            applied.remove(physical);
+            log.error("Failed to set RLS context {} on connection: {}", context, e.getMessage());
+            connection.close();
+            throw e;
+        }
+        if (connection.getAutoCommit()) {
+            applied.put(physical, context);
+        } else {
+            applied.remove(physical);
+        }
+        count("applied");
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        if (meterRegistry != null) {
+            meterRegistry.timer("rls.context.apply").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return connection;
+    }
+
+    private static Connection physical(Connection connection) {
+        try {
+            return connection.unwrap(Connection.class);
+        } catch (SQLException e) {
+            return connection;
+        }
+    }
+
+    private void count(String outcome) {
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        if (meterRegistry != null) {
+            meterRegistry.counter("rls.context", "outcome", outcome).increment();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.paymentreconciliation.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wraps the application DataSource in {@link RlsDataSource} when rls.enabled is set, so JPA, JdbcTemplate
+ * and jOOQ all borrow connections carrying the caller's RLS context, and carries that context onto the
+ * application task executor.
+ */
+@Configuration
+public class RlsDataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor rlsDataSourcePostProcessor(ObjectProvider<RlsProperties> rlsProperties,
+                                                               ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof RlsDataSource)) {
+                    RlsProperties props = rlsProperties.getObject();
+                    if (props.isEnabled()) {
+                        return new RlsDataSource((DataSource) bean, props, registry);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Applied by Boot to the application task executor, which also runs Spring MVC async work: a
+     * StreamingResponseBody is written there after the request thread (and its RlsContextFilter) has
+     * returned, so it would otherwise query under the deployment default instead of the caller.
+     */
+    @Bean
+    public TaskDecorator rlsContextTaskDecorator() {
+        return RlsContext::wrap;
+    }
+}
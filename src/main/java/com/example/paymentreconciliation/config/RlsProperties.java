@@ -0,0 +1,39 @@
+package com.example.paymentreconciliation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Row-level-security context set on pooled connections (see {@link RlsDataSource}).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rls")
+public class RlsProperties {
+    private boolean enabled = false;
+    /**
+     * Tenant this deployment serves; written to tenant-setting on every connection. One tenant per
+     * deployment: the authenticated principal carries no tenant, so requests cannot select another.
+     */
+    private String tenant = "";
+    /**
+     * Postgres custom settings read by the RLS policies through current_setting(name, true); the user
+     * setting is app.current_user_id, the one the shared RLS policies read.
+     */
+    private String tenantSetting = "app.tenant_id";
+    private String userSetting = "app.current_user_id";
+    /**
+     * User recorded for work without a request, such as scheduled ingestion and the outbox relay.
+     */
+    private String systemUser = "system";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getTenant() { return tenant; }
+    public void setTenant(String tenant) { this.tenant = tenant; }
+    public String getTenantSetting() { return tenantSetting; }
+    public void setTenantSetting(String tenantSetting) { this.tenantSetting = tenantSetting; }
+    public String getUserSetting() { return userSetting; }
+    public void setUserSetting(String userSetting) { this.userSetting = userSetting; }
+    public String getSystemUser() { return systemUser; }
+    public void setSystemUser(String systemUser) { this.systemUser = systemUser; }
+}
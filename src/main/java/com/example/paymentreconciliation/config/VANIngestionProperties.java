@@ -11,6 +11,7 @@ public class VANIngestionProperties {
     private String processingDir;
     private String archiveDir;
     private String quarantineDir;
+    private IngestionSchedule schedule = new IngestionSchedule();
 
     public String getBaseDir() { return baseDir; }
     public void setBaseDir(String baseDir) { this.baseDir = baseDir; }
@@ -22,4 +23,6 @@ public class VANIngestionProperties {
     public void setArchiveDir(String archiveDir) { this.archiveDir = archiveDir; }
     public String getQuarantineDir() { return quarantineDir; }
     public void setQuarantineDir(String quarantineDir) { this.quarantineDir = quarantineDir; }
+    public IngestionSchedule getSchedule() { return schedule; }
+    public void setSchedule(IngestionSchedule schedule) { this.schedule = schedule; }
 }
@@ -0,0 +1,66 @@
+package com.example.paymentreconciliation.controller;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.repository.ImportRunRepository;
+import com.example.paymentreconciliation.service.ArchiveStore;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/archive")
+@Tag(name = "Archive", description = "Retrieve archived source files by content hash")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ArchiveController {
+    @Autowired
+    private ArchiveStore archiveStore;
+
+    @Autowired
+    private ImportRunRepository importRunRepository;
+
+    @GetMapping("/{fileHash}")
+    @Operation(summary = "Download an archived file",
+            description = "Streams the original file for an ImportRun.fileHash; compressed=true returns the stored gzip as-is")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable("fileHash") String fileHash,
+                                                          @RequestParam(value = "compressed", defaultValue = "false") boolean compressed) {
+        Optional<ImportRun> run = importRunRepository.findByFileHash(fileHash);
+        if (run.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ImportRun importRun = run.get();
+        Optional<Path> archived = archiveStore.find(importRun.getFileType(), fileHash);
+        if (archived.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String filename = importRun.getFilename() + (compressed ? ".gz" : "");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header("X-Import-Run-Id", String.valueOf(importRun.getId()))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (compressed) {
+            return response.body(out -> Files.copy(archived.get(), out));
+        }
+        return response.body(out -> {
+            try (InputStream in = archiveStore.open(importRun.getFileType(), fileHash)) {
+                in.transferTo(out);
+            }
+        });
+    }
+}
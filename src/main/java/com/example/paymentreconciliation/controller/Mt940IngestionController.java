@@ -1,11 +1,24 @@
 package com.example.paymentreconciliation.controller;
 
+import java.time.LocalDate;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.paymentreconciliation.dto.ReplayReport;
+import com.example.paymentreconciliation.dto.TransactionSearchCriteria;
+import com.example.paymentreconciliation.service.Mt940ReplayService;
+import com.example.paymentreconciliation.service.TransactionQueryService;
 import com.example.paymentreconciliation.service.Mt940IngestionService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,10 +32,44 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class Mt940IngestionController {
     @Autowired
     private Mt940IngestionService mt940IngestionService;
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+    @Autowired
+    private Mt940ReplayService mt940ReplayService;
     @PostMapping("/ingest")
-    @Operation(summary = "Trigger MT940 ingestion", description = "Triggers polling and processing of MT940 files in the inbox")
+    @Operation(summary = "Trigger MT940 ingestion", description = "Triggers polling and processing of MT940 files in the inbox; 409 if a poll is already running")
     public ResponseEntity<String> ingest() {
-        mt940IngestionService.pollAndProcessInbox();
+        if (!mt940IngestionService.pollIfIdle()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("MT940 ingestion already running");
+        }
         return ResponseEntity.ok("MT940 ingestion triggered");
     }
+
+    @GetMapping(value = "/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "List MT940 statement transactions", description = "Keyset-paginated by (valueDate, id) with optional account, date and amount filters; pass nextCursor.afterDate/afterId for the next page")
+    public ResponseEntity<StreamingResponseBody> listTransactions(TransactionSearchCriteria criteria) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> transactionQueryService.writeStatementTransactions(criteria, out));
+    }
+
+    @PostMapping("/replay")
+    @Operation(summary = "Replay archived MT940 imports", description = "Re-parses the archived originals of import runs received in the date range and upserts them by idempotency hash in the background; dryRun only reports the diff")
+    public ResponseEntity<ReplayReport> replay(@RequestParam("fromDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                                               @RequestParam("toDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+                                               @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun,
+                                               @RequestParam(value = "rowsPerSecond", required = false) Integer rowsPerSecond) {
+        if (toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(mt940ReplayService.start(fromDate, toDate, dryRun, rowsPerSecond));
+    }
+
+    @GetMapping("/replay/{jobId}")
+    @Operation(summary = "Replay progress", description = "Rows/sec, counts and sample differences of a replay job")
+    public ResponseEntity<ReplayReport> replayStatus(@PathVariable("jobId") String jobId) {
+        return mt940ReplayService.getReport(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
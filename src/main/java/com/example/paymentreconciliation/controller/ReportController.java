@@ -0,0 +1,58 @@
+package com.example.paymentreconciliation.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.paymentreconciliation.dto.ReportType;
+import com.example.paymentreconciliation.service.ReportService;
+import com.example.paymentreconciliation.service.ReportWriter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/reports")
+@Tag(name = "Reports", description = "Downloadable reconciliation reports")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ReportController {
+    @Autowired
+    private ReportService reportService;
+
+    @GetMapping("/{report}")
+    @Operation(summary = "Download a report",
+            description = "Streams unmatched-items, daily-account-summary or import-run-audit as xlsx or pdf for an inclusive date range")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable("report") String report,
+                                                          @RequestParam(value = "format", defaultValue = "xlsx") String format,
+                                                          @RequestParam("fromDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                                                          @RequestParam("toDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        ReportType type;
+        ReportWriter writer;
+        try {
+            type = ReportType.fromSlug(report);
+            writer = reportService.getWriter(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        String filename = type.getSlug() + "_" + fromDate + "_" + toDate + "." + writer.getFormat();
+        // No Content-Length: the body is written as it is generated and sent chunked
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(writer.getContentType()))
+                .body(out -> reportService.writeReport(type, writer, fromDate, toDate, out));
+    }
+}
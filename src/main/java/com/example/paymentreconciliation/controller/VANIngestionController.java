@@ -1,11 +1,17 @@
 package com.example.paymentreconciliation.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.paymentreconciliation.dto.TransactionSearchCriteria;
+import com.example.paymentreconciliation.service.TransactionQueryService;
 import com.example.paymentreconciliation.service.VANIngestionService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,11 +25,23 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class VANIngestionController {
     @Autowired
     private VANIngestionService vanIngestionService;
+    @Autowired
+    private TransactionQueryService transactionQueryService;
 
     @PostMapping("/ingest")
-    @Operation(summary = "Trigger VAN ingestion", description = "Triggers polling and processing of VAN CSV files in the inbox")
+    @Operation(summary = "Trigger VAN ingestion", description = "Triggers polling and processing of VAN CSV files in the inbox; 409 if a poll is already running")
     public ResponseEntity<String> ingest() {
-        vanIngestionService.pollAndProcessInbox();
+        if (!vanIngestionService.pollIfIdle()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("VAN ingestion already running");
+        }
         return ResponseEntity.ok("VAN ingestion triggered");
     }
+
+    @GetMapping(value = "/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "List VAN transactions", description = "Keyset-paginated by (transactionDate, id) with optional account, date, amount and payment status filters; pass nextCursor.afterDate/afterId for the next page")
+    public ResponseEntity<StreamingResponseBody> listTransactions(TransactionSearchCriteria criteria) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> transactionQueryService.writeVanTransactions(criteria, out));
+    }
 }
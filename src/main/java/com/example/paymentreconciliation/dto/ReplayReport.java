@@ -0,0 +1,162 @@
+package com.example.paymentreconciliation.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and diff of a bulk replay of archived MT940 documents, updated while the replay runs.
+ * Counts compare the re-parsed statements with what was previously persisted.
+ */
+public class ReplayReport {
+    public static final int MAX_SAMPLES = 100;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobId;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+    private final boolean dryRun;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startedNanos = System.nanoTime();
+    private volatile LocalDateTime finishedAt;
+    private volatile long finishedNanos;
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+
+    private final AtomicLong runsTotal = new AtomicLong();
+    private final AtomicLong runsReplayed = new AtomicLong();
+    private final AtomicLong runsNotArchived = new AtomicLong();
+    private final AtomicLong runsFailed = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong statementsAdded = new AtomicLong();
+    private final AtomicLong statementsInvalid = new AtomicLong();
+    private final AtomicLong statementsFailed = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong rowsAdded = new AtomicLong();
+    private final AtomicLong rowsChanged = new AtomicLong();
+    private final AtomicLong rowsUnchanged = new AtomicLong();
+    private final AtomicLong rowsMissing = new AtomicLong();
+    private final List<String> samples = new CopyOnWriteArrayList<>();
+
+    public ReplayReport(String jobId, LocalDate fromDate, LocalDate toDate, boolean dryRun) {
+        this.jobId = jobId;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Keep a human-readable description of a difference, up to MAX_SAMPLES.
+     */
+    public void sample(String difference) {
+        if (samples.size() < MAX_SAMPLES) {
+            samples.add(difference);
+        }
+    }
+
+    public void finish(Status status, String error) {
+        this.error = error;
+        this.finishedNanos = System.nanoTime();
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+
+    public double getRowsPerSecond() {
+        long end = finishedAt != null ? finishedNanos : System.nanoTime();
+        double seconds = (end - startedNanos) / 1_000_000_000.0;
+        return seconds > 0 ? rows.get() / seconds : 0;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public AtomicLong getRunsTotal() {
+        return runsTotal;
+    }
+
+    public AtomicLong getRunsReplayed() {
+        return runsReplayed;
+    }
+
+    public AtomicLong getRunsNotArchived() {
+        return runsNotArchived;
+    }
+
+    public AtomicLong getRunsFailed() {
+        return runsFailed;
+    }
+
+    public AtomicLong getStatements() {
+        return statements;
+    }
+
+    public AtomicLong getStatementsAdded() {
+        return statementsAdded;
+    }
+
+    public AtomicLong getStatementsInvalid() {
+        return statementsInvalid;
+    }
+
+    public AtomicLong getStatementsFailed() {
+        return statementsFailed;
+    }
+
+    public AtomicLong getRows() {
+        return rows;
+    }
+
+    public AtomicLong getRowsAdded() {
+        return rowsAdded;
+    }
+
+    public AtomicLong getRowsChanged() {
+        return rowsChanged;
+    }
+
+    public AtomicLong getRowsUnchanged() {
+        return rowsUnchanged;
+    }
+
+    public AtomicLong getRowsMissing() {
+        return rowsMissing;
+    }
+
+    public List<String> getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.paymentreconciliation.dto;
+
+/**
+ * Downloadable reconciliation reports, addressed by slug in /api/reports/{slug}.
+ */
+public enum ReportType {
+    UNMATCHED_ITEMS("unmatched-items", "Unmatched VAN Items"),
+    DAILY_ACCOUNT_SUMMARY("daily-account-summary", "Daily Account Summary"),
+    IMPORT_RUN_AUDIT("import-run-audit", "Import Run Audit");
+
+    private final String slug;
+    private final String title;
+
+    ReportType(String slug, String title) {
+        this.slug = slug;
+        this.title = title;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public static ReportType fromSlug(String slug) {
+        for (ReportType type : values()) {
+            if (type.slug.equalsIgnoreCase(slug)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown report: " + slug);
+    }
+}
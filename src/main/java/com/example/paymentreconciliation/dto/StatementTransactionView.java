@@ -0,0 +1,88 @@
+package com.example.paymentreconciliation.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only row of the MT940 statement transaction list, projected directly by JPQL.
+ */
+public class StatementTransactionView {
+
+    private final Long id;
+    private final String accountNo;
+    private final String stmtRef20;
+    private final LocalDate valueDate;
+    private final LocalDate entryDate;
+    private final String dc;
+    private final BigDecimal amount;
+    private final BigDecimal signedAmount;
+    private final String currency;
+    private final String bankReference;
+    private final String customerReference;
+    private final String narrative;
+
+    public StatementTransactionView(Long id, String accountNo, String stmtRef20, LocalDate valueDate, LocalDate entryDate,
+                                    String dc, BigDecimal amount, BigDecimal signedAmount, String currency,
+                                    String bankReference, String customerReference, String narrative) {
+        this.id = id;
+        this.accountNo = accountNo;
+        this.stmtRef20 = stmtRef20;
+        this.valueDate = valueDate;
+        this.entryDate = entryDate;
+        this.dc = dc;
+        this.amount = amount;
+        this.signedAmount = signedAmount;
+        this.currency = currency;
+        this.bankReference = bankReference;
+        this.customerReference = customerReference;
+        this.narrative = narrative;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAccountNo() {
+        return accountNo;
+    }
+
+    public String getStmtRef20() {
+        return stmtRef20;
+    }
+
+    public LocalDate getValueDate() {
+        return valueDate;
+    }
+
+    public LocalDate getEntryDate() {
+        return entryDate;
+    }
+
+    public String getDc() {
+        return dc;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getSignedAmount() {
+        return signedAmount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getBankReference() {
+        return bankReference;
+    }
+
+    public String getCustomerReference() {
+        return customerReference;
+    }
+
+    public String getNarrative() {
+        return narrative;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.paymentreconciliation.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Query parameters for the transaction list endpoints.
+ * Paging is keyset based: pass the afterDate/afterId of the last row of the previous page
+ * (returned as nextCursor) instead of an offset.
+ */
+public class TransactionSearchCriteria {
+
+    public static final int DEFAULT_LIMIT = 500;
+    public static final int MAX_LIMIT = 5000;
+
+    private String accountNo;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fromDate;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate toDate;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String status;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate afterDate;
+    private Long afterId;
+    private Integer limit;
+
+    public TransactionSearchCriteria() {}
+
+    /**
+     * Requested page size, defaulted and capped at MAX_LIMIT.
+     */
+    public int effectiveLimit() {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public String getAccountNo() {
+        return accountNo;
+    }
+
+    public void setAccountNo(String accountNo) {
+        this.accountNo = accountNo;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDate getAfterDate() {
+        return afterDate;
+    }
+
+    public void setAfterDate(LocalDate afterDate) {
+        this.afterDate = afterDate;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public void setAfterId(Long afterId) {
+        this.afterId = afterId;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.paymentreconciliation.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only row of the VAN transaction list, projected directly by JPQL.
+ */
+public class VANTransactionView {
+
+    private final Long id;
+    private final String mainAccountNumber;
+    private final String virtualAccountNumber;
+    private final String transactionReferenceNumber;
+    private final LocalDate transactionDate;
+    private final LocalDate valueDate;
+    private final BigDecimal amount;
+    private final String remitterName;
+    private final String paymentStatus;
+    private final String mappedCustomerIdCode;
+    private final String invoiceReferenceId;
+
+    public VANTransactionView(Long id, String mainAccountNumber, String virtualAccountNumber, String transactionReferenceNumber,
+                              LocalDate transactionDate, LocalDate valueDate, BigDecimal amount, String remitterName,
+                              String paymentStatus, String mappedCustomerIdCode, String invoiceReferenceId) {
+        this.id = id;
+        this.mainAccountNumber = mainAccountNumber;
+        this.virtualAccountNumber = virtualAccountNumber;
+        this.transactionReferenceNumber = transactionReferenceNumber;
+        this.transactionDate = transactionDate;
+        this.valueDate = valueDate;
+        this.amount = amount;
+        this.remitterName = remitterName;
+        this.paymentStatus = paymentStatus;
+        this.mappedCustomerIdCode = mappedCustomerIdCode;
+        this.invoiceReferenceId = invoiceReferenceId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMainAccountNumber() {
+        return mainAccountNumber;
+    }
+
+    public String getVirtualAccountNumber() {
+        return virtualAccountNumber;
+    }
+
+    public String getTransactionReferenceNumber() {
+        return transactionReferenceNumber;
+    }
+
+    public LocalDate getTransactionDate() {
+        return transactionDate;
+    }
+
+    public LocalDate getValueDate() {
+        return valueDate;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getRemitterName() {
+        return remitterName;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public String getMappedCustomerIdCode() {
+        return mappedCustomerIdCode;
+    }
+
+    public String getInvoiceReferenceId() {
+        return invoiceReferenceId;
+    }
+}
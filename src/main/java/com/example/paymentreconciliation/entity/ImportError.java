@@ -7,7 +7,9 @@ import java.time.LocalDateTime;
 @Table(name = "import_error")
 public class ImportError {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so saveAll inserts go out as JDBC batches (see db/id_sequences.sql)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "importErrorSeq")
+    @SequenceGenerator(name = "importErrorSeq", sequenceName = "import_error_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -41,6 +41,11 @@ public class ImportRun {
     @Column(name = "error_message")
     private String errorMessage;
 
+    // Number of input records fully handled (committed or rejected); written in the same transaction as
+    // each committed statement/chunk so a crashed import can resume after the last commit
+    @Column(name = "checkpoint_offset")
+    private Integer checkpointOffset;
+
     public enum Status {
         NEW, PARSED, PARTIAL, FAILED, IMPORTED, DUPLICATE
     }
@@ -132,4 +137,12 @@ public class ImportRun {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
+
+    public Integer getCheckpointOffset() {
+        return checkpointOffset;
+    }
+
+    public void setCheckpointOffset(Integer checkpointOffset) {
+        this.checkpointOffset = checkpointOffset;
+    }
 }
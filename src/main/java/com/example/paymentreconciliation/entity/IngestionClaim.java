@@ -0,0 +1,142 @@
+package com.example.paymentreconciliation.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide claim on an inbox file, keyed by path + size + mtime.
+ * A node owns the file while its lease is valid; expired leases can be taken over by another node.
+ * Rows exist only while a file is pending or in flight and are deleted once it has left the inbox.
+ */
+@Entity
+@Table(name = "ingestion_claim",
+        uniqueConstraints = @UniqueConstraint(name = "uq_ingestion_claim", columnNames = {"file_type", "file_path", "file_size_bytes", "file_mtime"}),
+        indexes = @Index(name = "idx_ingestion_claim_processing_path", columnList = "processing_path"))
+public class IngestionClaim {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_type", nullable = false, length = 16)
+    private String fileType;
+
+    @Column(name = "file_path", nullable = false, length = 1024)
+    private String filePath;
+
+    @Column(name = "file_size_bytes", nullable = false)
+    private Long fileSizeBytes;
+
+    @Column(name = "file_mtime", nullable = false)
+    private LocalDateTime fileMtime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "owner", length = 128)
+    private String owner;
+
+    @Column(name = "processing_path", length = 1024)
+    private String processingPath;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Status {
+        PENDING, CLAIMED
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public Long getFileSizeBytes() {
+        return fileSizeBytes;
+    }
+
+    public void setFileSizeBytes(Long fileSizeBytes) {
+        this.fileSizeBytes = fileSizeBytes;
+    }
+
+    public LocalDateTime getFileMtime() {
+        return fileMtime;
+    }
+
+    public void setFileMtime(LocalDateTime fileMtime) {
+        this.fileMtime = fileMtime;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getProcessingPath() {
+        return processingPath;
+    }
+
+    public void setProcessingPath(String processingPath) {
+        this.processingPath = processingPath;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(LocalDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
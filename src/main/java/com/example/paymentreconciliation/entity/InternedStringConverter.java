@@ -0,0 +1,22 @@
+package com.example.paymentreconciliation.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Interns enum-like column values (D/C marks, currencies, type codes, statuses) as they are loaded,
+ * so large result sets share one String per distinct value. Only for low-cardinality columns:
+ * interned strings live in the JVM string table.
+ */
+@Converter
+public class InternedStringConverter implements AttributeConverter<String, String> {
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return attribute;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return dbData != null ? dbData.intern() : null;
+    }
+}
@@ -12,12 +12,15 @@ public class StatementBalance {
     @ManyToOne(optional = false)
     @JoinColumn(name = "statement_file_id", nullable = false)
     private StatementFile statementFile;
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "bal_type", nullable = false, length = 16)
     private String balType; // OPENING, CLOSING, AVAILABLE, FORWARD
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "dc", nullable = false, length = 1)
     private String dc;
     @Column(name = "bal_date", nullable = false)
     private LocalDate balDate;
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "currency", nullable = false, length = 3)
     private String currency;
     @Column(name = "amount", nullable = false, precision = 19, scale = 2)
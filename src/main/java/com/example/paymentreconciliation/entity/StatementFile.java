@@ -28,18 +28,21 @@ public class StatementFile {
     @Column(name = "statement_date", nullable = false)
     private LocalDate statementDate;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "opening_dc", nullable = false, length = 1)
     private String openingDc;
 
     @Column(name = "opening_amount", nullable = false, precision = 19, scale = 2)
     private java.math.BigDecimal openingAmount;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "closing_dc", nullable = false, length = 1)
     private String closingDc;
 
     @Column(name = "closing_amount", nullable = false, precision = 19, scale = 2)
     private java.math.BigDecimal closingAmount;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "currency", nullable = false, length = 3)
     private String currency;
 
@@ -9,10 +9,21 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 @Entity
-@Table(name = "statement_transaction", uniqueConstraints = @UniqueConstraint(name = "uq_txn_hash", columnNames = {"ext_idempotency_hash"}))
+@Table(name = "statement_transaction",
+        // value_date is part of the idempotency hash, so adding it keeps the key equivalent while letting
+        // the constraint live on the monthly partitions (PostgreSQL requires the partition key in it)
+        uniqueConstraints = @UniqueConstraint(name = "uq_txn_hash", columnNames = {"ext_idempotency_hash", "value_date"}),
+        indexes = {
+                @Index(name = "idx_stmt_txn_value_date_id", columnList = "value_date, id"),
+                @Index(name = "idx_stmt_txn_file_date_id", columnList = "statement_file_id, value_date, id"),
+                @Index(name = "idx_stmt_txn_bank_ref", columnList = "bank_reference, amount"),
+                @Index(name = "idx_stmt_txn_cust_ref", columnList = "customer_reference, amount")
+        })
 public class StatementTransaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so saveAll inserts go out as JDBC batches (see db/id_sequences.sql)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "statementTransactionSeq")
+    @SequenceGenerator(name = "statementTransactionSeq", sequenceName = "statement_transaction_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -28,6 +39,7 @@ public class StatementTransaction {
     @Column(name = "entry_date")
     private LocalDate entryDate;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "dc", nullable = false, length = 1)
     private String dc;
 
@@ -37,9 +49,11 @@ public class StatementTransaction {
     @Column(name = "signed_amount", nullable = false, precision = 19, scale = 2)
     private BigDecimal signedAmount;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "currency", nullable = false, length = 3)
     private String currency;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "txn_type_code", length = 4)
     private String txnTypeCode;
 
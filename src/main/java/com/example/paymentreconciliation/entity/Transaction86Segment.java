@@ -5,10 +5,13 @@ import jakarta.persistence.*;
 @Table(name = "transaction_86_segment")
 public class Transaction86Segment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so saveAll inserts go out as JDBC batches (see db/id_sequences.sql)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction86SegmentSeq")
+    @SequenceGenerator(name = "transaction86SegmentSeq", sequenceName = "transaction_86_segment_seq", allocationSize = 50)
     private Long id;
     @ManyToOne(optional = false)
-    @JoinColumn(name = "statement_transaction_id", nullable = false)
+    // No FK constraint: statement_transaction is range-partitioned and its key is (id, value_date)
+    @JoinColumn(name = "statement_transaction_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private StatementTransaction statementTransaction;
     @Column(name = "seg_key", nullable = false, length = 32)
     private String segKey;
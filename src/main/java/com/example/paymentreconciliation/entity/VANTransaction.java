@@ -6,10 +6,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "van_transaction")
+@Table(name = "van_transaction",
+        indexes = {
+                @Index(name = "idx_van_txn_date_id", columnList = "transaction_date, id"),
+                @Index(name = "idx_van_txn_account_date_id", columnList = "main_account_number, transaction_date, id")
+        })
 public class VANTransaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so saveAll inserts go out as JDBC batches (see db/id_sequences.sql)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vanTransactionSeq")
+    @SequenceGenerator(name = "vanTransactionSeq", sequenceName = "van_transaction_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -17,6 +23,7 @@ public class VANTransaction {
     private ImportRun importRun;
 
     // Identification fields
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "main_account_number", nullable = false)
     private String mainAccountNumber;
 
@@ -52,12 +59,14 @@ public class VANTransaction {
     @Column(name = "amount", nullable = false, precision = 19, scale = 2)
     private BigDecimal amount;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "mode_channel")
     private String modeChannel;
 
     @Column(name = "payment_description_narration")
     private String paymentDescriptionNarration;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "payment_status")
     private String paymentStatus;
 
@@ -71,6 +80,7 @@ public class VANTransaction {
     @Column(name = "date_time_of_credit")
     private LocalDateTime dateTimeOfCredit;
 
+    @Convert(converter = InternedStringConverter.class)
     @Column(name = "branch_bank_code")
     private String branchBankCode;
 
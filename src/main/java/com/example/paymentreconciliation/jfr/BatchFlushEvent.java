@@ -0,0 +1,27 @@
+package com.example.paymentreconciliation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one batched repository write (saveAll of a statement's rows or a VAN chunk).
+ */
+@Name("com.example.paymentreconciliation.BatchFlush")
+@Label("Batch Flush")
+@Category({"Reconciliation Service", "Ingestion"})
+@Description("Batched write of ingested rows")
+@StackTrace(false)
+public class BatchFlushEvent extends Event {
+    @Label("Entity")
+    public String entity;
+
+    @Label("File Hash")
+    public String fileHash;
+
+    @Label("Row Count")
+    public int rowCount;
+}
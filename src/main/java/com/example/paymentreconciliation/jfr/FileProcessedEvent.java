@@ -0,0 +1,35 @@
+package com.example.paymentreconciliation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the processing of one inbox file, from move to archive/quarantine.
+ */
+@Name("com.example.paymentreconciliation.FileProcessed")
+@Label("File Processed")
+@Category({"Reconciliation Service", "Ingestion"})
+@Description("Processing of one inbox file")
+@StackTrace(false)
+public class FileProcessedEvent extends Event {
+    @Label("File Type")
+    public String fileType;
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("File Hash")
+    public String fileHash;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
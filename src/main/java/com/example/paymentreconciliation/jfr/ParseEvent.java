@@ -0,0 +1,35 @@
+package com.example.paymentreconciliation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the parse of one document (an MT940 file or zip entry, or a VAN CSV).
+ */
+@Name("com.example.paymentreconciliation.Parse")
+@Label("Parse")
+@Category({"Reconciliation Service", "Ingestion"})
+@Description("Parsing of one ingested document")
+@StackTrace(false)
+public class ParseEvent extends Event {
+    @Label("File Type")
+    public String fileType;
+
+    @Label("Document Name")
+    public String documentName;
+
+    @Label("File Hash")
+    public String fileHash;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Record Count")
+    public int recordCount;
+}
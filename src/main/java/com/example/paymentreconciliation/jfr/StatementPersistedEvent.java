@@ -0,0 +1,31 @@
+package com.example.paymentreconciliation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the transaction that persists one MT940 statement.
+ * Identifies the account by its bank_account id rather than the account number.
+ */
+@Name("com.example.paymentreconciliation.StatementPersisted")
+@Label("Statement Persisted")
+@Category({"Reconciliation Service", "Ingestion"})
+@Description("Persistence of one MT940 statement")
+@StackTrace(false)
+public class StatementPersistedEvent extends Event {
+    @Label("File Hash")
+    public String fileHash;
+
+    @Label("Bank Account Id")
+    public long bankAccountId;
+
+    @Label("Statement Reference")
+    public String stmtRef20;
+
+    @Label("Row Count")
+    public int rowCount;
+}
@@ -1,11 +1,35 @@
 package com.example.paymentreconciliation.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.paymentreconciliation.entity.ImportRun;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface ImportRunRepository extends JpaRepository<ImportRun, Long> {
     Optional<ImportRun> findByFileHash(String fileHash);
+
+    List<ImportRun> findByFileTypeAndReceivedAtBetweenOrderByIdAsc(String fileType, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Lightweight projection of recently received file hashes, newest first, used to warm the in-process dedupe gate.
+     */
+    List<FileHashView> findByReceivedAtAfterOrderByReceivedAtDesc(LocalDateTime since, Pageable pageable);
+
+    @Modifying
+    @Query("update ImportRun r set r.checkpointOffset = :offset where r.id = :id")
+    int updateCheckpoint(@Param("id") Long id, @Param("offset") Integer offset);
+
+    interface FileHashView {
+        Long getId();
+        String getFileHash();
+        ImportRun.Status getStatus();
+        Integer getTotalRecords();
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.paymentreconciliation.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.example.paymentreconciliation.entity.IngestionClaim;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IngestionClaimRepository extends JpaRepository<IngestionClaim, Long> {
+
+    /**
+     * Register a discovered file; a no-op if another node already registered it.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}ingestion_claim (file_type, file_path, file_size_bytes, file_mtime, status, created_at) "
+            + "VALUES (:fileType, :filePath, :fileSize, :fileMtime, 'PENDING', :now) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("fileType") String fileType,
+                       @Param("filePath") String filePath,
+                       @Param("fileSize") long fileSize,
+                       @Param("fileMtime") LocalDateTime fileMtime,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Lock the claim row if it is pending or its lease has expired (FOR UPDATE SKIP LOCKED),
+     * so concurrent nodes never block on or double-claim the same file.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c from IngestionClaim c where c.fileType = :fileType and c.filePath = :filePath "
+            + "and c.fileSizeBytes = :fileSize and c.fileMtime = :fileMtime "
+            + "and (c.status = :pending or (c.status = :claimed and c.leaseExpiresAt < :now))")
+    Optional<IngestionClaim> lockClaimable(@Param("fileType") String fileType,
+                                           @Param("filePath") String filePath,
+                                           @Param("fileSize") Long fileSize,
+                                           @Param("fileMtime") LocalDateTime fileMtime,
+                                           @Param("pending") IngestionClaim.Status pending,
+                                           @Param("claimed") IngestionClaim.Status claimed,
+                                           @Param("now") LocalDateTime now);
+
+    boolean existsByProcessingPath(String processingPath);
+
+    /**
+     * Lock the claim row for a file in PROCESSING, skipping it if another node holds the row lock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c from IngestionClaim c where c.processingPath = :processingPath")
+    Optional<IngestionClaim> lockByProcessingPath(@Param("processingPath") String processingPath);
+
+    @Modifying
+    @Query("update IngestionClaim c set c.processingPath = :processingPath where c.id = :id")
+    int updateProcessingPath(@Param("id") Long id, @Param("processingPath") String processingPath);
+
+    /**
+     * Extend a claim's lease, only if this node still owns it.
+     */
+    @Modifying
+    @Query("update IngestionClaim c set c.leaseExpiresAt = :leaseExpiresAt where c.id = :id and c.owner = :owner")
+    int renewLease(@Param("id") Long id,
+                   @Param("owner") String owner,
+                   @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    /**
+     * Delete a finished claim, only if this node still owns it.
+     */
+    @Modifying
+    @Query("delete from IngestionClaim c where c.id = :id and c.owner = :owner")
+    int deleteOwned(@Param("id") Long id, @Param("owner") String owner);
+}
@@ -0,0 +1,35 @@
+package com.example.paymentreconciliation.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.paymentreconciliation.entity.OutboxEvent;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Oldest unpublished, not dead-lettered events created before the cutoff, in id order.
+     */
+    List<OutboxEvent> findByPublishedAtIsNullAndDeadLetteredAtIsNullAndCreatedAtBeforeOrderByIdAsc(LocalDateTime cutoff, Pageable page);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") List<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.lastError = :error where e.id in :ids")
+    int recordFailure(@Param("ids") List<Long> ids, @Param("error") String error);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.deadLetteredAt = :deadLetteredAt where e.id in :ids")
+    int markDeadLettered(@Param("ids") List<Long> ids, @Param("deadLetteredAt") LocalDateTime deadLetteredAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,8 +1,14 @@
 package com.example.paymentreconciliation.repository;
 
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import com.example.paymentreconciliation.entity.ImportRun;
 import com.example.paymentreconciliation.entity.StatementFile;
 
 public interface StatementFileRepository extends JpaRepository<StatementFile, Long> {
+    long countByImportRun(ImportRun importRun);
+
+    Optional<StatementFile> findFirstByImportRunAndStmtRef20AndSeq28c(ImportRun importRun, String stmtRef20, String seq28c);
 }
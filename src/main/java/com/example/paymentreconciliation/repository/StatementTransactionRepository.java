@@ -1,8 +1,17 @@
 package com.example.paymentreconciliation.repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import com.example.paymentreconciliation.entity.StatementFile;
 import com.example.paymentreconciliation.entity.StatementTransaction;
 
 public interface StatementTransactionRepository extends JpaRepository<StatementTransaction, Long> {
+    // Lookups carry the partition key (value_date) so PostgreSQL prunes to a single monthly partition
+    Optional<StatementTransaction> findByExtIdempotencyHashAndValueDate(String extIdempotencyHash, LocalDate valueDate);
+
+    List<StatementTransaction> findByStatementFile(StatementFile statementFile);
 }
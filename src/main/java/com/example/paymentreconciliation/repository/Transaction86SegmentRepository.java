@@ -1,8 +1,15 @@
 package com.example.paymentreconciliation.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.paymentreconciliation.entity.StatementTransaction;
 import com.example.paymentreconciliation.entity.Transaction86Segment;
 
 public interface Transaction86SegmentRepository extends JpaRepository<Transaction86Segment, Long> {
+    @Modifying
+    @Query("delete from Transaction86Segment s where s.statementTransaction = :txn")
+    int deleteByStatementTransaction(@Param("txn") StatementTransaction txn);
 }
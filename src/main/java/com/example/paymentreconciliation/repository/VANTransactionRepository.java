@@ -2,7 +2,9 @@ package com.example.paymentreconciliation.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import com.example.paymentreconciliation.entity.ImportRun;
 import com.example.paymentreconciliation.entity.VANTransaction;
 
 public interface VANTransactionRepository extends JpaRepository<VANTransaction, Long> {
+    long countByImportRun(ImportRun importRun);
 }
@@ -0,0 +1,174 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.config.Mt940IngestionProperties;
+import com.example.paymentreconciliation.config.VANIngestionProperties;
+
+/**
+ * Content-addressed, gzip-compressed archive of ingested files, laid out as
+ * &lt;archive-dir&gt;/sha256/ab/cd/&lt;sha256&gt;.gz where the hash is that of the original bytes, i.e.
+ * ImportRun.fileHash. Identical content is stored once. The file is hashed and compressed in one
+ * streaming pass into a temp file beside the target, forced to disk and renamed into place, so a
+ * crash never leaves a partial archive under a hash name. Documents extracted from a container
+ * (zip entries) are stored under their own hash as well, since that is the hash their runs carry.
+ */
+@Component
+public class ArchiveStore {
+    private static final Logger log = LoggerFactoryProvider.getLogger(ArchiveStore.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String SUFFIX = ".gz";
+
+    @Autowired
+    private IngestionProperties ingestionProperties;
+    @Autowired
+    private Mt940IngestionProperties mt940Properties;
+    @Autowired
+    private VANIngestionProperties vanProperties;
+
+    /**
+     * Compress the file into the archive of its file type and delete the original. Returns the content hash.
+     */
+    public String store(File file, String fileType) {
+        try {
+            String hash;
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                hash = write(in, fileType, file.getName());
+            }
+            Files.delete(file.toPath());
+            return hash;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to archive file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Compress a copy of a document whose hash is already known (e.g. a zip entry spooled to disk) into
+     * the archive of its file type, unless its content is already there. The file is left in place.
+     * Returns the content hash.
+     */
+    public String storeCopy(File file, String contentHash, String name, String fileType) {
+        if (find(fileType, contentHash).isPresent()) {
+            return contentHash;
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return write(in, fileType, name);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to archive " + name, e);
+        }
+    }
+
+    private String write(InputStream in, String fileType, String name) throws IOException {
+        Path root = root(fileType);
+        Path temp = root.resolve("tmp").resolve(UUID.randomUUID() + SUFFIX);
+        try {
+            Files.createDirectories(temp.getParent());
+            MessageDigest digest = Hashing.sha256();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                GZIPOutputStream gzip = new LevelGZIPOutputStream(out, ingestionProperties.getArchiveCompressionLevel());
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    gzip.write(buffer, 0, read);
+                }
+                gzip.finish();
+                gzip.flush();
+                channel.force(true);
+            }
+            String hash = Hashing.toHex(digest.digest());
+            Path target = path(root, hash);
+            if (Files.exists(target)) {
+                log.debug("Archive already holds {} ({}); dropping duplicate copy of {}", hash, fileType, name);
+                Files.delete(temp);
+            } else {
+                Files.createDirectories(target.getParent());
+                moveAtomically(temp, target);
+            }
+            return hash;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException cleanup) {
+                log.warn("Failed to remove archive temp file {}: {}", temp, cleanup.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Location of the archived copy of the given content, if present.
+     */
+    public Optional<Path> find(String fileType, String fileHash) {
+        if (fileHash == null || !fileHash.matches("[0-9a-f]{64}")) {
+            return Optional.empty();
+        }
+        Path path = path(root(fileType), fileHash);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Decompressing stream over the archived original bytes. The caller closes it.
+     */
+    public InputStream open(String fileType, String fileHash) throws IOException {
+        Path path = find(fileType, fileHash)
+                .orElseThrow(() -> new IOException("No archived " + fileType + " file with hash " + fileHash));
+        return new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE);
+    }
+
+    private Path root(String fileType) {
+        String archiveDir;
+        if ("MT940".equalsIgnoreCase(fileType)) {
+            archiveDir = mt940Properties.getArchiveDir();
+        } else if ("VAN".equalsIgnoreCase(fileType)) {
+            archiveDir = vanProperties.getArchiveDir();
+        } else {
+            throw new IllegalArgumentException("Unknown file type: " + fileType);
+        }
+        return Paths.get(archiveDir, "sha256");
+    }
+
+    private static Path path(Path root, String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + SUFFIX);
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+    private static final class LevelGZIPOutputStream extends GZIPOutputStream {
+        LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level < 0 ? Deflater.DEFAULT_COMPRESSION : Math.min(level, Deflater.BEST_COMPRESSION));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Last closing balance and :28C: statement number per bank account, used to check that each newly
+ * persisted statement continues where the previous one for its account ended. A statement whose
+ * opening balance differs from the previous closing balance, or whose statement number skips ahead,
+ * indicates a missing file. The check is an O(1) map lookup; the database is only consulted on a
+ * suspected gap, to pick up statements persisted by other replicas before an alert is raised. That
+ * query runs without holding any map lock, so it delays neither other accounts nor the account's
+ * next statement.
+ * Warmed at startup from the latest CLOSING statement_balance of each account.
+ */
+@Component
+public class BalanceContinuityCache {
+    private static final Logger log = LoggerFactoryProvider.getLogger(BalanceContinuityCache.class);
+
+    private static final String LATEST_CLOSING_SQL =
+            "select distinct on (ba.account_no, ba.currency) ba.account_no, ba.currency, sf.seq_28c, sb.bal_date, sb.dc, sb.amount "
+            + "from statement_balance sb "
+            + "join statement_file sf on sf.id = sb.statement_file_id "
+            + "join bank_account ba on ba.id = sf.bank_account_id "
+            + "where sb.bal_type = 'CLOSING'%s "
+            + "order by ba.account_no, ba.currency, sb.bal_date desc, sf.id desc";
+
+    // [accountNo, currency, Position]
+    private static final RowMapper<Object[]> POSITION_MAPPER = (rs, rowNum) -> {
+        BigDecimal amount = rs.getBigDecimal("amount");
+        BigDecimal signed = "D".equals(rs.getString("dc")) ? amount.negate() : amount;
+        Position position = new Position(rs.getDate("bal_date").toLocalDate(), signed, rs.getString("seq_28c"));
+        return new Object[] {rs.getString("account_no"), rs.getString("currency"), position};
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+
+    /**
+     * Where an account's statements last ended.
+     */
+    static final class Position {
+        final LocalDate closingDate;
+        final BigDecimal closingBalance;
+        final Integer statementNo;
+        final Integer sequenceNo;
+
+        Position(LocalDate closingDate, BigDecimal closingBalance, String seq28c) {
+            this.closingDate = closingDate;
+            this.closingBalance = closingBalance;
+            int[] parsed = parseSeq28c(seq28c);
+            this.statementNo = parsed != null ? parsed[0] : null;
+            this.sequenceNo = parsed != null ? parsed[1] : null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<Object[]> rows = jdbcTemplate.query(String.format(LATEST_CLOSING_SQL, ""), POSITION_MAPPER);
+            for (Object[] row : rows) {
+                positions.put(key((String) row[0], (String) row[1]), (Position) row[2]);
+            }
+            log.info("Warmed balance continuity cache with {} accounts", positions.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to warm balance continuity cache; continuity starts from the next statement per account: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Check a statement that has just been persisted against the account's previous statement and
+     * advance the account's position. Returns the continuity gaps found (empty when continuous).
+     * Statements older than the cached position (late or replayed files) are neither checked nor recorded.
+     */
+    public List<String> recordPersisted(Mt940Parser.Statement stmt) {
+        String key = key(stmt.accountNo, stmt.currency);
+        Position next = new Position(stmt.closingBalance.parsedDate, signed(stmt.closingBalance), stmt.seq28c);
+        List<String> gaps;
+        // Check against the current position, consulting the database outside any map lock, then advance
+        // only if the position is still the one checked against. If another statement of the account got
+        // there first, check again against its position, so statements of one account persisted
+        // concurrently are each checked against their actual predecessor
+        while (true) {
+            Position previous = positions.get(key);
+            List<String> found = previous != null ? gaps(previous, stmt) : List.of();
+            if (!found.isEmpty()) {
+                // Another replica may have persisted the statements in between
+                Position reloaded = reload(stmt);
+                if (reloaded != null) {
+                    found = gaps(reloaded, stmt);
+                }
+            }
+            if (previous == null) {
+                if (positions.putIfAbsent(key, next) == null) {
+                    gaps = found;
+                    break;
+                }
+            } else if (positions.replace(key, previous, next.closingDate.isBefore(previous.closingDate) ? previous : next)) {
+                gaps = found;
+                break;
+            }
+        }
+        for (String gap : gaps) {
+            log.warn("Statement continuity gap on account {} {}: {}", stmt.accountNo, stmt.currency, gap);
+            registry.counter("ingestion.statement.continuity.gaps", "type", gap.startsWith("Balance") ? "balance" : "sequence").increment();
+        }
+        return gaps;
+    }
+
+    private List<String> gaps(Position previous, Mt940Parser.Statement stmt) {
+        LocalDate openingDate = stmt.openingBalance.parsedDate;
+        if (openingDate.isBefore(previous.closingDate)) {
+            return List.of();
+        }
+        List<String> gaps = new ArrayList<>(2);
+        BigDecimal opening = signed(stmt.openingBalance);
+        if (opening.compareTo(previous.closingBalance) != 0) {
+            gaps.add("Balance gap: statement " + stmt.stmtRef20 + " opens at " + opening + " on " + openingDate
+                    + " but previous statement closed at " + previous.closingBalance + " on " + previous.closingDate);
+        }
+        int[] current = parseSeq28c(stmt.seq28c);
+        if (current != null && previous.statementNo != null && !followsOn(previous, current)) {
+            gaps.add("Sequence gap: statement " + stmt.seq28c + " does not follow " + previous.statementNo
+                    + (previous.sequenceNo != null ? "/" + previous.sequenceNo : ""));
+        }
+        return gaps;
+    }
+
+    /**
+     * Next page of the same statement, the first page of the next statement, or a restart of the
+     * numbering at 1 (new year).
+     */
+    private static boolean followsOn(Position previous, int[] current) {
+        int statementNo = current[0];
+        int sequenceNo = current[1];
+        if (statementNo == previous.statementNo) {
+            return previous.sequenceNo != null && sequenceNo == previous.sequenceNo + 1;
+        }
+        return (statementNo == previous.statementNo + 1 || statementNo == 1) && sequenceNo <= 1;
+    }
+
+    /**
+     * Latest closing position persisted for the account up to the given date, excluding the statement itself.
+     */
+    private Position reload(Mt940Parser.Statement stmt) {
+        try {
+            List<Object[]> rows = jdbcTemplate.query(String.format(LATEST_CLOSING_SQL,
+                            " and ba.account_no = ? and ba.currency = ? and sb.bal_date <= ?"
+                            + " and not (sf.stmt_ref_20 = ? and coalesce(sf.seq_28c, '') = ?)"),
+                    POSITION_MAPPER, stmt.accountNo, stmt.currency, Date.valueOf(stmt.openingBalance.parsedDate),
+                    stmt.stmtRef20, stmt.seq28c != null ? stmt.seq28c : "");
+            return rows.isEmpty() ? null : (Position) rows.get(0)[2];
+        } catch (RuntimeException e) {
+            log.debug("Failed to reload continuity position for {} {}: {}", stmt.accountNo, stmt.currency, e.getMessage());
+            return null;
+        }
+    }
+
+    private static BigDecimal signed(Mt940Parser.Balance balance) {
+        return "D".equals(balance.dc) ? balance.parsedAmount.negate() : balance.parsedAmount;
+    }
+
+    /**
+     * :28C: is statementNo[/sequenceNo]; returns {statementNo, sequenceNo (0 if absent)} or null if not numeric.
+     */
+    static int[] parseSeq28c(String seq28c) {
+        if (seq28c == null || seq28c.isBlank()) {
+            return null;
+        }
+        try {
+            int slash = seq28c.indexOf('/');
+            if (slash < 0) {
+                return new int[] {Integer.parseInt(seq28c.trim()), 0};
+            }
+            return new int[] {Integer.parseInt(seq28c.substring(0, slash).trim()), Integer.parseInt(seq28c.substring(slash + 1).trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String key(String accountNo, String currency) {
+        return accountNo + "|" + currency;
+    }
+}
@@ -9,8 +9,19 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.entity.IngestionClaim;
+import com.example.paymentreconciliation.jfr.FileProcessedEvent;
 
 /**
  * Base Ingestion Service with common file processing logic.
@@ -18,9 +29,31 @@ import java.util.UUID;
 public abstract class BaseIngestionService {
     private static final Logger log = LoggerFactoryProvider.getLogger(BaseIngestionService.class);
 
-    protected static final long MAX_FILE_SIZE_BYTES = 50 * 1024 * 1024; // 50MB
     protected static final int FILE_STABILITY_WINDOW_SEC = 10;
+    protected static final int PERSIST_CHUNK_SIZE = 500; // rows committed per transaction
+
+    @Autowired
+    protected IngestionMetrics ingestionMetrics;
+    @Autowired
+    protected IngestionPipeline ingestionPipeline;
+    @Autowired
+    protected IngestionAdmissionController admissionController;
+
+    @Autowired
+    private IngestionClaimService ingestionClaimService;
+    @Autowired
+    private ArchiveStore archiveStore;
+    @Autowired
+    private IngestionProperties ingestionProperties;
 
+    // JFR event for the file currently being processed on this thread; hash and outcome are filled in as they become known
+    private final ThreadLocal<FileProcessedEvent> currentFileEvent = new ThreadLocal<>();
+    // Claim held for the file currently being processed on this thread
+    private final ThreadLocal<IngestionClaim> currentClaim = new ThreadLocal<>();
+    // Set while a poll of this inbox runs, whether scheduled or requested through the API
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    protected abstract String getFileType();
     protected abstract String getInboxDir();
     protected abstract String getProcessingDir();
     protected abstract String getArchiveDir();
@@ -28,49 +61,203 @@ public abstract class BaseIngestionService {
     protected abstract String getFileExtension();
     protected abstract void processFile(File file);
 
+    /**
+     * Finish a file found in PROCESSING after a crash, resuming from the last committed checkpoint.
+     */
+    protected abstract void recoverProcessingFile(File processingFile);
+
+    /**
+     * Extensions accepted from the inbox. Defaults to the single primary extension.
+     */
+    protected List<String> getFileExtensions() {
+        return List.of(getFileExtension());
+    }
+
+    /**
+     * Hard size cap (ingestion.max-file-size-bytes). Files below it are admitted by
+     * {@link IngestionAdmissionController}, streamed when too large to parse in memory.
+     */
+    protected boolean exceedsMaxFileSize(File file) {
+        return exceedsMaxFileSize(file.length());
+    }
+
+    /**
+     * Same cap for a document of the given size that is not a file of its own, e.g. a zip entry.
+     */
+    protected boolean exceedsMaxFileSize(long size) {
+        long max = ingestionProperties.getMaxFileSizeBytes();
+        return max > 0 && size > max;
+    }
+
     /**
      * Main entry point for polling and processing files.
      */
     public void pollAndProcessInbox() {
+        recoverProcessingDir();
         log.info("Polling inbox directory: {}", getInboxDir());
         List<File> files = discoverStableFiles(getInboxDir());
         log.info("Discovered {} stable file(s) for ingestion", files.size());
+        processInboxFiles(files);
+    }
+
+    /**
+     * Poll the inbox unless a poll of this file type is already running on this node.
+     * Returns false, without waiting, when the poll was skipped.
+     */
+    public boolean pollIfIdle() {
+        if (!polling.compareAndSet(false, true)) {
+            log.info("{} inbox poll already running; skipping", getFileType());
+            ingestionMetrics.recordPollSkipped(getFileType());
+            return false;
+        }
+        try {
+            pollAndProcessInbox();
+            return true;
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Run the file stage for the discovered files, up to ingestion.pipeline.&lt;type&gt;.file-concurrency at a time.
+     */
+    protected void processInboxFiles(List<File> files) {
+        ingestionPipeline.processFiles(getFileType(), files, this::processInboxFile);
+    }
+
+    /**
+     * Process one discovered inbox file if this node can claim it, tracking it as in flight and
+     * quarantining it on unhandled errors. Files claimed by another replica are skipped.
+     */
+    protected void processInboxFile(File file) {
+        IngestionClaim claim = ingestionClaimService.tryClaim(getFileType(), file);
+        if (claim == null) {
+            log.debug("Skipping file claimed by another node: {}", file.getAbsolutePath());
+            return;
+        }
+        try {
+            if (!file.exists()) {
+                // Taken over from a crashed node that had already moved the file out of the inbox
+                log.warn("Claimed file no longer in inbox: {}", file.getAbsolutePath());
+                return;
+            }
+            processTracked(file, claim, this::processFile);
+        } finally {
+            ingestionClaimService.complete(claim);
+        }
+    }
+
+    /**
+     * Recover files interrupted by a previous run in the background, on the file-stage executor, so a long
+     * resume does not hold up startup. Skipped if a poll (which recovers too) is already running.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        ingestionPipeline.runFileTask(getFileType(), () -> {
+            if (!polling.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                recoverProcessingDir();
+            } catch (RuntimeException e) {
+                log.error("{} startup recovery failed: {}", getFileType(), e.getMessage(), e);
+            } finally {
+                polling.set(false);
+            }
+        });
+    }
+
+    /**
+     * Recover files left in PROCESSING (GUID-suffixed) whose lease has expired, e.g. after a crash or
+     * redeploy. Each file is reconciled against its ImportRun and resumed rather than reprocessed.
+     */
+    public void recoverProcessingDir() {
+        File[] files = new File(getProcessingDir()).listFiles(f -> f.isFile() && !originalFileName(f).equals(f.getName()));
+        if (files == null || files.length == 0) {
+            return;
+        }
         for (File file : files) {
+            IngestionClaim claim = ingestionClaimService.tryClaimForRecovery(getFileType(), file);
+            if (claim == null) {
+                continue;
+            }
             try {
-                log.info("Processing file: {}", file.getAbsolutePath());
-                processFile(file);
-            } catch (Exception e) {
-                log.error("Error processing file: {}. Moving to quarantine. Error: {}", file.getAbsolutePath(), e.getMessage(), e);
-                moveToQuarantine(file, "Unhandled error: " + e.getMessage());
+                log.warn("Recovering interrupted file from processing: {}", file.getAbsolutePath());
+                processTracked(file, claim, this::recoverProcessingFile);
+            } finally {
+                ingestionClaimService.complete(claim);
+            }
+        }
+    }
+
+    private void processTracked(File file, IngestionClaim claim, Consumer<File> action) {
+        // Hash, size and outcome are plain field writes as they become known; the rest is filled only if the event is recorded
+        FileProcessedEvent event = new FileProcessedEvent();
+        event.begin();
+        currentFileEvent.set(event);
+        currentClaim.set(claim);
+        ingestionMetrics.fileStarted(getFileType());
+        try {
+            log.info("Processing file: {}", file.getAbsolutePath());
+            action.accept(file);
+        } catch (Exception e) {
+            log.error("Error processing file: {}. Moving to quarantine. Error: {}", file.getAbsolutePath(), e.getMessage(), e);
+            recordOutcome("quarantined");
+            moveToQuarantine(file, "Unhandled error: " + e.getMessage());
+        } finally {
+            ingestionMetrics.fileFinished(getFileType());
+            currentFileEvent.remove();
+            currentClaim.remove();
+            event.end();
+            if (event.shouldCommit()) {
+                event.fileType = getFileType();
+                event.fileName = file.getName();
+                event.commit();
             }
         }
     }
 
+    /**
+     * Record the terminal outcome of the current file (imported, duplicate, quarantined) in metrics and JFR.
+     */
+    protected void recordOutcome(String outcome) {
+        ingestionMetrics.recordFile(getFileType(), outcome);
+        FileProcessedEvent event = currentFileEvent.get();
+        if (event != null) {
+            event.outcome = outcome;
+        }
+    }
+
     /**
      * Discover files that are stable (not changing) for at least FILE_STABILITY_WINDOW_SEC.
      */
     protected List<File> discoverStableFiles(String inboxDir) {
         log.debug("Discovering stable files in inbox: {}", inboxDir);
-        File dir = new File(inboxDir);
-        File[] files = dir.listFiles((d, name) -> name.endsWith(getFileExtension()));
-        if (files == null) {
-            log.debug("No files found in inbox directory: {}", inboxDir);
-            return List.of();
-        }
-        List<File> stable = new ArrayList<>();
-        long now = System.currentTimeMillis();
-        long stabilityWindowMs = FILE_STABILITY_WINDOW_SEC * 1000L;
-        for (File f : files) {
-            long lastModified = f.lastModified();
-            long age = now - lastModified;
-            if (age >= stabilityWindowMs) {
-                log.debug("File is stable: {} (age: {} ms, size: {} bytes)", f.getName(), age, f.length());
-                stable.add(f);
-            } else {
-                log.debug("File is not yet stable: {} (age: {} ms < {} ms)", f.getName(), age, stabilityWindowMs);
+        return ingestionMetrics.time("discovery", getFileType(), () -> {
+            File dir = new File(inboxDir);
+            List<String> extensions = getFileExtensions();
+            File[] files = dir.listFiles((d, name) -> extensions.stream().anyMatch(name.toLowerCase()::endsWith));
+            if (files == null) {
+                log.debug("No files found in inbox directory: {}", inboxDir);
+                ingestionMetrics.setInboxDepth(getFileType(), 0);
+                return List.<File>of();
             }
-        }
-        return stable;
+            ingestionMetrics.setInboxDepth(getFileType(), files.length);
+            List<File> stable = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            long stabilityWindowMs = FILE_STABILITY_WINDOW_SEC * 1000L;
+            for (File f : files) {
+                long lastModified = f.lastModified();
+                long age = now - lastModified;
+                if (age >= stabilityWindowMs) {
+                    log.debug("File is stable: {} (age: {} ms, size: {} bytes)", f.getName(), age, f.length());
+                    stable.add(f);
+                } else {
+                    log.debug("File is not yet stable: {} (age: {} ms < {} ms)", f.getName(), age, stabilityWindowMs);
+                }
+            }
+            return stable;
+        });
     }
 
     /**
@@ -81,42 +268,88 @@ public abstract class BaseIngestionService {
         String guid = UUID.randomUUID().toString();
         String newName = file.getName() + "_" + guid;
         File dest = new File(getProcessingDir(), newName);
-        try {
-            Files.move(file.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to move file to processing: " + file.getAbsolutePath(), e);
+        ingestionMetrics.time("move_to_processing", getFileType(), () -> {
+            try {
+                Files.move(file.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to move file to processing: " + file.getAbsolutePath(), e);
+            }
+        });
+        IngestionClaim claim = currentClaim.get();
+        if (claim != null) {
+            ingestionClaimService.recordProcessingPath(claim, dest);
         }
         return dest;
     }
 
+    /**
+     * Renew the lease on the file being processed on this thread once a third of it has run out. Called
+     * from the record loops, so a long import keeps its file for as long as it makes progress.
+     */
+    protected void heartbeat() {
+        IngestionClaim claim = currentClaim.get();
+        if (claim == null || claim.getLeaseExpiresAt() == null) {
+            return;
+        }
+        LocalDateTime renewAt = claim.getLeaseExpiresAt().minusSeconds(ingestionProperties.getClaimLeaseSeconds() * 2 / 3);
+        if (LocalDateTime.now().isBefore(renewAt)) {
+            return;
+        }
+        if (!ingestionClaimService.renewLease(claim)) {
+            throw new IllegalStateException("Claim on " + claim.getFilePath() + " was taken over by another node");
+        }
+    }
+
+    /**
+     * Original inbox file name of a file in PROCESSING (strips the GUID suffix added by moveToProcessing).
+     */
+    protected String originalFileName(File processingFile) {
+        String name = processingFile.getName();
+        int idx = name.lastIndexOf('_');
+        if (idx > 0 && name.length() - idx - 1 == 36) {
+            return name.substring(0, idx);
+        }
+        return name;
+    }
+
     /**
      * Compute SHA-256 hash of the file.
      */
     protected String computeSha256(File file) {
         log.debug("Computing SHA-256 for file: {}", file.getAbsolutePath());
-        try (java.io.InputStream fis = new java.io.FileInputStream(file)) {
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[8192];
-            int n;
-            while ((n = fis.read(buffer)) > 0) {
-                digest.update(buffer, 0, n);
-            }
-            byte[] hashBytes = digest.digest();
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02x", b));
+        return ingestionMetrics.time("sha256", getFileType(), () -> {
+            try (java.io.InputStream fis = new java.io.FileInputStream(file)) {
+                java.security.MessageDigest digest = Hashing.sha256();
+                byte[] buffer = new byte[8192];
+                long bytes = 0;
+                int n;
+                while ((n = fis.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                    bytes += n;
+                }
+                String hash = Hashing.toHex(digest.digest());
+                FileProcessedEvent event = currentFileEvent.get();
+                if (event != null) {
+                    event.fileHash = hash;
+                    event.bytes = bytes;
+                }
+                return hash;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to compute SHA-256 for file: " + file.getAbsolutePath(), e);
             }
-            return sb.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to compute SHA-256 for file: " + file.getAbsolutePath(), e);
-        }
+        });
     }
 
     /**
-     * Move file to ARCHIVE/YYYY/MM/DD.
+     * Archive a processed file: compressed under its content hash (see {@link ArchiveStore}), or moved
+     * to ARCHIVE/YYYY/MM/DD when ingestion.archive-mode is dated.
      */
     protected void moveToArchive(File file) {
         log.debug("Moving file to archive: {}", file.getAbsolutePath());
+        if (!"dated".equalsIgnoreCase(ingestionProperties.getArchiveMode())) {
+            ingestionMetrics.time("archive", getFileType(), () -> archiveStore.store(file, getFileType()));
+            return;
+        }
         LocalDate today = LocalDate.now();
         String archivePath = String.format("%s/%04d/%02d/%02d", getArchiveDir(), today.getYear(), today.getMonthValue(), today.getDayOfMonth());
         File archiveDir = new File(archivePath);
@@ -124,11 +357,25 @@ public abstract class BaseIngestionService {
             throw new RuntimeException("Failed to create archive dir: " + archiveDir.getAbsolutePath());
         }
         File dest = new File(archiveDir, file.getName());
-        try {
-            Files.move(file.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to move file to archive: " + file.getAbsolutePath(), e);
+        ingestionMetrics.time("archive", getFileType(), () -> {
+            try {
+                Files.move(file.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to move file to archive: " + file.getAbsolutePath(), e);
+            }
+        });
+    }
+
+    /**
+     * Archive a document extracted from a container file (a zip entry, spooled to {@code content}) under
+     * its own content hash, the hash its ImportRun carries, so the archive API and replay can find it.
+     * The spooled copy is left in place. Nothing to do in dated mode.
+     */
+    protected void archiveEntry(File content, String contentHash, String documentName) {
+        if ("dated".equalsIgnoreCase(ingestionProperties.getArchiveMode())) {
+            return;
         }
+        ingestionMetrics.time("archive", getFileType(), () -> archiveStore.storeCopy(content, contentHash, documentName, getFileType()));
     }
 
     /**
@@ -137,11 +384,13 @@ public abstract class BaseIngestionService {
     protected void moveToQuarantine(File file, String errorMessage) {
         log.warn("Moving file to quarantine: {}. Reason: {}", file.getAbsolutePath(), errorMessage);
         File dest = new File(getQuarantineDir(), file.getName());
-        try {
-            Files.move(file.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to move file to quarantine: " + file.getAbsolutePath(), e);
-        }
+        ingestionMetrics.time("quarantine", getFileType(), () -> {
+            try {
+                Files.move(file.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to move file to quarantine: " + file.getAbsolutePath(), e);
+            }
+        });
         
         // Persist error details for audit trail and debugging
         // TODO: Create ImportError entity and repository, then replace this with actual DB persistence
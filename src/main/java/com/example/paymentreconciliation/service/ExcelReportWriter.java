@@ -0,0 +1,114 @@
+package com.example.paymentreconciliation.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * XLSX report writer on POI SXSSF: only ROW_WINDOW rows stay in memory, older rows are flushed to a
+ * compressed temp file and streamed into the response when the workbook is written.
+ */
+@Component
+@Lazy
+public class ExcelReportWriter implements ReportWriter {
+    private static final int ROW_WINDOW = 200;
+    // Leave room for the header row on each sheet
+    private static final int MAX_DATA_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    @Override
+    public String getFormat() {
+        return "xlsx";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    }
+
+    @Override
+    public void write(String title, List<String> headers, Stream<Object[]> rows, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle.setFont(bold);
+            CellStyle amountStyle = workbook.createCellStyle();
+            amountStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            CellStyle timestampStyle = workbook.createCellStyle();
+            timestampStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+
+            int sheetNo = 1;
+            Sheet sheet = newSheet(workbook, title, sheetNo, headers, headerStyle);
+            int rowNo = 1;
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                if (rowNo > MAX_DATA_ROWS_PER_SHEET) {
+                    sheet = newSheet(workbook, title, ++sheetNo, headers, headerStyle);
+                    rowNo = 1;
+                }
+                Object[] values = it.next();
+                Row row = sheet.createRow(rowNo++);
+                for (int i = 0; i < values.length; i++) {
+                    setCell(row.createCell(i), values[i], amountStyle, dateStyle, timestampStyle);
+                }
+            }
+            workbook.write(out);
+        } finally {
+            // Removes the temp files backing flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private Sheet newSheet(SXSSFWorkbook workbook, String title, int sheetNo, List<String> headers, CellStyle headerStyle) {
+        String name = sheetNo == 1 ? title : title + " (" + sheetNo + ")";
+        Sheet sheet = workbook.createSheet(name.length() > 31 ? name.substring(0, 31) : name);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.size(); i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(headers.get(i));
+            cell.setCellStyle(headerStyle);
+        }
+        sheet.createFreezePane(0, 1);
+        return sheet;
+    }
+
+    private void setCell(Cell cell, Object value, CellStyle amountStyle, CellStyle dateStyle, CellStyle timestampStyle) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof BigDecimal amount) {
+            cell.setCellValue(amount.doubleValue());
+            cell.setCellStyle(amountStyle);
+        } else if (value instanceof Number number) {
+            cell.setCellValue(number.doubleValue());
+        } else if (value instanceof LocalDate date) {
+            cell.setCellValue(date);
+            cell.setCellStyle(dateStyle);
+        } else if (value instanceof LocalDateTime timestamp) {
+            cell.setCellValue(timestamp);
+            cell.setCellStyle(timestampStyle);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+}
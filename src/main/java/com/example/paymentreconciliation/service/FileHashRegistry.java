@@ -0,0 +1,133 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.repository.ImportRunRepository;
+
+/**
+ * In-process dedupe gate for ingested files.
+ * Keeps recently seen import_run.file_hash values (mapped to their ImportRun id) in a bounded LRU map so
+ * known duplicates are usually rejected without a DB round trip; older hashes are looked up in import_run
+ * by the callers. Also tracks hashes currently in flight so two workers cannot ingest the same file
+ * content at the same time.
+ */
+@Component
+public class FileHashRegistry {
+    private static final Logger log = LoggerFactoryProvider.getLogger(FileHashRegistry.class);
+
+    private final Set<String> inFlightHashes = ConcurrentHashMap.newKeySet();
+    private Map<String, Long> knownHashes;
+
+    @Autowired
+    private ImportRunRepository importRunRepository;
+    @Autowired
+    private IngestionProperties ingestionProperties;
+
+    @PostConstruct
+    public void init() {
+        int maxEntries = Math.max(1, ingestionProperties.getHashRegistryMaxEntries());
+        knownHashes = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Warm the registry from the import runs received in the last ingestion.hash-registry-warm-days,
+     * newest first, up to the registry size.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minusDays(ingestionProperties.getHashRegistryWarmDays());
+        List<ImportRunRepository.FileHashView> runs = importRunRepository.findByReceivedAtAfterOrderByReceivedAtDesc(
+                since, PageRequest.of(0, Math.max(1, ingestionProperties.getHashRegistryMaxEntries())));
+        // Oldest first, so the newest hashes end up most recently used
+        for (int i = runs.size() - 1; i >= 0; i--) {
+            ImportRunRepository.FileHashView run = runs.get(i);
+            // Runs that stopped before the end of their document are left to the import_run lookup, which may resume them
+            boolean unfinished = run.getTotalRecords() == null
+                    && (run.getStatus() == ImportRun.Status.FAILED || run.getStatus() == ImportRun.Status.PARTIAL);
+            if (run.getFileHash() != null && !unfinished) {
+                knownHashes.put(run.getFileHash(), run.getId());
+            }
+        }
+        log.info("File hash registry warmed with {} known hash(es) received since {}", knownHashes.size(), since);
+    }
+
+    /**
+     * True if the hash is known to belong to an imported file. False only means the hash is not in the
+     * registry; callers fall back to import_run.
+     */
+    public boolean isKnown(String fileHash) {
+        return knownHashes.containsKey(fileHash);
+    }
+
+    /**
+     * ImportRun id recorded for the hash, looked up in import_run when it has left the registry,
+     * or null if the hash is not known.
+     */
+    public Long getImportRunId(String fileHash) {
+        if (fileHash == null) {
+            return null;
+        }
+        Long importRunId = knownHashes.get(fileHash);
+        if (importRunId == null) {
+            importRunId = importRunRepository.findByFileHash(fileHash).map(run -> run.getId()).orElse(null);
+            markKnown(fileHash, importRunId);
+        }
+        return importRunId;
+    }
+
+    /**
+     * Record a hash once its ImportRun has been persisted.
+     */
+    public void markKnown(String fileHash, Long importRunId) {
+        if (fileHash != null && importRunId != null) {
+            knownHashes.put(fileHash, importRunId);
+        }
+    }
+
+    /**
+     * Drop a hash whose run did not finish, so the next lookup goes to import_run.
+     */
+    public void forget(String fileHash) {
+        if (fileHash != null) {
+            knownHashes.remove(fileHash);
+        }
+    }
+
+    /**
+     * Claim a hash for processing. Returns false if another worker already holds it.
+     */
+    public boolean tryClaim(String fileHash) {
+        return inFlightHashes.add(fileHash);
+    }
+
+    /**
+     * Release a hash claimed with {@link #tryClaim(String)}.
+     */
+    public void release(String fileHash) {
+        inFlightHashes.remove(fileHash);
+    }
+}
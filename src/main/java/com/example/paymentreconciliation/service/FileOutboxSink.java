@@ -0,0 +1,66 @@
+package com.example.paymentreconciliation.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.OutboxProperties;
+import com.example.paymentreconciliation.entity.OutboxEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends events as newline-delimited JSON to outbox.file-path and forces the file to disk
+ * before the batch counts as published.
+ */
+@Component
+public class FileOutboxSink implements OutboxSink {
+    @Autowired
+    private OutboxProperties props;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        Path path = Paths.get(props.getFilePath());
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(events.size() * 512);
+            for (OutboxEvent event : events) {
+                try (JsonGenerator gen = objectMapper.getFactory().createGenerator(buffer)) {
+                    OutboxSink.writeEnvelope(gen, event);
+                } catch (JsonProcessingException e) {
+                    throw new RejectedException("Could not serialise outbox event " + event.getId() + ": " + e.getMessage(), e);
+                }
+                buffer.write('\n');
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append outbox events to " + path + ": " + e.getMessage(), e);
+        }
+    }
+}
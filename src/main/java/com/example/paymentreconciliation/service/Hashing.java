@@ -0,0 +1,103 @@
+package com.example.paymentreconciliation.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 helpers for file hashes and transaction idempotency hashes.
+ * Digests are cached per thread and reset on each use instead of being looked up per call,
+ * fields are fed to the digest without building a joined String, and hex encoding is table based.
+ */
+public final class Hashing {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(Hashing::newSha256);
+    private static final ThreadLocal<FieldDigest> FIELD_DIGEST = ThreadLocal.withInitial(FieldDigest::new);
+
+    private Hashing() {
+    }
+
+    /**
+     * The calling thread's SHA-256 digest, reset and ready for use. Do not hold it across calls
+     * that may hash on the same thread.
+     */
+    public static MessageDigest sha256() {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest;
+    }
+
+    /**
+     * Start hashing a '|'-separated field list on the calling thread. Produces the same hash as
+     * SHA-256 over {@code String.join("|", fields)} with nulls as empty strings.
+     */
+    public static FieldDigest sha256Fields() {
+        FieldDigest fieldDigest = FIELD_DIGEST.get();
+        fieldDigest.reset();
+        return fieldDigest;
+    }
+
+    /**
+     * Lower-case hex encoding of a digest.
+     */
+    public static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            out[i * 2] = HEX[v >>> 4];
+            out[i * 2 + 1] = HEX[v & 0x0f];
+        }
+        return new String(out);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Per-thread SHA-256 over '|'-separated UTF-8 fields. ASCII fields, the common case for
+     * MT940 references and amounts, are encoded into a reused buffer without allocation.
+     */
+    public static final class FieldDigest {
+        private final MessageDigest digest = newSha256();
+        private byte[] buffer = new byte[128];
+        private boolean first = true;
+
+        private void reset() {
+            digest.reset();
+            first = true;
+        }
+
+        public FieldDigest add(String value) {
+            if (!first) {
+                digest.update((byte) '|');
+            }
+            first = false;
+            if (value == null || value.isEmpty()) {
+                return this;
+            }
+            int length = value.length();
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                    return this;
+                }
+                buffer[i] = (byte) c;
+            }
+            digest.update(buffer, 0, length);
+            return this;
+        }
+
+        public String hex() {
+            return toHex(digest.digest());
+        }
+    }
+}
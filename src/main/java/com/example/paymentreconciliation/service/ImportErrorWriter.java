@@ -0,0 +1,224 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.entity.ImportError;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.entity.StatementFile;
+import com.example.paymentreconciliation.repository.ImportErrorRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Writes import_error rows off the ingestion hot path.
+ * Errors are buffered in a bounded queue (producers block when it is full) and persisted by a single
+ * background thread in batches of up to BATCH_SIZE per transaction. Per run, only the first
+ * ingestion.error-sample-limit errors of each code are stored; the rest are counted and recorded as
+ * one summary row per code when the run finishes.
+ */
+@Component
+public class ImportErrorWriter {
+    private static final Logger log = LoggerFactoryProvider.getLogger(ImportErrorWriter.class);
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 500;
+    private static final long POLL_INTERVAL_MS = 200;
+    private static final long FINISH_TIMEOUT_MS = 60_000;
+
+    @Autowired
+    private ImportErrorRepository importErrorRepository;
+
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+
+    @Autowired
+    private IngestionProperties ingestionProperties;
+
+    private final BlockingQueue<QueuedError> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<Long, RunErrors> runs = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * Error counts and not-yet-persisted rows of one import run.
+     */
+    private static final class RunErrors {
+        final ImportRun importRun;
+        final Map<String, AtomicInteger> countsByCode = new ConcurrentHashMap<>();
+        int pending;
+
+        RunErrors(ImportRun importRun) {
+            this.importRun = importRun;
+        }
+
+        synchronized void added() {
+            pending++;
+        }
+
+        synchronized void written() {
+            if (--pending == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized boolean awaitWritten(long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (pending > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private static final class QueuedError {
+        final RunErrors runErrors;
+        final ImportError error;
+
+        QueuedError(RunErrors runErrors, ImportError error) {
+            this.runErrors = runErrors;
+            this.error = error;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "import-error-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(FINISH_TIMEOUT_MS);
+    }
+
+    /**
+     * Queue an import error for the run. Blocks only if the buffer is full.
+     */
+    public void submit(ImportRun importRun, String code, String message, StatementFile statementFile, Integer lineNo) {
+        RunErrors runErrors = runs.computeIfAbsent(importRun.getId(), id -> new RunErrors(importRun));
+        int seen = runErrors.countsByCode.computeIfAbsent(code, c -> new AtomicInteger()).incrementAndGet();
+        if (seen > ingestionProperties.getErrorSampleLimit()) {
+            ingestionMetrics.recordImportError(importRun.getFileType(), code, "suppressed");
+            return;
+        }
+        ImportError error = new ImportError();
+        error.setImportRun(importRun);
+        error.setStatementFile(statementFile);
+        error.setLineNo(lineNo);
+        error.setCode(code);
+        error.setMessage(message);
+        enqueue(runErrors, error);
+        ingestionMetrics.recordImportError(importRun.getFileType(), code, "written");
+    }
+
+    /**
+     * Record summary rows for suppressed errors of the run and wait until all of its errors are
+     * persisted, so a run never reaches a terminal status with its errors still in flight.
+     */
+    public void finishRun(Long importRunId) {
+        if (importRunId == null) {
+            return;
+        }
+        RunErrors runErrors = runs.remove(importRunId);
+        if (runErrors == null) {
+            return;
+        }
+        int sampleLimit = ingestionProperties.getErrorSampleLimit();
+        runErrors.countsByCode.forEach((code, count) -> {
+            if (count.get() > sampleLimit) {
+                ImportError summary = new ImportError();
+                summary.setImportRun(runErrors.importRun);
+                summary.setCode(code);
+                summary.setMessage((count.get() - sampleLimit) + " further " + code + " error(s) not stored individually; "
+                        + count.get() + " in total");
+                enqueue(runErrors, summary);
+            }
+        });
+        try {
+            if (!runErrors.awaitWritten(FINISH_TIMEOUT_MS)) {
+                log.warn("Timed out waiting for import errors of run {} to be written", importRunId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(RunErrors runErrors, ImportError error) {
+        runErrors.added();
+        try {
+            queue.put(new QueuedError(runErrors, error));
+        } catch (InterruptedException e) {
+            runErrors.written();
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queueing import error for run {}: {}", runErrors.importRun.getId(), error.getMessage());
+        }
+    }
+
+    private void drainLoop() {
+        List<QueuedError> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedError first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Import error writer failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<QueuedError> batch) {
+        List<ImportError> errors = new ArrayList<>(batch.size());
+        for (QueuedError queued : batch) {
+            errors.add(queued.error);
+        }
+        try {
+            // saveAll runs in one transaction: one commit per batch instead of per error
+            ingestionMetrics.time("write.import_error", errors.get(0).getImportRun().getFileType(), () -> importErrorRepository.saveAll(errors));
+        } catch (RuntimeException batchError) {
+            log.warn("Batch of {} import errors failed, retrying one by one. Error: {}", errors.size(), batchError.getMessage());
+            for (ImportError error : errors) {
+                error.setId(null);
+                try {
+                    importErrorRepository.save(error);
+                } catch (RuntimeException e) {
+                    log.error("Dropping import error for run {} ({}): {}", error.getImportRun().getId(), error.getCode(), e.getMessage());
+                }
+            }
+        } finally {
+            for (QueuedError queued : batch) {
+                queued.runErrors.written();
+            }
+        }
+    }
+}
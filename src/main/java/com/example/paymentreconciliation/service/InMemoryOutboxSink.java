@@ -0,0 +1,35 @@
+package com.example.paymentreconciliation.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.entity.OutboxEvent;
+
+/**
+ * Keeps published events in memory. Stand-in sink for local runs and tests.
+ */
+@Component
+public class InMemoryOutboxSink implements OutboxSink {
+    private final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> batch) {
+        events.addAll(batch);
+    }
+
+    public List<OutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admits files to ingestion against a global heap budget. A file's cost is estimated as its size times
+ * the parser expansion factor of its file type; files whose estimate exceeds the in-memory limit are
+ * routed to the streaming path and charged a fixed streaming reserve instead. Callers block until the
+ * budget has room, so parallel file workers cannot together parse more than the heap can hold.
+ * <p>
+ * Publishes {@code ingestion.memory.budget} and {@code ingestion.memory.used} gauges (bytes),
+ * an {@code ingestion.admission.wait} timer and an {@code ingestion.admission.streaming} counter,
+ * the latter two tagged by file_type.
+ */
+@Component
+public class IngestionAdmissionController {
+    private static final Logger log = LoggerFactoryProvider.getLogger(IngestionAdmissionController.class);
+
+    @Autowired
+    private IngestionProperties ingestionProperties;
+    @Autowired
+    private MeterRegistry registry;
+
+    private long budget;
+    private long inMemoryLimit;
+    private long streamingReserve;
+    private long used;
+
+    @PostConstruct
+    public void init() {
+        budget = ingestionProperties.getMemoryBudgetBytes() > 0
+                ? ingestionProperties.getMemoryBudgetBytes()
+                : (long) (Runtime.getRuntime().maxMemory() * ingestionProperties.getMemoryBudgetFraction());
+        inMemoryLimit = ingestionProperties.getInMemoryMaxBytes() > 0
+                ? Math.min(ingestionProperties.getInMemoryMaxBytes(), budget)
+                : budget / 2;
+        streamingReserve = Math.min(ingestionProperties.getStreamingReserveBytes(), budget);
+        registry.gauge("ingestion.memory.budget", this, controller -> controller.budget);
+        registry.gauge("ingestion.memory.used", this, IngestionAdmissionController::usedBytes);
+        log.info("Ingestion memory budget {} bytes (in-memory limit {}, streaming reserve {})", budget, inMemoryLimit, streamingReserve);
+    }
+
+    /**
+     * Block until a file of the given type and size fits in the budget. Close the returned permit when
+     * the file is done to give its share back.
+     */
+    public Permit admit(String fileType, long fileSize) {
+        long estimate = (long) Math.ceil(fileSize * ingestionProperties.getPipeline(fileType).getExpansionFactor());
+        boolean streaming = estimate > inMemoryLimit;
+        long cost = streaming ? streamingReserve : estimate;
+        if (streaming) {
+            registry.counter("ingestion.admission.streaming", "file_type", fileType).increment();
+            log.info("{} file of {} bytes (estimated {} bytes in memory) routed to streaming ingestion", fileType, fileSize, estimate);
+        }
+        long waitStart = System.nanoTime();
+        synchronized (this) {
+            boolean logged = false;
+            // A lone file always fits, whatever its estimate: cost never exceeds the budget
+            while (used > 0 && used + cost > budget) {
+                if (!logged) {
+                    log.debug("{} file waiting for {} bytes of ingestion budget ({} of {} in use)", fileType, cost, used, budget);
+                    logged = true;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for ingestion memory budget", e);
+                }
+            }
+            used += cost;
+        }
+        registry.timer("ingestion.admission.wait", "file_type", fileType).record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        return new Permit(cost, streaming);
+    }
+
+    private synchronized long usedBytes() {
+        return used;
+    }
+
+    private synchronized void release(long cost) {
+        used -= cost;
+        notifyAll();
+    }
+
+    /**
+     * A file's share of the ingestion budget.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long cost;
+        private final boolean streaming;
+        private boolean released;
+
+        private Permit(long cost, boolean streaming) {
+            this.cost = cost;
+            this.streaming = streaming;
+        }
+
+        /**
+         * True when the file is too large to be held in memory and must be ingested incrementally.
+         */
+        public boolean isStreaming() {
+            return streaming;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(cost);
+            }
+        }
+    }
+}
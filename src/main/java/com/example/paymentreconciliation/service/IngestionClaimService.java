@@ -0,0 +1,129 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.entity.IngestionClaim;
+import com.example.paymentreconciliation.repository.IngestionClaimRepository;
+
+/**
+ * Multi-node claim/lease protocol for inbox files shared between replicas.
+ * Each discovered file is registered in ingestion_claim (path + size + mtime); a node only processes a
+ * file after locking its row with SKIP LOCKED and taking a lease, so replicas pick disjoint files. The
+ * owner renews the lease while the file makes progress, so only a node that has stopped renewing (crashed,
+ * or stalled for a whole lease) can have its files taken over. The row is deleted when the file
+ * leaves the inbox, so a later file dropped under the same name, size and mtime is claimed afresh.
+ */
+@Service
+public class IngestionClaimService {
+    private static final Logger log = LoggerFactoryProvider.getLogger(IngestionClaimService.class);
+
+    @Autowired
+    private IngestionClaimRepository ingestionClaimRepository;
+
+    @Autowired
+    private IngestionProperties ingestionProps;
+
+    /**
+     * Try to claim a file for this node. Returns the claim, or null if another node owns it.
+     */
+    @Transactional
+    public IngestionClaim tryClaim(String fileType, File file) {
+        String filePath = file.getAbsolutePath();
+        long fileSize = file.length();
+        LocalDateTime fileMtime = LocalDateTime.ofInstant(Instant.ofEpochMilli(file.lastModified()), ZoneId.systemDefault());
+        LocalDateTime now = LocalDateTime.now();
+
+        ingestionClaimRepository.insertIfAbsent(fileType, filePath, fileSize, fileMtime, now);
+        IngestionClaim claim = ingestionClaimRepository.lockClaimable(fileType, filePath, fileSize, fileMtime,
+                IngestionClaim.Status.PENDING, IngestionClaim.Status.CLAIMED, now).orElse(null);
+        if (claim == null) {
+            log.debug("File is claimed by another node: {}", filePath);
+            return null;
+        }
+        if (claim.getOwner() != null && !ingestionProps.getNodeId().equals(claim.getOwner())) {
+            log.warn("Taking over expired claim on {} from node {}", filePath, claim.getOwner());
+        }
+        claim.setStatus(IngestionClaim.Status.CLAIMED);
+        claim.setOwner(ingestionProps.getNodeId());
+        claim.setClaimedAt(now);
+        claim.setLeaseExpiresAt(now.plusSeconds(ingestionProps.getClaimLeaseSeconds()));
+        return claim;
+    }
+
+    /**
+     * Remember where the claimed file was moved in PROCESSING, so a crash can be recovered from there.
+     */
+    @Transactional
+    public void recordProcessingPath(IngestionClaim claim, File processingFile) {
+        claim.setProcessingPath(processingFile.getAbsolutePath());
+        ingestionClaimRepository.updateProcessingPath(claim.getId(), claim.getProcessingPath());
+    }
+
+    /**
+     * Claim a file left in PROCESSING for recovery. Returns null while another node (or this one) still
+     * holds a valid lease on it. Files without any claim row are registered under their processing path.
+     */
+    @Transactional
+    public IngestionClaim tryClaimForRecovery(String fileType, File processingFile) {
+        String processingPath = processingFile.getAbsolutePath();
+        if (!ingestionClaimRepository.existsByProcessingPath(processingPath)) {
+            IngestionClaim claim = tryClaim(fileType, processingFile);
+            if (claim != null) {
+                claim.setProcessingPath(processingPath);
+            }
+            return claim;
+        }
+        IngestionClaim claim = ingestionClaimRepository.lockByProcessingPath(processingPath).orElse(null);
+        if (claim == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (claim.getStatus() == IngestionClaim.Status.CLAIMED
+                && claim.getLeaseExpiresAt() != null && claim.getLeaseExpiresAt().isAfter(now)) {
+            log.debug("File in processing is still leased by node {}: {}", claim.getOwner(), processingPath);
+            return null;
+        }
+        log.warn("Recovering file in processing from node {}: {}", claim.getOwner(), processingPath);
+        claim.setStatus(IngestionClaim.Status.CLAIMED);
+        claim.setOwner(ingestionProps.getNodeId());
+        claim.setClaimedAt(now);
+        claim.setLeaseExpiresAt(now.plusSeconds(ingestionProps.getClaimLeaseSeconds()));
+        return claim;
+    }
+
+    /**
+     * Extend this node's lease on a claim by ingestion.claim-lease-seconds from now. Returns false if the
+     * claim has been taken over by another node in the meantime.
+     */
+    @Transactional
+    public boolean renewLease(IngestionClaim claim) {
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plusSeconds(ingestionProps.getClaimLeaseSeconds());
+        if (ingestionClaimRepository.renewLease(claim.getId(), ingestionProps.getNodeId(), leaseExpiresAt) == 0) {
+            return false;
+        }
+        claim.setLeaseExpiresAt(leaseExpiresAt);
+        return true;
+    }
+
+    /**
+     * Release a claim once the file has left the inbox (archived, quarantined or vanished) by deleting its row.
+     */
+    @Transactional
+    public void complete(IngestionClaim claim) {
+        int deleted = ingestionClaimRepository.deleteOwned(claim.getId(), ingestionProps.getNodeId());
+        if (deleted == 0) {
+            log.warn("Claim {} on {} was taken over by another node before completion", claim.getId(), claim.getFilePath());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.paymentreconciliation.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer instrumentation for the file ingestion pipeline.
+ * Stage timers are published as {@code ingestion.stage} tagged by stage, file_type and outcome;
+ * file/record counters and inbox-depth / in-flight gauges are tagged by file_type.
+ */
+@Component
+public class IngestionMetrics {
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, AtomicInteger> inboxDepth = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> persistQueueDepth = new ConcurrentHashMap<>();
+
+    /**
+     * Time a pipeline stage, tagging the outcome as success or error.
+     */
+    public <T> T time(String stage, String fileType, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = action.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            stop(sample, stage, fileType, outcome);
+        }
+    }
+
+    public void time(String stage, String fileType, Runnable action) {
+        time(stage, fileType, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, String stage, String fileType, String outcome) {
+        sample.stop(registry.timer("ingestion.stage", "stage", stage, "file_type", fileType, "outcome", outcome));
+    }
+
+    /**
+     * Count a file reaching a terminal outcome (imported, partial, failed, duplicate, quarantined).
+     */
+    public void recordFile(String fileType, String outcome) {
+        registry.counter("ingestion.files", "file_type", fileType, "outcome", outcome).increment();
+    }
+
+    /**
+     * Count records (statements or VAN rows) by outcome (processed, failed).
+     */
+    public void recordRecords(String fileType, String outcome, int count) {
+        if (count > 0) {
+            registry.counter("ingestion.records", "file_type", fileType, "outcome", outcome).increment(count);
+        }
+    }
+
+    /**
+     * Count import errors by code and whether they were stored individually or only counted (suppressed).
+     */
+    public void recordImportError(String fileType, String code, String outcome) {
+        registry.counter("ingestion.import_errors", "file_type", fileType, "code", code, "outcome", outcome).increment();
+    }
+
+    /**
+     * Count an inbox poll skipped because the previous poll of the same file type was still running.
+     */
+    public void recordPollSkipped(String fileType) {
+        registry.counter("ingestion.poll.skipped", "file_type", fileType).increment();
+    }
+
+    public void setInboxDepth(String fileType, int depth) {
+        gauge(inboxDepth, "ingestion.inbox.depth", fileType).set(depth);
+    }
+
+    public void fileStarted(String fileType) {
+        gauge(inFlight, "ingestion.files.inflight", fileType).incrementAndGet();
+    }
+
+    public void fileFinished(String fileType) {
+        gauge(inFlight, "ingestion.files.inflight", fileType).decrementAndGet();
+    }
+
+    /**
+     * A parsed batch entered the persist queue after the producer was blocked for blockedNanos
+     * (zero when the queue had room). Blocked time is the backpressure applied to parsing.
+     */
+    public void persistEnqueued(String fileType, long blockedNanos) {
+        gauge(persistQueueDepth, "ingestion.pipeline.queue.depth", fileType).incrementAndGet();
+        registry.timer("ingestion.pipeline.backpressure", "file_type", fileType).record(blockedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A parsed batch left the persist queue after waiting queuedNanos.
+     */
+    public void persistDequeued(String fileType, long queuedNanos) {
+        gauge(persistQueueDepth, "ingestion.pipeline.queue.depth", fileType).decrementAndGet();
+        registry.timer("ingestion.pipeline.queue.latency", "file_type", fileType).record(queuedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private AtomicInteger gauge(Map<String, AtomicInteger> gauges, String name, String fileType) {
+        return gauges.computeIfAbsent(fileType,
+                type -> registry.gauge(name, Tags.of("file_type", type), new AtomicInteger()));
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.config.RlsContext;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stage executors for file ingestion, sized per file type from ingestion.pipeline.&lt;type&gt;.
+ * The file stage (move, hash, parse, validate) runs up to file-concurrency files in parallel. Each file
+ * hands its validated batches to a {@link PersistLane}: a bounded queue drained in order by one of the
+ * file type's persist workers. When persisting falls behind, the queue fills and parsing blocks, so a
+ * slow database throttles parsing instead of parsed data piling up in memory.
+ * <p>
+ * With ingestion.virtual-threads on a Java 21+ runtime, both stages run on virtual threads instead of
+ * fixed pools; file-concurrency still bounds files in flight, and persist batches take a permit from a
+ * semaphore sized to the connection pool so blocked virtual threads wait here rather than in Hikari.
+ * On Java 17 the setting is ignored and the platform-thread pools are used.
+ */
+@Component
+public class IngestionPipeline {
+    private static final Logger log = LoggerFactoryProvider.getLogger(IngestionPipeline.class);
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    @Autowired
+    private IngestionProperties ingestionProperties;
+
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    private final Map<String, ExecutorService> fileExecutors = new ConcurrentHashMap<>();
+    private final Map<String, ExecutorService> persistExecutors = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> fileSlots = new ConcurrentHashMap<>();
+    private ExecutorService virtualExecutor;
+    private Semaphore dbPermits;
+
+    @PostConstruct
+    public void init() {
+        if (!ingestionProperties.isVirtualThreads()) {
+            return;
+        }
+        virtualExecutor = newVirtualThreadExecutor();
+        if (virtualExecutor == null) {
+            log.warn("ingestion.virtual-threads is set but Java {} has no virtual threads; using platform thread pools",
+                    Runtime.version().feature());
+            return;
+        }
+        int permits = ingestionProperties.getDbPermits() > 0 ? ingestionProperties.getDbPermits() : connectionPoolSize;
+        dbPermits = new Semaphore(Math.max(1, permits));
+        log.info("Ingestion running on virtual threads with {} DB permits", permits);
+    }
+
+    /**
+     * Run the file stage for each file and wait for all of them.
+     */
+    public void processFiles(String fileType, List<File> files, Consumer<File> fileAction) {
+        // Workers run under the caller's RLS context
+        Consumer<File> action = RlsContext.wrap(fileAction);
+        int concurrency = ingestionProperties.getPipeline(fileType).getFileConcurrency();
+        if (concurrency <= 1 || files.size() <= 1) {
+            files.forEach(action);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(files.size());
+        if (virtualExecutor != null) {
+            Semaphore slots = fileSlots.computeIfAbsent(fileType, type -> new Semaphore(concurrency));
+            for (File file : files) {
+                futures.add(virtualExecutor.submit(() -> {
+                    slots.acquireUninterruptibly();
+                    try {
+                        action.accept(file);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+        } else {
+            ExecutorService executor = fileExecutors.computeIfAbsent(fileType, type -> newPool(type, "file", concurrency));
+            for (File file : files) {
+                futures.add(executor.submit(() -> action.accept(file)));
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("{} file stage failed: {}", fileType, e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Run a background task for a file type on its file-stage executor, under the caller's RLS context.
+     */
+    public void runFileTask(String fileType, Runnable task) {
+        Runnable action = RlsContext.wrap(task);
+        if (virtualExecutor != null) {
+            virtualExecutor.execute(action);
+            return;
+        }
+        int concurrency = Math.max(1, ingestionProperties.getPipeline(fileType).getFileConcurrency());
+        fileExecutors.computeIfAbsent(fileType, type -> newPool(type, "file", concurrency)).execute(action);
+    }
+
+    /**
+     * Open a persist lane for one file; batches submitted to it are passed to the persister in order.
+     */
+    public <T> PersistLane<T> openPersistLane(String fileType, Consumer<T> filePersister) {
+        Consumer<T> persister = RlsContext.wrap(filePersister);
+        IngestionProperties.Pipeline settings = ingestionProperties.getPipeline(fileType);
+        if (virtualExecutor != null) {
+            Consumer<T> gated = item -> {
+                dbPermits.acquireUninterruptibly();
+                try {
+                    persister.accept(item);
+                } finally {
+                    dbPermits.release();
+                }
+            };
+            PersistLane<T> lane = new PersistLane<>(fileType, Math.max(1, settings.getQueueCapacity()), gated, ingestionMetrics);
+            virtualExecutor.execute(lane::drain);
+            return lane;
+        }
+        ExecutorService executor = persistExecutors.computeIfAbsent(fileType,
+                type -> newPool(type, "persist", Math.max(1, settings.getPersistConcurrency())));
+        PersistLane<T> lane = new PersistLane<>(fileType, Math.max(1, settings.getQueueCapacity()), persister, ingestionMetrics);
+        executor.execute(lane::drain);
+        return lane;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fileExecutors.values().forEach(ExecutorService::shutdown);
+        persistExecutors.values().forEach(ExecutorService::shutdown);
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up reflectively so the build can keep targeting
+     * Java 17. Returns null when the runtime does not have it.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not create virtual thread executor: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static ExecutorService newPool(String fileType, String stage, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "ingest-" + fileType.toLowerCase() + "-" + stage + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * Bounded, ordered hand-off from a file's parse/validate stage to its persist stage.
+     * {@link #submit} blocks while the queue is full; {@link #close} waits until everything submitted
+     * has been persisted.
+     */
+    public static final class PersistLane<T> {
+        private final String fileType;
+        private final BlockingQueue<Entry<T>> queue;
+        private final Consumer<T> persister;
+        private final IngestionMetrics metrics;
+        private final CountDownLatch drained = new CountDownLatch(1);
+        private volatile Throwable failure;
+
+        private static final class Entry<T> {
+            final T item;
+            final long enqueuedAt;
+
+            Entry(T item, long enqueuedAt) {
+                this.item = item;
+                this.enqueuedAt = enqueuedAt;
+            }
+        }
+
+        private PersistLane(String fileType, int capacity, Consumer<T> persister, IngestionMetrics metrics) {
+            this.fileType = fileType;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.persister = persister;
+            this.metrics = metrics;
+        }
+
+        public void submit(T item) {
+            long start = System.nanoTime();
+            put(new Entry<>(item, start));
+            long now = System.nanoTime();
+            metrics.persistEnqueued(fileType, now - start);
+        }
+
+        /**
+         * Signal the end of input and wait for the persist stage to finish.
+         */
+        public void close() {
+            put(new Entry<>(null, System.nanoTime()));
+            try {
+                drained.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for " + fileType + " persist stage", e);
+            }
+            checkFailure();
+        }
+
+        private void put(Entry<T> entry) {
+            checkFailure();
+            try {
+                while (!queue.offer(entry, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    checkFailure();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted handing off to " + fileType + " persist stage", e);
+            }
+        }
+
+        private void checkFailure() {
+            if (failure != null) {
+                throw new RuntimeException(fileType + " persist stage failed: " + failure.getMessage(), failure);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Entry<T> entry = queue.take();
+                    if (entry.item == null) {
+                        return;
+                    }
+                    metrics.persistDequeued(fileType, System.nanoTime() - entry.enqueuedAt);
+                    persister.accept(entry.item);
+                }
+            } catch (Throwable t) {
+                failure = t;
+                List<Entry<T>> discarded = new ArrayList<>();
+                queue.drainTo(discarded);
+                for (Entry<T> entry : discarded) {
+                    if (entry.item != null) {
+                        metrics.persistDequeued(fileType, System.nanoTime() - entry.enqueuedAt);
+                    }
+                }
+            } finally {
+                drained.countDown();
+            }
+        }
+    }
+}
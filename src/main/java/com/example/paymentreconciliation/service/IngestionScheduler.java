@@ -0,0 +1,118 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.IngestionSchedule;
+import com.example.paymentreconciliation.config.Mt940IngestionProperties;
+import com.example.paymentreconciliation.config.VANIngestionProperties;
+
+/**
+ * Polls the MT940 and VAN inboxes on the schedules in mt940.schedule / van.schedule: a fixed delay
+ * between polls plus optional cron triggers (e.g. around bank cut-off times), each delayed by a random
+ * jitter so replicas spread out. Polls run on a dedicated scheduler so long imports never hold up the
+ * other {@code @Scheduled} jobs, and go through {@link BaseIngestionService#pollIfIdle()}, so a trigger
+ * that fires while a poll of the same type is still running is skipped rather than stacked.
+ */
+@Component
+public class IngestionScheduler {
+    private static final Logger log = LoggerFactoryProvider.getLogger(IngestionScheduler.class);
+
+    @Autowired
+    private Mt940IngestionService mt940IngestionService;
+    @Autowired
+    private VANIngestionService vanIngestionService;
+    @Autowired
+    private Mt940IngestionProperties mt940Props;
+    @Autowired
+    private VANIngestionProperties vanProps;
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        IngestionSchedule mt940Schedule = mt940Props.getSchedule();
+        IngestionSchedule vanSchedule = vanProps.getSchedule();
+        if (!mt940Schedule.isEnabled() && !vanSchedule.isEnabled()) {
+            log.info("Scheduled ingestion disabled; inboxes are polled only through the ingest APIs");
+            return;
+        }
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2 + mt940Schedule.getCrons().size() + vanSchedule.getCrons().size());
+        scheduler.setThreadNamePrefix("ingest-schedule-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        schedule(mt940IngestionService, mt940Schedule);
+        schedule(vanIngestionService, vanSchedule);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void schedule(BaseIngestionService service, IngestionSchedule schedule) {
+        if (!schedule.isEnabled()) {
+            return;
+        }
+        String fileType = service.getFileType();
+        Runnable poll = () -> {
+            try {
+                service.pollIfIdle();
+            } catch (RuntimeException e) {
+                log.error("Scheduled {} inbox poll failed: {}", fileType, e.getMessage(), e);
+            }
+        };
+        if (schedule.getFixedDelayMs() > 0) {
+            scheduler.schedule(poll, fixedDelay(schedule));
+            log.info("Polling {} inbox every {} ms (initial delay {} ms, jitter up to {} ms)", fileType,
+                    schedule.getFixedDelayMs(), schedule.getInitialDelayMs(), schedule.getJitterMs());
+        }
+        ZoneId zone = schedule.getZone() == null || schedule.getZone().isBlank()
+                ? ZoneId.systemDefault() : ZoneId.of(schedule.getZone());
+        for (String cron : schedule.getCrons()) {
+            scheduler.schedule(poll, cron(new CronTrigger(cron, zone), schedule.getJitterMs()));
+            log.info("Polling {} inbox at cron '{}' ({}, jitter up to {} ms)", fileType, cron, zone, schedule.getJitterMs());
+        }
+    }
+
+    /**
+     * Next poll a fixed delay after the previous one completed, or after the initial delay for the first.
+     */
+    private static Trigger fixedDelay(IngestionSchedule schedule) {
+        return context -> {
+            Instant lastCompletion = context.lastCompletion();
+            Instant next = lastCompletion == null
+                    ? Instant.now().plusMillis(schedule.getInitialDelayMs())
+                    : lastCompletion.plusMillis(schedule.getFixedDelayMs());
+            return next.plusMillis(jitter(schedule.getJitterMs()));
+        };
+    }
+
+    private static Trigger cron(CronTrigger cron, long jitterMs) {
+        return context -> {
+            Instant next = cron.nextExecution(context);
+            return next != null ? next.plusMillis(jitter(jitterMs)) : null;
+        };
+    }
+
+    private static long jitter(long jitterMs) {
+        return jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0;
+    }
+}
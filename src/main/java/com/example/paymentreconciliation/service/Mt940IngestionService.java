@@ -4,9 +4,24 @@
 import com.shared.utilities.logger.LoggerFactoryProvider;
 import org.slf4j.Logger;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import io.micrometer.core.instrument.Timer;
+
+import com.example.paymentreconciliation.jfr.ParseEvent;
 
 /**
  * MT940 Ingestion Service
@@ -14,7 +29,6 @@ import java.util.ArrayList;
  */
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import com.example.paymentreconciliation.config.Mt940IngestionProperties;
 
 import com.example.paymentreconciliation.entity.*;
@@ -24,27 +38,30 @@ import com.example.paymentreconciliation.repository.*;
 public class Mt940IngestionService extends BaseIngestionService {
     private static final Logger log = LoggerFactoryProvider.getLogger(Mt940IngestionService.class);
     @Autowired
-    private BankAccountRepository bankAccountRepository;
-    @Autowired
     private ImportRunRepository importRunRepository;
     @Autowired
-    private StatementFileRepository statementFileRepository;
-    @Autowired
-    private StatementBalanceRepository statementBalanceRepository;
+    private Mt940StatementWriter mt940StatementWriter;
+
     @Autowired
-    private StatementTransactionRepository statementTransactionRepository;
+    private StatementFileRepository statementFileRepository;
 
     @Autowired
-    private RawStatementLineRepository rawStatementLineRepository;
+    private ImportErrorWriter importErrorWriter;
+
     @Autowired
-    private Transaction86SegmentRepository transaction86SegmentRepository;
+    private FileHashRegistry fileHashRegistry;
 
     @Autowired
-    private ImportErrorRepository importErrorRepository;
+    private BalanceContinuityCache balanceContinuityCache;
 
     @Autowired
     private Mt940IngestionProperties mt940Props;
 
+    @Override
+    protected String getFileType() {
+        return "MT940";
+    }
+
     @Override
     protected String getInboxDir() {
         return mt940Props.getInboxDir();
@@ -70,23 +87,21 @@ public class Mt940IngestionService extends BaseIngestionService {
         return ".mt940";
     }
 
+    @Override
+    protected List<String> getFileExtensions() {
+        return List.of(".mt940", ".sta", ".zip");
+    }
+
     /**
      * Main entry point for polling and processing files.
      */
     @Override
     public void pollAndProcessInbox() {
+        recoverProcessingDir();
         log.info("Polling MT940 inbox directory: {}", mt940Props.getInboxDir());
         List<File> files = discoverStableFiles(mt940Props.getInboxDir());
         log.info("Discovered {} stable file(s) for ingestion", files.size());
-        for (File file : files) {
-            try {
-                log.info("Processing file: {}", file.getAbsolutePath());
-                processFile(file);
-            } catch (Exception e) {
-                log.error("Error processing file: {}. Moving to quarantine. Error: {}", file.getAbsolutePath(), e.getMessage(), e);
-                moveToQuarantine(file, "Unhandled error: " + e.getMessage());
-            }
-        }
+        processInboxFiles(files);
     }
 
     /**
@@ -98,8 +113,22 @@ public class Mt940IngestionService extends BaseIngestionService {
         // 1. Move file to PROCESSING with GUID suffix
     File processingFile = moveToProcessing(file);
     log.debug("Moved file to processing: {}", processingFile.getAbsolutePath());
-        if (processingFile.length() > MAX_FILE_SIZE_BYTES) {
+        processInProcessing(processingFile, false);
+    }
+
+    /**
+     * Resume a file left in PROCESSING by a crashed run. Documents whose ImportRun already finished are
+     * not re-imported; a PARSED run continues after its last committed statement.
+     */
+    @Override
+    protected void recoverProcessingFile(File processingFile) {
+        processInProcessing(processingFile, true);
+    }
+
+    private void processInProcessing(File processingFile, boolean recovering) {
+        if (exceedsMaxFileSize(processingFile)) {
             log.warn("File exceeds max size policy ({} bytes): {}", processingFile.length(), processingFile.getAbsolutePath());
+            recordOutcome("quarantined");
             moveToQuarantine(processingFile, "File exceeds max size policy");
             return;
         }
@@ -108,300 +137,428 @@ public class Mt940IngestionService extends BaseIngestionService {
     String fileHash = computeSha256(processingFile);
     log.debug("Computed SHA-256 hash for file {}: {}", processingFile.getName(), fileHash);
         long fileSize = processingFile.length();
-        if (isDuplicate(fileHash)) {
-            log.warn("Duplicate file detected: {} (hash={})", processingFile.getName(), fileHash);
+        if (!fileHashRegistry.tryClaim(fileHash)) {
+            log.warn("File with identical content is already being ingested: {} (hash={})", processingFile.getName(), fileHash);
+            recordOutcome("duplicate");
             moveToArchive(processingFile);
             return;
         }
 
-        // 3. Decompress if needed
-    List<File> mt940Files = decompressIfNeeded(processingFile);
-    log.debug("Decompressed/collected {} MT940 file(s) from: {}", mt940Files.size(), processingFile.getName());
-
-        // 4. For each MT940 document: parse, validate, persist (one DB transaction per file)
-        boolean allSuccess = true;
-        for (File mt940 : mt940Files) {
-            try {
-                log.info("Parsing and persisting MT940 file: {}", mt940.getAbsolutePath());
-                parseValidatePersist(mt940, fileHash, fileSize);
-            } catch (Exception e) {
-                allSuccess = false;
-                log.error("Error parsing/persisting MT940 file: {}. Error: {}", mt940.getAbsolutePath(), e.getMessage(), e);
-                persistImportError(null, fileHash, "PARSING_ERROR", "Failed to ingest " + mt940.getName() + ": " + e.getMessage(), null, null);
+        try {
+            // Checked while holding the claim: a worker that finished this content has marked it known before releasing
+            if (!recovering && isDuplicate(fileHash)) {
+                log.warn("Duplicate file detected: {} (hash={})", processingFile.getName(), fileHash);
+                recordOutcome("duplicate");
+                moveToArchive(processingFile);
+                return;
+            }
+            // 3-4. For each MT940 document: parse, validate, persist, once its estimated heap cost fits the
+            //      ingestion budget. A zip is admitted entry by entry: its own size says nothing about that cost
+            boolean allSuccess;
+            if (originalFileName(processingFile).toLowerCase().endsWith(".zip")) {
+                allSuccess = ingestZipEntries(processingFile, recovering);
+            } else {
+                try (IngestionAdmissionController.Permit permit = admissionController.admit(getFileType(), fileSize)) {
+                    allSuccess = ingestDocuments(processingFile, fileHash, fileSize, recovering, permit.isStreaming());
+                }
             }
-        }
 
-        // 5. On success: move original to ARCHIVE/YYYY/MM/DD
-        // 6. On failure: move to QUARANTINE and persist error details
-        if (allSuccess) {
-            log.info("Successfully processed file: {}. Moving to archive.", processingFile.getAbsolutePath());
-            moveToArchive(processingFile);
-        } else {
-            log.warn("Processing failed for file: {}. Moving to quarantine.", processingFile.getAbsolutePath());
-            moveToQuarantine(processingFile, "One or more statements failed to import");
+            // 5. On success: move original to ARCHIVE/YYYY/MM/DD
+            // 6. On failure: move to QUARANTINE and persist error details
+            if (allSuccess) {
+                log.info("Successfully processed file: {}. Moving to archive.", processingFile.getAbsolutePath());
+                recordOutcome("imported");
+                moveToArchive(processingFile);
+            } else {
+                log.warn("Processing failed for file: {}. Moving to quarantine.", processingFile.getAbsolutePath());
+                recordOutcome("quarantined");
+                moveToQuarantine(processingFile, "One or more statements failed to import");
+            }
+        } finally {
+            fileHashRegistry.release(fileHash);
         }
     }
 
     /**
-     * Check DB for existing file hash (stubbed to always return false).
-     * Replace with actual DB lookup for import_run.file_hash.
+     * Check for an existing file hash: known hashes are rejected from the in-process registry,
+     * unknown hashes fall back to import_run.file_hash (covers files imported by other replicas).
      */
     private boolean isDuplicate(String fileHash) {
         log.debug("Checking for duplicate file hash: {}", fileHash);
-        return importRunRepository.findByFileHash(fileHash).isPresent();
+        if (fileHashRegistry.isKnown(fileHash)) {
+            return true;
+        }
+        java.util.Optional<ImportRun> existing = importRunRepository.findByFileHash(fileHash);
+        if (existing.isPresent() && interrupted(existing.get())) {
+            // Not a duplicate: ingesting the same content again resumes that run
+            return false;
+        }
+        existing.ifPresent(run -> fileHashRegistry.markKnown(fileHash, run.getId()));
+        return existing.isPresent();
     }
 
     /**
-     * If file is a .zip, extract to temp subfolder under PROCESSING, return list of .mt940/.sta files.
+     * A run whose document could not be read to the end (see persistStatements). Its hash stays on
+     * import_run, so the same content dropped again resumes the run after its checkpoint instead of
+     * being rejected as a duplicate.
      */
-    private List<File> decompressIfNeeded(File file) {
-        log.debug("Checking if file needs decompression: {}", file.getAbsolutePath());
-        String name = file.getName().toLowerCase();
-        if (name.endsWith(".zip")) {
-            File tempDir = new File(mt940Props.getProcessingDir(), "tmp_" + System.currentTimeMillis());
-            if (!tempDir.mkdirs()) {
-                throw new RuntimeException("Failed to create temp dir: " + tempDir.getAbsolutePath());
-            }
-            List<File> extracted = new ArrayList<>();
-            try (java.util.zip.ZipInputStream zis = new java.util.zip.ZipInputStream(new java.io.FileInputStream(file))) {
-                java.util.zip.ZipEntry entry;
-                while ((entry = zis.getNextEntry()) != null) {
-                    String entryName = entry.getName();
-                    if (entry.isDirectory()) continue;
-                    if (!(entryName.endsWith(".mt940") || entryName.endsWith(".sta"))) continue;
-                    File outFile = new File(tempDir, new File(entryName).getName());
-                    try (java.io.FileOutputStream fos = new java.io.FileOutputStream(outFile)) {
-                        byte[] buffer = new byte[8192];
-                        int len;
-                        while ((len = zis.read(buffer)) > 0) {
-                            fos.write(buffer, 0, len);
-                        }
+    private boolean interrupted(ImportRun run) {
+        return getFileType().equals(run.getFileType()) && run.getTotalRecords() == null
+                && (run.getStatus() == ImportRun.Status.FAILED || run.getStatus() == ImportRun.Status.PARTIAL);
+    }
+
+    /**
+     * Feed a plain MT940 document to the parser: read whole, or statement by statement when it was
+     * admitted for streaming.
+     */
+    private boolean ingestDocuments(File processingFile, String fileHash, long fileSize, boolean recovering, boolean streaming) {
+        if (streaming) {
+            return ingestDocument(processingFile.getName(), fileHash, recovering,
+                    resumeRun -> streamValidatePersist(processingFile, processingFile.getName(), fileHash, fileSize, resumeRun));
+        }
+        String content = readDocument(processingFile);
+        return ingestDocument(processingFile.getName(), fileHash, recovering,
+                resumeRun -> parseValidatePersist(processingFile.getName(), content, fileHash, fileSize, resumeRun));
+    }
+
+    /**
+     * Ingest every .mt940/.sta entry of a zip, read one at a time from the ZipInputStream. Each entry is
+     * inflated to a spool file beside the zip, hashed as it is written and stopped at
+     * ingestion.max-file-size-bytes, so a small zip cannot expand into the heap. It is then imported
+     * under its own hash, admitted by its inflated size, so entries carry their provenance, are
+     * deduplicated individually and are streamed when too large to parse whole.
+     */
+    private boolean ingestZipEntries(File processingFile, boolean recovering) {
+        String originalName = originalFileName(processingFile);
+        log.debug("Streaming MT940 entries from zip: {}", processingFile.getAbsolutePath());
+        boolean allSuccess = true;
+        int documents = 0;
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new FileInputStream(processingFile)))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                String entryName = entry.getName();
+                if (entry.isDirectory()) continue;
+                String lowerName = entryName.toLowerCase();
+                if (!(lowerName.endsWith(".mt940") || lowerName.endsWith(".sta"))) continue;
+                documents++;
+                String documentName = originalName + "!" + new File(entryName).getName();
+                // The size the zip declares, when it records one, rejects an entry before it is inflated
+                if (entry.getSize() >= 0 && exceedsMaxFileSize(entry.getSize())) {
+                    log.warn("Zip entry exceeds max size policy ({} bytes): {}", entry.getSize(), documentName);
+                    allSuccess = false;
+                    continue;
+                }
+                File spooled = File.createTempFile("zip-entry-", ".tmp", new File(getProcessingDir()));
+                try {
+                    MessageDigest digest = Hashing.sha256();
+                    Timer.Sample inflateSample = ingestionMetrics.start();
+                    long entrySize = spool(zis, spooled, digest);
+                    ingestionMetrics.stop(inflateSample, "decompression", getFileType(), IngestionMetrics.OUTCOME_SUCCESS);
+                    if (entrySize < 0) {
+                        log.warn("Zip entry exceeds max size policy once inflated: {}", documentName);
+                        allSuccess = false;
+                        continue;
+                    }
+                    String entryHash = Hashing.toHex(digest.digest());
+                    archiveEntry(spooled, entryHash, documentName);
+                    if (!ingestEntry(documentName, spooled, entryHash, entrySize, recovering)) {
+                        allSuccess = false;
                     }
-                    extracted.add(outFile);
+                } finally {
+                    Files.deleteIfExists(spooled.toPath());
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to decompress zip: " + file.getAbsolutePath(), e);
             }
-            if (extracted.isEmpty()) {
-                throw new RuntimeException("No MT940/STA files found in zip: " + file.getName());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read zip: " + processingFile.getAbsolutePath(), e);
+        }
+        if (documents == 0) {
+            throw new RuntimeException("No MT940/STA files found in zip: " + processingFile.getName());
+        }
+        return allSuccess;
+    }
+
+    /**
+     * Copy the current zip entry to {@code target}, updating the digest. Returns the entry's size, or
+     * -1 once it passes ingestion.max-file-size-bytes (the rest of the entry is not written).
+     */
+    private long spool(ZipInputStream zis, File target, MessageDigest digest) throws IOException {
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        // Only the spool file is closed: closing the zip stream would end the walk over its entries
+        try (OutputStream out = Files.newOutputStream(target.toPath())) {
+            int n;
+            while ((n = zis.read(buffer)) > 0) {
+                size += n;
+                if (exceedsMaxFileSize(size)) {
+                    return -1;
+                }
+                digest.update(buffer, 0, n);
+                out.write(buffer, 0, n);
             }
-            return extracted;
-        } else {
-            return List.of(file);
         }
+        return size;
     }
 
     /**
-     * Parse, validate, and persist all statements/transactions in a DB transaction.
-     * This is a stub: actual parsing/validation logic should be implemented as per spec.
+     * Dedupe and claim a single zip entry by its own hash, then ingest it once its inflated size fits
+     * the ingestion budget, streamed if it is too large to parse whole.
      */
-    private void parseValidatePersist(File mt940File, String fileHash, long fileSize) {
-        log.debug("Parsing and validating MT940 file: {}", mt940File.getAbsolutePath());
-        Mt940Parser parser = new Mt940Parser();
-        List<Mt940Parser.Statement> statements;
+    private boolean ingestEntry(String documentName, File entryFile, String entryHash, long entrySize, boolean recovering) {
+        if (!fileHashRegistry.tryClaim(entryHash)) {
+            log.warn("Duplicate zip entry detected: {} (hash={})", documentName, entryHash);
+            return true;
+        }
+        try {
+            if (!recovering && isDuplicate(entryHash)) {
+                log.warn("Duplicate zip entry detected: {} (hash={})", documentName, entryHash);
+                return true;
+            }
+            try (IngestionAdmissionController.Permit permit = admissionController.admit(getFileType(), entrySize)) {
+                if (permit.isStreaming()) {
+                    return ingestDocument(documentName, entryHash, recovering,
+                            resumeRun -> streamValidatePersist(entryFile, documentName, entryHash, entrySize, resumeRun));
+                }
+                String content = readDocument(entryFile);
+                return ingestDocument(documentName, entryHash, recovering,
+                        resumeRun -> parseValidatePersist(documentName, content, entryHash, entrySize, resumeRun));
+            }
+        } finally {
+            fileHashRegistry.release(entryHash);
+        }
+    }
+
+    private String readDocument(File file) {
+        try {
+            return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read MT940 file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Ingest one document, resuming its unfinished ImportRun when recovering, or its interrupted one.
+     * The ingest step receives that run, or null for a new document.
+     */
+    private boolean ingestDocument(String documentName, String documentHash, boolean recovering, Consumer<ImportRun> ingest) {
         try {
-            statements = parser.parse(mt940File);
-        } catch (Mt940Parser.Mt940ParseException e) {
-            throw new RuntimeException("MT940 parse error: " + e.getMessage(), e);
+            ImportRun existing = importRunRepository.findByFileHash(documentHash)
+                    .filter(run -> recovering || interrupted(run))
+                    .orElse(null);
+            if (existing != null) {
+                fileHashRegistry.markKnown(documentHash, existing.getId());
+                if (!interrupted(existing) && existing.getStatus() != ImportRun.Status.NEW && existing.getStatus() != ImportRun.Status.PARSED) {
+                    log.info("MT940 document finished before restart: {} (status={})", documentName, existing.getStatus());
+                    return existing.getStatus() == ImportRun.Status.IMPORTED;
+                }
+                log.info("Resuming MT940 document: {} (importRun={}, checkpoint={})", documentName, existing.getId(), existing.getCheckpointOffset());
+            } else {
+                log.info("Parsing and persisting MT940 document: {}", documentName);
+            }
+            ingest.accept(existing);
+            return true;
+        } catch (Exception e) {
+            log.error("Error parsing/persisting MT940 document: {}. Error: {}", documentName, e.getMessage(), e);
+            persistImportError(null, documentHash, "PARSING_ERROR", "Failed to ingest " + documentName + ": " + e.getMessage(), null, null);
+            importErrorWriter.finishRun(fileHashRegistry.getImportRunId(documentHash));
+            // An interrupted run must not be remembered as imported; later lookups go to import_run
+            fileHashRegistry.forget(documentHash);
+            return false;
+        }
+    }
+
+    /**
+     * Parse, validate, and persist all statements/transactions of one MT940 document.
+     */
+    private void parseValidatePersist(String documentName, String content, String documentHash, long documentSize, ImportRun resumeRun) {
+        log.debug("Parsing and validating MT940 document: {}", documentName);
+        Mt940Parser parser = new Mt940Parser();
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
+        List<Mt940Parser.Statement> statements = ingestionMetrics.time("parse", getFileType(), () -> {
+            try {
+                return parser.parse(content);
+            } catch (Mt940Parser.Mt940ParseException e) {
+                throw new RuntimeException("MT940 parse error: " + e.getMessage(), e);
+            }
+        });
+        if (parseEvent.shouldCommit()) {
+            parseEvent.fileType = getFileType();
+            parseEvent.documentName = documentName;
+            parseEvent.fileHash = documentHash;
+            parseEvent.bytes = documentSize;
+            parseEvent.recordCount = statements.size();
+            parseEvent.commit();
         }
-        persistParsedStatements(statements, mt940File.getName(), fileHash, fileSize);
+        ImportRun importRun = resumeRun != null ? resumeRun : createImportRun(documentName, documentHash, documentSize);
+        persistParsedStatements(statements, importRun);
     }
 
-    @Transactional
-    public void persistParsedStatements(List<Mt940Parser.Statement> statements, String filename, String fileHash, long fileSize) {
-        log.info("Persisting parsed statements for file: {} (hash={})", filename, fileHash);
-        // 1. Create ImportRun
+    /**
+     * Parse, validate, and persist a document too large to hold in memory: the ImportRun is created
+     * first and each statement is handed to the persist stage as soon as it is parsed, so only the
+     * statements queued on the persist lane are held at once.
+     */
+    private void streamValidatePersist(File file, String documentName, String documentHash, long documentSize, ImportRun resumeRun) {
+        log.debug("Streaming and validating MT940 document: {}", documentName);
+        ImportRun importRun = resumeRun != null ? resumeRun : createImportRun(documentName, documentHash, documentSize);
+        Mt940Parser parser = new Mt940Parser();
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
+        int totalStatements = persistStatements(importRun, handler -> {
+            // Parse time here includes waits on the persist lane, which ingestion.pipeline.backpressure reports
+            return ingestionMetrics.time("parse", getFileType(), () -> {
+                try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    return parser.parse(reader, handler);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to read MT940 file: " + file.getAbsolutePath(), e);
+                } catch (Mt940Parser.Mt940ParseException e) {
+                    throw new RuntimeException("MT940 parse error: " + e.getMessage(), e);
+                }
+            });
+        });
+        if (parseEvent.shouldCommit()) {
+            parseEvent.fileType = getFileType();
+            parseEvent.documentName = documentName;
+            parseEvent.fileHash = documentHash;
+            parseEvent.bytes = documentSize;
+            parseEvent.recordCount = totalStatements;
+            parseEvent.commit();
+        }
+    }
+
+    private ImportRun createImportRun(String filename, String fileHash, long fileSize) {
         ImportRun importRun = new ImportRun();
         importRun.setFilename(filename);
         importRun.setFileHash(fileHash);
         importRun.setFileSizeBytes(fileSize);
         importRun.setReceivedAt(java.time.LocalDateTime.now());
-        importRun.setFileType("MT940");
+        importRun.setFileType(getFileType());
         importRun.setStatus(ImportRun.Status.PARSED);
-        importRunRepository.save(importRun);
-
-        int totalStatements = statements.size();
-        int processedStatements = 0;
-        int failedStatements = 0;
-
-        for (Mt940Parser.Statement stmt : statements) {
-            // Validation: accountNo, currency, balances, transactions
-            if (stmt.accountNo == null || stmt.accountNo.trim().isEmpty()) {
-                log.error("Statement missing account number. Skipping statement: {}", stmt);
-                persistImportError(importRun, fileHash, "VALIDATION_ERROR", "Missing account number in statement: " + stmt, null, null);
-                failedStatements++;
-                continue;
-            }
-            if (stmt.currency == null || stmt.currency.trim().isEmpty()) {
-                log.error("Statement missing currency. Skipping statement: {}", stmt);
-                persistImportError(importRun, fileHash, "VALIDATION_ERROR", "Missing currency in statement: " + stmt, null, null);
-                failedStatements++;
-                continue;
-            }
-            if (stmt.openingBalance == null || stmt.closingBalance == null) {
-                log.error("Statement missing opening/closing balance. Skipping statement: {}", stmt);
-                persistImportError(importRun, fileHash, "VALIDATION_ERROR", "Missing opening/closing balance in statement: " + stmt, null, null);
-                failedStatements++;
-                continue;
-            }
-            if (stmt.openingBalance.amount == null || stmt.closingBalance.amount == null) {
-                log.error("Statement missing opening/closing balance amount. Skipping statement: {}", stmt);
-                persistImportError(importRun, fileHash, "VALIDATION_ERROR", "Missing opening/closing balance amount in statement: " + stmt, null, null);
-                failedStatements++;
-                continue;
-            }
-            if (stmt.transactions == null || stmt.transactions.isEmpty()) {
-                log.error("Statement missing transactions. Skipping statement: {}", stmt);
-                persistImportError(importRun, fileHash, "VALIDATION_ERROR", "Missing transactions in statement: " + stmt, null, null);
-                failedStatements++;
-                continue;
-            }
+        ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+        fileHashRegistry.markKnown(fileHash, importRun.getId());
+        return importRun;
+    }
 
-            // 2. Find or create BankAccount
-            log.debug("Finding or creating BankAccount for accountNo={}, currency={}", stmt.accountNo, stmt.currency);
-            BankAccount acct = bankAccountRepository.findByAccountNoAndCurrency(stmt.accountNo, stmt.currency)
-                .orElseGet(() -> {
-                    BankAccount ba = new BankAccount();
-                    ba.setAccountNo(stmt.accountNo);
-                    ba.setCurrency(stmt.currency);
-                    ba.setIsActive(true);
-                    return bankAccountRepository.save(ba);
-                });
-
-            // 3. Validate currency match
-            if (!stmt.openingBalance.currency.equals(stmt.currency) || !stmt.closingBalance.currency.equals(stmt.currency)) {
-                log.error("Currency mismatch in statement: {}", stmt.stmtRef20);
-                persistImportError(importRun, fileHash, "VALIDATION_ERROR", "Currency mismatch in statement: " + stmt.stmtRef20, null, null);
-                failedStatements++;
-                continue;
+    /**
+     * Persist parsed statements. The ImportRun commits first and each statement then commits in its
+     * own transaction (see {@link Mt940StatementWriter}), so one bad statement never rolls back the
+     * good ones and ImportRun.Status.PARTIAL reflects what was actually committed.
+     * Each commit also advances ImportRun.checkpointOffset, so a resumed run skips the statements
+     * that are already persisted.
+     */
+    public void persistParsedStatements(List<Mt940Parser.Statement> statements, ImportRun importRun) {
+        persistStatements(importRun, handler -> {
+            for (int i = 0; i < statements.size(); i++) {
+                handler.onStatement(i, statements.get(i));
             }
+            return statements.size();
+        });
+    }
 
-            // 4. Validate opening + sum(signed transactions) == closing (allow small rounding delta)
-            java.math.BigDecimal opening = new java.math.BigDecimal(stmt.openingBalance.amount.replace(",", "."));
-            java.math.BigDecimal closing = new java.math.BigDecimal(stmt.closingBalance.amount.replace(",", "."));
-            java.math.BigDecimal sumTxns = java.math.BigDecimal.ZERO;
-            for (Mt940Parser.Transaction txn : stmt.transactions) {
-                sumTxns = sumTxns.add(new java.math.BigDecimal(txn.signedAmount.replace(",", ".")));
-            }
-            java.math.BigDecimal expectedClosing = opening.add(sumTxns);
-            if (expectedClosing.subtract(closing).abs().compareTo(new java.math.BigDecimal("0.02")) > 0) {
-                log.error("Opening + sum(transactions) != closing for statement: {}", stmt.stmtRef20);
-                persistImportError(importRun, fileHash, "VALIDATION_ERROR", "Opening + sum(transactions) != closing for statement: " + stmt.stmtRef20, null, null);
-                failedStatements++;
-                continue;
-            }
+    /**
+     * Supplies a document's statements in order to a handler and returns how many there were.
+     */
+    private interface StatementSource {
+        int feed(Mt940Parser.StatementHandler handler);
+    }
 
-            // Now process the statement since validations passed
-            processedStatements++;
-
-            // 5. Create StatementFile
-            StatementFile sf = new StatementFile();
-            sf.setImportRun(importRun);
-            sf.setBankAccount(acct);
-            sf.setStmtRef20(stmt.stmtRef20);
-            sf.setSeq28c(stmt.seq28c);
-            sf.setStatementDate(java.time.LocalDate.now()); // You may want to parse actual date
-            sf.setOpeningDc(stmt.openingBalance.dc);
-            sf.setOpeningAmount(opening);
-            sf.setClosingDc(stmt.closingBalance.dc);
-            sf.setClosingAmount(closing);
-            sf.setCurrency(stmt.currency);
-            sf.setIsInterim(stmt.isInterim);
-            sf.setCreatedAt(java.time.LocalDateTime.now());
-            statementFileRepository.save(sf);
-
-            // 6. Persist balances
-            StatementBalance ob = new StatementBalance();
-            ob.setStatementFile(sf);
-            ob.setBalType("OPENING");
-            ob.setDc(stmt.openingBalance.dc);
-            ob.setBalDate(java.time.LocalDate.now());
-            ob.setCurrency(stmt.openingBalance.currency);
-            ob.setAmount(opening);
-            statementBalanceRepository.save(ob);
-
-            StatementBalance cb = new StatementBalance();
-            cb.setStatementFile(sf);
-            cb.setBalType("CLOSING");
-            cb.setDc(stmt.closingBalance.dc);
-            cb.setBalDate(java.time.LocalDate.now());
-            cb.setCurrency(stmt.closingBalance.currency);
-            cb.setAmount(closing);
-            statementBalanceRepository.save(cb);
-
-            // Other balances
-            if (stmt.otherBalances != null) {
-                for (Mt940Parser.Balance bal : stmt.otherBalances) {
-                    StatementBalance b = new StatementBalance();
-                    b.setStatementFile(sf);
-                    b.setBalType(bal.type);
-                    b.setDc(bal.dc);
-                    b.setBalDate(java.time.LocalDate.now());
-                    b.setCurrency(bal.currency);
-                    b.setAmount(new java.math.BigDecimal(bal.amount.replace(",", ".")));
-                    statementBalanceRepository.save(b);
-                }
-            }
+    /**
+     * A validated statement queued for the persist stage with its index in the document.
+     */
+    private static final class PendingStatement {
+        final int index;
+        final Mt940Parser.Statement stmt;
 
-            // 7. Persist transactions
-            for (Mt940Parser.Transaction txn : stmt.transactions) {
-                StatementTransaction st = new StatementTransaction();
-                st.setStatementFile(sf);
-                st.setLineNo(txn.lineNo);
-                st.setValueDate(java.time.LocalDate.now()); // Parse actual date if available
-                st.setEntryDate(null); // Parse if available
-                st.setDc(txn.dc);
-                st.setAmount(new java.math.BigDecimal(txn.amount.replace(",", ".")));
-                st.setSignedAmount(new java.math.BigDecimal(txn.signedAmount.replace(",", ".")));
-                st.setCurrency(txn.currency);
-                st.setTxnTypeCode(txn.txnTypeCode);
-                st.setBankReference(txn.bankReference);
-                st.setCustomerReference(txn.customerReference);
-                st.setEntryReference(txn.entryReference);
-                st.setNarrative(txn.narrative);
-                st.setNarrativeTokens(null); // Optionally serialize txn.narrativeTokens
-                st.setExtIdempotencyHash(txn.extIdempotencyHash);
-                st.setCreatedAt(java.time.LocalDateTime.now());
-                statementTransactionRepository.save(st);
-
-                // Persist Transaction86Segment for each narrative token (or the full narrative if no tokens)
-                if (txn.narrativeTokens != null && !txn.narrativeTokens.isEmpty()) {
-                    int segSeq = 1;
-                    for (var entry : txn.narrativeTokens.entrySet()) {
-                        Transaction86Segment seg = new Transaction86Segment();
-                        seg.setStatementTransaction(st);
-                        seg.setSegKey(entry.getKey());
-                        seg.setSegValue(entry.getValue());
-                        seg.setSegSeq(segSeq++);
-                        transaction86SegmentRepository.save(seg);
-                    }
-                } else if (txn.narrative != null) {
-                    Transaction86Segment seg = new Transaction86Segment();
-                    seg.setStatementTransaction(st);
-                    seg.setSegKey("FULL");
-                    seg.setSegValue(txn.narrative);
-                    seg.setSegSeq(1);
-                    transaction86SegmentRepository.save(seg);
-                }
+        PendingStatement(int index, Mt940Parser.Statement stmt) {
+            this.index = index;
+            this.stmt = stmt;
+        }
+    }
 
-                // Persist RawStatementLine if available (from stmt.rawLines)
-                if (stmt.rawLines != null) {
-                    for (Mt940Parser.RawLine rawLine : stmt.rawLines) {
-                        if (rawLine.lineNo == txn.lineNo) { // match by line number
-                            RawStatementLine rsl = new RawStatementLine();
-                            rsl.setStatementFile(sf);
-                            rsl.setLineNo(rawLine.lineNo);
-                            rsl.setTag(rawLine.tag);
-                            rsl.setRawText(rawLine.rawText);
-                            rawStatementLineRepository.save(rsl);
-                        }
-                    }
+    /**
+     * Validate and persist statements as the source supplies them, then finish the ImportRun.
+     * Returns the number of statements in the document. If the source fails part-way (a streamed
+     * document that cannot be read or parsed to the end), the run is finished as FAILED or PARTIAL
+     * with what was committed, its total left unset to mark it interrupted, and the failure rethrown.
+     */
+    private int persistStatements(ImportRun importRun, StatementSource source) {
+        String fileHash = importRun.getFileHash();
+        log.info("Persisting parsed statements for file: {} (hash={})", importRun.getFilename(), fileHash);
+
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int start = importRun.getCheckpointOffset() != null ? importRun.getCheckpointOffset() : 0;
+        // Mirrors the checkpoint each statement commit writes, so saving the run does not move it back
+        AtomicInteger checkpoint = new AtomicInteger(start);
+        if (start > 0) {
+            processed.set((int) statementFileRepository.countByImportRun(importRun));
+            failed.set(start - processed.get());
+            log.info("Resuming import run {} at statement {}", importRun.getId(), start);
+        }
+
+        // 2. Persist stage: each statement commits in its own transaction, in order, on a persist worker;
+        //    a failure only rolls back that statement
+        IngestionPipeline.PersistLane<PendingStatement> lane = ingestionPipeline.openPersistLane(getFileType(), pending -> {
+            Mt940Parser.Statement stmt = pending.stmt;
+            try {
+                StatementFile sf = ingestionMetrics.time("write.statement", getFileType(), () -> mt940StatementWriter.writeStatement(importRun, stmt, pending.index + 1));
+                processed.incrementAndGet();
+                checkpoint.set(pending.index + 1);
+                // Alerts only: the statement itself is valid, a gap means a file is missing
+                for (String gap : balanceContinuityCache.recordPersisted(stmt)) {
+                    persistImportError(importRun, fileHash, "CONTINUITY_GAP", gap, sf, null);
                 }
+            } catch (RuntimeException e) {
+                log.error("Failed to persist statement: {}. Error: {}", stmt.stmtRef20, e.getMessage());
+                persistImportError(importRun, fileHash, "PERSISTENCE_ERROR", "Failed to persist statement " + stmt.stmtRef20 + ": " + e.getMessage(), null, null);
+                failed.incrementAndGet();
             }
+        });
+        int totalStatements;
+        RuntimeException interruption = null;
+        try {
+            totalStatements = source.feed((index, stmt) -> {
+                heartbeat();
+                if (index < start) {
+                    return;
+                }
+                // 1. Validate account, currency, balances, transactions and balance arithmetic
+                String validationError = ingestionMetrics.time("validation", getFileType(), () -> validateStatement(stmt));
+                if (validationError != null) {
+                    persistImportError(importRun, fileHash, "VALIDATION_ERROR", validationError, null, null);
+                    failed.incrementAndGet();
+                    return;
+                }
+                // Blocks while the persist stage is behind
+                lane.submit(new PendingStatement(index, stmt));
+            });
+        } catch (RuntimeException e) {
+            interruption = e;
+            totalStatements = -1;
+        } finally {
+            lane.close();
+        }
+        int processedStatements = processed.get();
+        int failedStatements = failed.get();
+
+        // Errors are written before the run turns terminal
+        importErrorWriter.finishRun(importRun.getId());
+
+        if (interruption != null) {
+            // Left at the last committed statement, where a re-drop resumes
+            importRun.setCheckpointOffset(checkpoint.get());
+            importRun.setProcessedRecords(processedStatements);
+            importRun.setFailedRecords(failedStatements);
+            importRun.setStatus(processedStatements > 0 ? ImportRun.Status.PARTIAL : ImportRun.Status.FAILED);
+            importRun.setErrorMessage(interruption.getMessage());
+            ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+            throw interruption;
         }
 
         // Update ImportRun with counts and final status
+        importRun.setCheckpointOffset(totalStatements);
         importRun.setTotalRecords(totalStatements);
+        importRun.setErrorMessage(null);
         importRun.setProcessedRecords(processedStatements);
         importRun.setFailedRecords(failedStatements);
         if (processedStatements > 0 && failedStatements == 0) {
@@ -411,12 +568,77 @@ public class Mt940IngestionService extends BaseIngestionService {
         } else {
             importRun.setStatus(ImportRun.Status.FAILED);
         }
-        importRunRepository.save(importRun);
+        ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+        ingestionMetrics.recordRecords(getFileType(), "processed", processedStatements);
+        ingestionMetrics.recordRecords(getFileType(), "failed", failedStatements);
+        return totalStatements;
+    }
+
+    /**
+     * Validate a parsed statement. Returns the validation error message, or null if the statement is valid.
+     */
+    String validateStatement(Mt940Parser.Statement stmt) {
+        if (stmt.accountNo == null || stmt.accountNo.trim().isEmpty()) {
+            log.error("Statement missing account number. Skipping statement: {}", stmt);
+            return "Missing account number in statement: " + stmt;
+        }
+        if (stmt.currency == null || stmt.currency.trim().isEmpty()) {
+            log.error("Statement missing currency. Skipping statement: {}", stmt);
+            return "Missing currency in statement: " + stmt;
+        }
+        if (stmt.openingBalance == null || stmt.closingBalance == null) {
+            log.error("Statement missing opening/closing balance. Skipping statement: {}", stmt);
+            return "Missing opening/closing balance in statement: " + stmt;
+        }
+        if (stmt.openingBalance.parsedAmount == null || stmt.closingBalance.parsedAmount == null) {
+            log.error("Statement missing or invalid opening/closing balance amount. Skipping statement: {}", stmt);
+            return "Missing or invalid opening/closing balance amount in statement: " + stmt;
+        }
+        if (stmt.openingBalance.parsedDate == null || stmt.closingBalance.parsedDate == null) {
+            log.error("Statement missing or invalid opening/closing balance date. Skipping statement: {}", stmt.stmtRef20);
+            return "Missing or invalid opening/closing balance date in statement: " + stmt.stmtRef20;
+        }
+        if (stmt.otherBalances != null) {
+            for (Mt940Parser.Balance bal : stmt.otherBalances) {
+                if (bal.parsedAmount == null || bal.parsedDate == null) {
+                    log.error("Invalid {} balance in statement: {}", bal.type, stmt.stmtRef20);
+                    return "Invalid " + bal.type + " balance in statement: " + stmt.stmtRef20;
+                }
+            }
+        }
+        if (stmt.transactions == null || stmt.transactions.isEmpty()) {
+            log.error("Statement missing transactions. Skipping statement: {}", stmt);
+            return "Missing transactions in statement: " + stmt;
+        }
+
+        // Currency match
+        if (!stmt.openingBalance.currency.equals(stmt.currency) || !stmt.closingBalance.currency.equals(stmt.currency)) {
+            log.error("Currency mismatch in statement: {}", stmt.stmtRef20);
+            return "Currency mismatch in statement: " + stmt.stmtRef20;
+        }
+
+        // Opening + sum(signed transactions) == closing (allow small rounding delta)
+        java.math.BigDecimal opening = stmt.openingBalance.parsedAmount;
+        java.math.BigDecimal closing = stmt.closingBalance.parsedAmount;
+        java.math.BigDecimal sumTxns = java.math.BigDecimal.ZERO;
+        for (Mt940Parser.Transaction txn : stmt.transactions) {
+            if (txn.parsedSignedAmount == null || txn.parsedValueDate == null) {
+                log.error("Invalid amount or value date on :61: line {} of statement: {}", txn.lineNo, stmt.stmtRef20);
+                return "Invalid amount or value date on :61: line " + txn.lineNo + " of statement: " + stmt.stmtRef20;
+            }
+            sumTxns = sumTxns.add(txn.parsedSignedAmount);
+        }
+        java.math.BigDecimal expectedClosing = opening.add(sumTxns);
+        if (expectedClosing.subtract(closing).abs().compareTo(new java.math.BigDecimal("0.02")) > 0) {
+            log.error("Opening + sum(transactions) != closing for statement: {}", stmt.stmtRef20);
+            return "Opening + sum(transactions) != closing for statement: " + stmt.stmtRef20;
+        }
+        return null;
     }
     
 
     /**
-     * Persist import error details (stub).
+     * Queue import error details on the asynchronous {@link ImportErrorWriter}.
      */
     private void persistImportError(ImportRun importRun,
                                     String fileHash,
@@ -426,7 +648,9 @@ public class Mt940IngestionService extends BaseIngestionService {
                                     Integer lineNo) {
         ImportRun targetRun = importRun;
         if (targetRun == null && fileHash != null) {
-            targetRun = importRunRepository.findByFileHash(fileHash).orElse(null);
+            Long importRunId = fileHashRegistry.getImportRunId(fileHash);
+            // Loaded rather than a lazy reference: the error is written on the writer thread
+            targetRun = importRunId != null ? importRunRepository.findById(importRunId).orElse(null) : null;
         }
 
         if (targetRun == null) {
@@ -435,13 +659,7 @@ public class Mt940IngestionService extends BaseIngestionService {
             return;
         }
 
-        ImportError error = new ImportError();
-        error.setImportRun(targetRun);
-        error.setStatementFile(statementFile);
-        error.setLineNo(lineNo);
-        error.setCode(code != null ? code : "VALIDATION_ERROR");
-        error.setMessage(errorMsg);
-        importErrorRepository.save(error);
+        importErrorWriter.submit(targetRun, code != null ? code : "VALIDATION_ERROR", errorMsg, statementFile, lineNo);
     }
 
     // Additional methods for reporting, operator checks, idempotency, etc. can be added here
@@ -2,10 +2,14 @@ package com.example.paymentreconciliation.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -24,61 +28,127 @@ import com.prowidesoftware.swift.model.field.*;
  * Parses MT940 files into structured statement objects as per the ingestion spec.
  */
 public class Mt940Parser {
+    private static final int DICTIONARY_SIZE = 4096;
+
+    // Per parser (one per document): shares repeated values across the document's statements
+    private final StringDictionary dictionary = new StringDictionary(DICTIONARY_SIZE);
 
     /**
      * Parse the given MT940 file into a list of Statement objects.
      * Throws exception on parse/validation error.
      */
     public List<Statement> parse(File mt940File) throws Mt940ParseException {
-        List<Statement> statements = new ArrayList<>();
         String content;
         try {
             content = Files.readString(mt940File.toPath(), StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new Mt940ParseException("Failed to read MT940 file", e);
         }
+        return parse(content);
+    }
+
+    /**
+     * Parse MT940 content that has already been read (e.g. a zip entry streamed from an archive).
+     */
+    public List<Statement> parse(String content) throws Mt940ParseException {
+        List<Statement> statements = new ArrayList<>();
 
         // Split file into multiple MT940 messages if needed
         List<String> mt940Messages = splitMessages(content);
         int statementIndex = 0;
         for (String msg : mt940Messages) {
-            try {
-                MT940 mt940 = MT940.parse(msg);
-                Statement stmt = new Statement();
-                stmt.stmtRef20 = getFieldValue(mt940, Field20.class);
-                stmt.seq28c = getFieldValue(mt940, Field28C.class);
-                stmt.accountNo = getFieldValue(mt940, Field25.class);
-                stmt.currency = getOpeningBalanceCurrency(mt940);
-                stmt.isInterim = isInterim(mt940);
-                stmt.openingBalance = toBalance(mt940.getField60F(), "OPENING");
-                stmt.closingBalance = toBalance(mt940.getField62F(), "CLOSING");
-                stmt.otherBalances = new ArrayList<>();
-                if (mt940.getField64() != null) stmt.otherBalances.add(toBalance(mt940.getField64(), "AVAILABLE"));
-                // Field65 can be multiple (forward available balances)
-                List<Field65> f65s = mt940.getField65();
-                if (f65s != null) {
-                    for (Field65 f65 : f65s) {
-                        stmt.otherBalances.add(toBalance(f65, "FORWARD"));
-                    }
+            statements.add(parseMessage(msg, statementIndex++));
+        }
+        return statements;
+    }
+
+    /**
+     * Receives statements as they are parsed by {@link #parse(Reader, StatementHandler)}.
+     */
+    public interface StatementHandler {
+        void onStatement(int statementIndex, Statement stmt);
+    }
+
+    /**
+     * Parse MT940 messages one at a time as they are read, holding only the current message in memory,
+     * for documents too large to parse whole. Returns the number of statements parsed.
+     */
+    public int parse(Reader reader, StatementHandler handler) throws Mt940ParseException {
+        StringBuilder buffer = new StringBuilder();
+        char[] chunk = new char[8192];
+        int statementIndex = 0;
+        int scanFrom = 1;
+        try {
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                buffer.append(chunk, 0, read);
+                int first = buffer.indexOf("{1:");
+                if (first < 0) {
+                    // Text before the first envelope is ignored, as in splitMessages; keep a possible partial "{1"
+                    buffer.delete(0, Math.max(0, buffer.length() - 2));
+                    scanFrom = 1;
+                    continue;
+                }
+                if (first > 0) {
+                    buffer.delete(0, first);
+                    scanFrom = 1;
                 }
-                stmt.transactions = new ArrayList<>();
-                List<Field61> txns = mt940.getField61();
-                List<Field86> narrs = mt940.getField86();
-                int txnCount = txns != null ? txns.size() : 0;
-                for (int i = 0; i < txnCount; i++) {
-                    Field61 f61 = txns.get(i);
-                    Field86 f86 = (narrs != null && narrs.size() > i) ? narrs.get(i) : null;
-                    Transaction txn = toTransaction(f61, f86, stmt, i + 1);
-                    stmt.transactions.add(txn);
+                int next;
+                while ((next = buffer.indexOf("{1:", scanFrom)) > 0) {
+                    String msg = buffer.substring(0, next).trim();
+                    buffer.delete(0, next);
+                    scanFrom = 1;
+                    handler.onStatement(statementIndex, parseMessage(msg, statementIndex));
+                    statementIndex++;
                 }
-                stmt.rawLines = new ArrayList<>(); // Optionally fill for audit
-                statements.add(stmt);
-            } catch (Exception e) {
-                throw new Mt940ParseException("Failed to parse statement at index " + statementIndex, e);
+                scanFrom = Math.max(1, buffer.length() - 2);
             }
+        } catch (IOException e) {
+            throw new Mt940ParseException("Failed to read MT940 document", e);
+        }
+        String last = buffer.toString().trim();
+        if (last.startsWith("{1:")) {
+            handler.onStatement(statementIndex, parseMessage(last, statementIndex));
             statementIndex++;
         }
-        return statements;
+        return statementIndex;
+    }
+
+    private Statement parseMessage(String msg, int statementIndex) throws Mt940ParseException {
+        try {
+            MT940 mt940 = MT940.parse(msg);
+            Statement stmt = new Statement();
+            stmt.stmtRef20 = getFieldValue(mt940, Field20.class);
+            stmt.seq28c = getFieldValue(mt940, Field28C.class);
+            stmt.accountNo = dictionary.canonical(getFieldValue(mt940, Field25.class));
+            stmt.currency = dictionary.canonical(getOpeningBalanceCurrency(mt940));
+            stmt.isInterim = isInterim(mt940);
+            stmt.openingBalance = toBalance(mt940.getField60F(), "OPENING");
+            stmt.closingBalance = toBalance(mt940.getField62F(), "CLOSING");
+            stmt.otherBalances = new ArrayList<>();
+            if (mt940.getField64() != null) stmt.otherBalances.add(toBalance(mt940.getField64(), "AVAILABLE"));
+            // Field65 can be multiple (forward available balances)
+            List<Field65> f65s = mt940.getField65();
+            if (f65s != null) {
+                for (Field65 f65 : f65s) {
+                    stmt.otherBalances.add(toBalance(f65, "FORWARD"));
+                }
+            }
+            stmt.transactions = new ArrayList<>();
+            List<Field61> txns = mt940.getField61();
+            List<Field86> narrs = mt940.getField86();
+            int txnCount = txns != null ? txns.size() : 0;
+            for (int i = 0; i < txnCount; i++) {
+                Field61 f61 = txns.get(i);
+                Field86 f86 = (narrs != null && narrs.size() > i) ? narrs.get(i) : null;
+                Transaction txn = toTransaction(f61, f86, stmt, i + 1);
+                stmt.transactions.add(txn);
+            }
+            stmt.rawLines = new ArrayList<>(); // Optionally fill for audit
+            return stmt;
+        } catch (Exception e) {
+            throw new Mt940ParseException("Failed to parse statement at index " + statementIndex, e);
+        }
     }
 
     // --- prowidesoftware helpers ---
@@ -106,10 +176,12 @@ public class Mt940Parser {
         Balance b = new Balance();
         b.type = type;
         // Field60F, Field62F, Field64, Field65: 1=DC, 2=Date, 3=Currency, 4=Amount
-        b.dc = field.getComponent(1);
-        b.date = field.getComponent(2);
-        b.currency = field.getComponent(3);
+        b.dc = dictionary.canonical(field.getComponent(1));
+        b.date = dictionary.canonical(field.getComponent(2));
+        b.currency = dictionary.canonical(field.getComponent(3));
         b.amount = field.getComponent(4);
+        b.parsedDate = parseDate(b.date);
+        b.parsedAmount = parseAmount(b.amount);
         return b;
     }
 
@@ -117,13 +189,17 @@ public class Mt940Parser {
         Transaction t = new Transaction();
         t.lineNo = lineNo;
         // Field61: 1=ValueDate, 2=EntryDate, 3=DC, 4=FundsCode, 5=Amount, 6=TxnType, 7=BankRef, 8=CustRef, 9=SuppDetails
-        t.valueDate = f61.getComponent(1);
-        t.entryDate = f61.getComponent(2);
-        t.dc = f61.getComponent(3);
+        t.valueDate = dictionary.canonical(f61.getComponent(1));
+        t.entryDate = dictionary.canonical(f61.getComponent(2));
+        t.dc = dictionary.canonical(f61.getComponent(3));
         t.amount = f61.getComponent(5);
         t.signedAmount = getSignedAmount(t.amount, t.dc);
+        t.parsedValueDate = parseDate(t.valueDate);
+        t.parsedEntryDate = parseEntryDate(t.entryDate, t.parsedValueDate);
+        t.parsedAmount = parseAmount(t.amount);
+        t.parsedSignedAmount = t.parsedAmount != null && "D".equalsIgnoreCase(t.dc) ? t.parsedAmount.negate() : t.parsedAmount;
         t.currency = stmt.currency;
-        t.txnTypeCode = f61.getComponent(6);
+        t.txnTypeCode = dictionary.canonical(f61.getComponent(6));
         t.bankReference = f61.getComponent(7);
         t.customerReference = f61.getComponent(8);
         t.entryReference = f61.getComponent(9);
@@ -138,35 +214,100 @@ public class Mt940Parser {
         return ("D".equalsIgnoreCase(dc) ? "-" : "") + amount;
     }
 
-    private Map<String, String> parseNarrativeTokens(String narrative) {
-        // Optionally parse structured :86: segments into key-value pairs
-        return new HashMap<>();
+    /**
+     * Parse a SWIFT amount ("1234,56") into a BigDecimal keeping the sender's scale.
+     * Returns null if the amount is missing or malformed; validation reports it.
+     */
+    static BigDecimal parseAmount(String amount) {
+        if (amount == null) return null;
+        int length = amount.length();
+        // SWIFT amounts are at most 15 characters, so the unscaled value always fits in a long
+        if (length == 0 || length > 18) return null;
+        long unscaled = 0;
+        int scale = -1;
+        int digits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = amount.charAt(i);
+            if (c == ',' || c == '.') {
+                if (scale >= 0) return null;
+                scale = 0;
+            } else if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) scale++;
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) return null;
+        return BigDecimal.valueOf(unscaled, Math.max(scale, 0));
     }
 
-    private String computeIdempotencyHash(Statement stmt, Transaction t) {
-        // Hash(account, :20:, :28C:, value_date, amount, DC, entry_ref, bank_ref, cust_ref)
-        String raw = String.join("|",
-                stmt.accountNo != null ? stmt.accountNo : "",
-                stmt.stmtRef20 != null ? stmt.stmtRef20 : "",
-                stmt.seq28c != null ? stmt.seq28c : "",
-                t.valueDate != null ? t.valueDate : "",
-                t.amount != null ? t.amount : "",
-                t.dc != null ? t.dc : "",
-                t.entryReference != null ? t.entryReference : "",
-                t.bankReference != null ? t.bankReference : "",
-                t.customerReference != null ? t.customerReference : ""
-        );
+    /**
+     * Parse a SWIFT YYMMDD date. Returns null if missing or malformed.
+     */
+    static LocalDate parseDate(String yymmdd) {
+        if (yymmdd == null || yymmdd.length() != 6) return null;
+        int yy = twoDigits(yymmdd, 0);
+        int mm = twoDigits(yymmdd, 2);
+        int dd = twoDigits(yymmdd, 4);
+        if (yy < 0 || mm < 0 || dd < 0) return null;
         try {
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(raw.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) sb.append(String.format("%02x", b));
-            return sb.toString();
-        } catch (Exception e) {
-            return Integer.toHexString(raw.hashCode());
+            return LocalDate.of(2000 + yy, mm, dd);
+        } catch (DateTimeException e) {
+            return null;
         }
     }
 
+    /**
+     * Parse the optional MMDD entry date of :61:, taking the year from the value date and
+     * rolling it across a year end (e.g. value date 31 Dec, entry date 02 Jan).
+     */
+    static LocalDate parseEntryDate(String mmdd, LocalDate valueDate) {
+        if (mmdd == null || mmdd.length() != 4 || valueDate == null) return null;
+        int mm = twoDigits(mmdd, 0);
+        int dd = twoDigits(mmdd, 2);
+        if (mm < 0 || dd < 0) return null;
+        int year = valueDate.getYear();
+        if (mm - valueDate.getMonthValue() > 6) {
+            year--;
+        } else if (valueDate.getMonthValue() - mm > 6) {
+            year++;
+        }
+        try {
+            return LocalDate.of(year, mm, dd);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int twoDigits(String s, int offset) {
+        char hi = s.charAt(offset);
+        char lo = s.charAt(offset + 1);
+        if (hi < '0' || hi > '9' || lo < '0' || lo > '9') return -1;
+        return (hi - '0') * 10 + (lo - '0');
+    }
+
+    private Map<String, String> parseNarrativeTokens(String narrative) {
+        // Optionally parse structured :86: segments into key-value pairs; until then one shared empty map
+        return Collections.emptyMap();
+    }
+
+    private String computeIdempotencyHash(Statement stmt, Transaction t) {
+        // Hash(account, :20:, :28C:, value_date, amount, DC, entry_ref, bank_ref, cust_ref), '|'-separated
+        return Hashing.sha256Fields()
+                .add(stmt.accountNo)
+                .add(stmt.stmtRef20)
+                .add(stmt.seq28c)
+                .add(t.valueDate)
+                .add(t.amount)
+                .add(t.dc)
+                .add(t.entryReference)
+                .add(t.bankReference)
+                .add(t.customerReference)
+                .hex();
+    }
+
     private List<String> splitMessages(String content) {
         // Split by SWIFT envelope: each message starts with {1:
         List<String> messages = new ArrayList<>();
@@ -209,6 +350,8 @@ public class Mt940Parser {
         public String date;
         public String currency;
         public String amount;
+        public LocalDate parsedDate;
+        public BigDecimal parsedAmount;
     }
 
     public static class Transaction {
@@ -218,6 +361,10 @@ public class Mt940Parser {
         public String dc;
         public String amount;
         public String signedAmount;
+        public LocalDate parsedValueDate;
+        public LocalDate parsedEntryDate;
+        public BigDecimal parsedAmount;
+        public BigDecimal parsedSignedAmount;
         public String currency;
         public String txnTypeCode;
         public String bankReference;
@@ -0,0 +1,250 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.config.RlsContext;
+import com.example.paymentreconciliation.dto.ReplayReport;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.repository.ImportRunRepository;
+import com.example.paymentreconciliation.repository.StatementFileRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk re-ingest of archived MT940 documents, bypassing the inbox: the ImportRuns received in a date
+ * range are read back from the {@link ArchiveStore} by file hash, re-parsed and validated, and upserted
+ * statement by statement through {@link Mt940ReplayWriter}. Runs are replayed in parallel
+ * (ingestion.replay-concurrency) under a shared rows-per-second limit so a large replay does not starve
+ * live ingestion of database capacity. Jobs run in the background; progress and the diff against the
+ * previously persisted rows are kept in a {@link ReplayReport}.
+ */
+@Service
+public class Mt940ReplayService {
+    private static final Logger log = LoggerFactoryProvider.getLogger(Mt940ReplayService.class);
+    private static final String FILE_TYPE = "MT940";
+    private static final int MAX_JOBS = 20;
+
+    @Autowired
+    private ImportRunRepository importRunRepository;
+    @Autowired
+    private StatementFileRepository statementFileRepository;
+    @Autowired
+    private ArchiveStore archiveStore;
+    @Autowired
+    private Mt940ReplayWriter mt940ReplayWriter;
+    @Autowired
+    private Mt940IngestionService mt940IngestionService;
+    @Autowired
+    private FileHashRegistry fileHashRegistry;
+    @Autowired
+    private IngestionProperties ingestionProperties;
+
+    private final Map<String, ReplayReport> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mt940-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Queue a replay of the MT940 import runs received between fromDate and toDate (inclusive).
+     * Jobs run one at a time; a null rowsPerSecond uses ingestion.replay-rows-per-second.
+     */
+    public ReplayReport start(LocalDate fromDate, LocalDate toDate, boolean dryRun, Integer rowsPerSecond) {
+        ReplayReport report = new ReplayReport(UUID.randomUUID().toString(), fromDate, toDate, dryRun);
+        int limit = rowsPerSecond != null ? rowsPerSecond : ingestionProperties.getReplayRowsPerSecond();
+        evictFinishedJobs();
+        jobs.put(report.getJobId(), report);
+        // The replay runs under the requester's RLS context
+        coordinator.execute(RlsContext.wrap(() -> {
+            try {
+                replay(report, new RateLimiter(limit));
+                report.finish(ReplayReport.Status.COMPLETED, null);
+            } catch (RuntimeException e) {
+                log.error("MT940 replay {} failed: {}", report.getJobId(), e.getMessage(), e);
+                report.finish(ReplayReport.Status.FAILED, e.getMessage());
+            }
+            log.info("MT940 replay {} {}: {} runs, {} rows ({} rows/s), {} added, {} changed, {} missing",
+                    report.getJobId(), report.getStatus(), report.getRunsReplayed(), report.getRows(),
+                    String.format("%.0f", report.getRowsPerSecond()), report.getRowsAdded(), report.getRowsChanged(),
+                    report.getRowsMissing());
+        }));
+        return report;
+    }
+
+    public Optional<ReplayReport> getReport(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    private void replay(ReplayReport report, RateLimiter limiter) {
+        List<ImportRun> runs = importRunRepository.findByFileTypeAndReceivedAtBetweenOrderByIdAsc(FILE_TYPE,
+                report.getFromDate().atStartOfDay(), report.getToDate().plusDays(1).atStartOfDay());
+        runs.removeIf(run -> run.getStatus() == ImportRun.Status.DUPLICATE);
+        report.getRunsTotal().set(runs.size());
+        log.info("Replaying {} MT940 import runs received {}..{} (dryRun={})", runs.size(), report.getFromDate(),
+                report.getToDate(), report.isDryRun());
+
+        int concurrency = Math.max(1, ingestionProperties.getReplayConcurrency());
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "mt940-replay-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(runs.size());
+            for (ImportRun run : runs) {
+                futures.add(workers.submit(RlsContext.wrap(() -> replayRun(run, report, limiter))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Replay interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Replay worker failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void replayRun(ImportRun run, ReplayReport report, RateLimiter limiter) {
+        if (archiveStore.find(FILE_TYPE, run.getFileHash()).isEmpty()) {
+            // Runs archived before zip entries were stored under their own hash
+            report.getRunsNotArchived().incrementAndGet();
+            report.sample("Import run " + run.getId() + " (" + run.getFilename() + ") has no archived copy");
+            return;
+        }
+        if (!fileHashRegistry.tryClaim(run.getFileHash())) {
+            report.getRunsFailed().incrementAndGet();
+            report.sample("Import run " + run.getId() + " is being ingested; skipped");
+            return;
+        }
+        try {
+            String content;
+            try (InputStream in = archiveStore.open(FILE_TYPE, run.getFileHash())) {
+                content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            List<Mt940Parser.Statement> statements = new Mt940Parser().parse(content);
+            for (Mt940Parser.Statement stmt : statements) {
+                report.getStatements().incrementAndGet();
+                String validationError = mt940IngestionService.validateStatement(stmt);
+                if (validationError != null) {
+                    report.getStatementsInvalid().incrementAndGet();
+                    report.sample("Import run " + run.getId() + ": " + validationError);
+                    continue;
+                }
+                limiter.acquire(stmt.transactions.size());
+                report.getRows().addAndGet(stmt.transactions.size());
+                try {
+                    mt940ReplayWriter.replayStatement(run, stmt, report);
+                } catch (RuntimeException e) {
+                    // Only this statement rolled back
+                    report.getStatementsFailed().incrementAndGet();
+                    report.sample("Import run " + run.getId() + " statement " + stmt.stmtRef20 + " failed: " + e.getMessage());
+                }
+            }
+            if (!report.isDryRun()) {
+                refreshRun(run, statements.size());
+            }
+            report.getRunsReplayed().incrementAndGet();
+        } catch (IOException | Mt940Parser.Mt940ParseException | RuntimeException e) {
+            log.warn("Replay of import run {} ({}) failed: {}", run.getId(), run.getFilename(), e.getMessage());
+            report.getRunsFailed().incrementAndGet();
+            report.sample("Import run " + run.getId() + " failed: " + e.getMessage());
+        } finally {
+            fileHashRegistry.release(run.getFileHash());
+        }
+    }
+
+    /**
+     * Recount the run after statements that failed originally may have been added.
+     */
+    private void refreshRun(ImportRun run, int totalStatements) {
+        int processed = (int) statementFileRepository.countByImportRun(run);
+        int failed = Math.max(0, totalStatements - processed);
+        run.setTotalRecords(totalStatements);
+        run.setProcessedRecords(processed);
+        run.setFailedRecords(failed);
+        run.setCheckpointOffset(totalStatements);
+        if (processed > 0 && failed == 0) {
+            run.setStatus(ImportRun.Status.IMPORTED);
+        } else if (processed > 0) {
+            run.setStatus(ImportRun.Status.PARTIAL);
+        } else {
+            run.setStatus(ImportRun.Status.FAILED);
+        }
+        importRunRepository.save(run);
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < MAX_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.getFinishedAt() != null)
+                .min((a, b) -> a.getFinishedAt().compareTo(b.getFinishedAt()))
+                .ifPresent(job -> jobs.remove(job.getJobId()));
+    }
+
+    /**
+     * Spaces out row permits evenly across all workers; 0 or less means unlimited.
+     */
+    static final class RateLimiter {
+        private final long nanosPerRow;
+        private long nextFree = System.nanoTime();
+
+        RateLimiter(int rowsPerSecond) {
+            this.nanosPerRow = rowsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / rowsPerSecond : 0;
+        }
+
+        void acquire(int rows) {
+            if (nanosPerRow == 0 || rows <= 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(nextFree, now);
+                nextFree = start + rows * nanosPerRow;
+                wait = start - now;
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted waiting for replay rate limit", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.paymentreconciliation.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import com.example.paymentreconciliation.dto.ReplayReport;
+import com.example.paymentreconciliation.dto.StatementTransactionView;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.entity.StatementFile;
+import com.example.paymentreconciliation.entity.StatementTransaction;
+import com.example.paymentreconciliation.entity.Transaction86Segment;
+import com.example.paymentreconciliation.repository.StatementFileRepository;
+import com.example.paymentreconciliation.repository.StatementTransactionRepository;
+import com.example.paymentreconciliation.repository.Transaction86SegmentRepository;
+
+/**
+ * Upserts one re-parsed MT940 statement against what an earlier import persisted, one transaction
+ * per statement. Rows are matched on their position in the statement (statement_file, line_no), not on
+ * ext_idempotency_hash, since a parser fix that changes a hashed field (value date, amount, references)
+ * also changes the hash. New lines are inserted, rows whose parsed fields differ are updated in place
+ * together with their hash and :86: segments, and rows that were persisted before but are no longer
+ * produced are only reported. A dry run records the same diff and rolls back.
+ */
+@Service
+public class Mt940ReplayWriter {
+    private static final String FILE_TYPE = "MT940";
+
+    @Autowired
+    private StatementFileRepository statementFileRepository;
+    @Autowired
+    private StatementTransactionRepository statementTransactionRepository;
+    @Autowired
+    private Transaction86SegmentRepository transaction86SegmentRepository;
+    @Autowired
+    private Mt940StatementWriter mt940StatementWriter;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void replayStatement(ImportRun importRun, Mt940Parser.Statement stmt, ReplayReport report) {
+        Optional<StatementFile> existingFile = statementFileRepository
+                .findFirstByImportRunAndStmtRef20AndSeq28c(importRun, stmt.stmtRef20, stmt.seq28c);
+        if (existingFile.isEmpty()) {
+            // Not persisted by the earlier import (e.g. it failed validation then)
+            report.getStatementsAdded().incrementAndGet();
+            report.getRowsAdded().addAndGet(stmt.transactions.size());
+            report.sample("Statement " + stmt.stmtRef20 + " of import run " + importRun.getId() + " added");
+            if (report.isDryRun()) {
+                return;
+            }
+            Integer checkpoint = importRun.getCheckpointOffset();
+            mt940StatementWriter.writeStatement(importRun, stmt, checkpoint != null ? checkpoint : 0);
+            return;
+        }
+
+        StatementFile sf = existingFile.get();
+        Map<Integer, StatementTransaction> persisted = new HashMap<>();
+        for (StatementTransaction st : statementTransactionRepository.findByStatementFile(sf)) {
+            persisted.put(st.getLineNo(), st);
+        }
+        List<StatementTransaction> added = new ArrayList<>();
+        List<Transaction86Segment> segments = new ArrayList<>();
+        for (Mt940Parser.Transaction txn : stmt.transactions) {
+            StatementTransaction st = persisted.remove(txn.lineNo);
+            if (st == null) {
+                if (hashTaken(txn)) {
+                    // Same transaction already persisted under another statement
+                    report.getRowsUnchanged().incrementAndGet();
+                    continue;
+                }
+                st = new StatementTransaction();
+                st.setStatementFile(sf);
+                st.setCreatedAt(java.time.LocalDateTime.now());
+                apply(st, txn);
+                added.add(st);
+                Mt940StatementWriter.addSegments(st, txn, segments);
+                report.getRowsAdded().incrementAndGet();
+                report.sample("Statement " + stmt.stmtRef20 + " line " + txn.lineNo + " added");
+                continue;
+            }
+            String difference = difference(st, txn);
+            if (difference == null) {
+                report.getRowsUnchanged().incrementAndGet();
+                continue;
+            }
+            if (!Objects.equals(st.getExtIdempotencyHash(), txn.extIdempotencyHash) && hashTaken(txn)) {
+                // The corrected row would duplicate another persisted transaction (uq_txn_hash); left as it is
+                report.getRowsUnchanged().incrementAndGet();
+                report.sample("Statement transaction " + st.getId() + ": " + difference + " not applied, hash already used by another row");
+                continue;
+            }
+            report.getRowsChanged().incrementAndGet();
+            report.sample("Statement transaction " + st.getId() + ": " + difference);
+            if (!report.isDryRun()) {
+                apply(st, txn);
+                transaction86SegmentRepository.deleteByStatementTransaction(st);
+                Mt940StatementWriter.addSegments(st, txn, segments);
+                outboxService.append(OutboxService.STATEMENT_TRANSACTION_CORRECTED, "statement_transaction", st.getId(),
+                        sf.getBankAccount().getAccountNo(), view(sf, st));
+            }
+        }
+        for (StatementTransaction missing : persisted.values()) {
+            report.getRowsMissing().incrementAndGet();
+            report.sample("Statement transaction " + missing.getId() + " no longer produced by the parser");
+        }
+        if (report.isDryRun()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return;
+        }
+        ingestionMetrics.time("write.statement_transaction", FILE_TYPE, () -> statementTransactionRepository.saveAll(added));
+        ingestionMetrics.time("write.transaction_86_segment", FILE_TYPE, () -> transaction86SegmentRepository.saveAll(segments));
+        outboxService.statementTransactionsImported(sf.getBankAccount(), sf, added);
+    }
+
+    private boolean hashTaken(Mt940Parser.Transaction txn) {
+        return statementTransactionRepository.findByExtIdempotencyHashAndValueDate(txn.extIdempotencyHash, txn.parsedValueDate).isPresent();
+    }
+
+    private static void apply(StatementTransaction st, Mt940Parser.Transaction txn) {
+        st.setLineNo(txn.lineNo);
+        st.setExtIdempotencyHash(txn.extIdempotencyHash);
+        st.setValueDate(txn.parsedValueDate);
+        st.setEntryDate(txn.parsedEntryDate);
+        st.setDc(txn.dc);
+        st.setAmount(txn.parsedAmount);
+        st.setSignedAmount(txn.parsedSignedAmount);
+        st.setCurrency(txn.currency);
+        st.setTxnTypeCode(txn.txnTypeCode);
+        st.setBankReference(txn.bankReference);
+        st.setCustomerReference(txn.customerReference);
+        st.setEntryReference(txn.entryReference);
+        st.setNarrative(txn.narrative);
+    }
+
+    /**
+     * First field that differs between the persisted row and the re-parsed transaction, or null.
+     */
+    private static String difference(StatementTransaction st, Mt940Parser.Transaction txn) {
+        if (!Objects.equals(st.getValueDate(), txn.parsedValueDate)) {
+            return "valueDate " + st.getValueDate() + " -> " + txn.parsedValueDate;
+        }
+        if (!Objects.equals(st.getEntryDate(), txn.parsedEntryDate)) {
+            return "entryDate " + st.getEntryDate() + " -> " + txn.parsedEntryDate;
+        }
+        if (!Objects.equals(st.getDc(), txn.dc)) {
+            return "dc " + st.getDc() + " -> " + txn.dc;
+        }
+        if (!sameAmount(st.getAmount(), txn.parsedAmount)) {
+            return "amount " + st.getAmount() + " -> " + txn.parsedAmount;
+        }
+        if (!sameAmount(st.getSignedAmount(), txn.parsedSignedAmount)) {
+            return "signedAmount " + st.getSignedAmount() + " -> " + txn.parsedSignedAmount;
+        }
+        if (!Objects.equals(st.getTxnTypeCode(), txn.txnTypeCode)) {
+            return "txnTypeCode " + st.getTxnTypeCode() + " -> " + txn.txnTypeCode;
+        }
+        if (!Objects.equals(st.getBankReference(), txn.bankReference)) {
+            return "bankReference " + st.getBankReference() + " -> " + txn.bankReference;
+        }
+        if (!Objects.equals(st.getCustomerReference(), txn.customerReference)) {
+            return "customerReference " + st.getCustomerReference() + " -> " + txn.customerReference;
+        }
+        if (!Objects.equals(st.getEntryReference(), txn.entryReference)) {
+            return "entryReference " + st.getEntryReference() + " -> " + txn.entryReference;
+        }
+        if (!Objects.equals(st.getNarrative(), txn.narrative)) {
+            return "narrative changed";
+        }
+        if (!Objects.equals(st.getExtIdempotencyHash(), txn.extIdempotencyHash)) {
+            return "extIdempotencyHash " + st.getExtIdempotencyHash() + " -> " + txn.extIdempotencyHash;
+        }
+        return null;
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static StatementTransactionView view(StatementFile sf, StatementTransaction st) {
+        return new StatementTransactionView(st.getId(), sf.getBankAccount().getAccountNo(), sf.getStmtRef20(),
+                st.getValueDate(), st.getEntryDate(), st.getDc(), st.getAmount(), st.getSignedAmount(), st.getCurrency(),
+                st.getBankReference(), st.getCustomerReference(), st.getNarrative());
+    }
+}
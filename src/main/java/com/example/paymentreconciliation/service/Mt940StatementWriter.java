@@ -0,0 +1,207 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.paymentreconciliation.entity.*;
+import com.example.paymentreconciliation.jfr.BatchFlushEvent;
+import com.example.paymentreconciliation.jfr.StatementPersistedEvent;
+import com.example.paymentreconciliation.repository.*;
+
+/**
+ * Persists one validated MT940 statement per transaction.
+ * Kept as a separate bean so the transactional proxy applies (self-invocation from
+ * Mt940IngestionService would bypass it) and a failing statement rolls back on its own.
+ */
+@Service
+public class Mt940StatementWriter {
+    private static final Logger log = LoggerFactoryProvider.getLogger(Mt940StatementWriter.class);
+    private static final String FILE_TYPE = "MT940";
+    @Autowired
+    private ImportRunRepository importRunRepository;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private StatementFileRepository statementFileRepository;
+    @Autowired
+    private StatementBalanceRepository statementBalanceRepository;
+    @Autowired
+    private StatementTransactionRepository statementTransactionRepository;
+    @Autowired
+    private RawStatementLineRepository rawStatementLineRepository;
+    @Autowired
+    private Transaction86SegmentRepository transaction86SegmentRepository;
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+    @Autowired
+    private OutboxService outboxService;
+
+    /**
+     * Persist account, statement file, balances, transactions, :86: segments and raw lines
+     * for a single statement in a new transaction, flushing each entity type as one batch.
+     * The run's checkpoint advances in the same transaction, so it never points past uncommitted work.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public StatementFile writeStatement(ImportRun importRun, Mt940Parser.Statement stmt, int checkpoint) {
+        StatementPersistedEvent persistedEvent = new StatementPersistedEvent();
+        persistedEvent.begin();
+        // 1. Find or create BankAccount
+        log.debug("Finding or creating BankAccount for accountNo={}, currency={}", stmt.accountNo, stmt.currency);
+        BankAccount acct = ingestionMetrics.time("write.bank_account", FILE_TYPE, () ->
+            bankAccountRepository.findByAccountNoAndCurrency(stmt.accountNo, stmt.currency)
+                .orElseGet(() -> {
+                    BankAccount ba = new BankAccount();
+                    ba.setAccountNo(stmt.accountNo);
+                    ba.setCurrency(stmt.currency);
+                    ba.setIsActive(true);
+                    return bankAccountRepository.save(ba);
+                }));
+
+        // 2. Create StatementFile
+        StatementFile sf = new StatementFile();
+        sf.setImportRun(importRun);
+        sf.setBankAccount(acct);
+        sf.setStmtRef20(stmt.stmtRef20);
+        sf.setSeq28c(stmt.seq28c);
+        // Closing balance (:62F:) date is the statement date
+        sf.setStatementDate(stmt.closingBalance.parsedDate);
+        sf.setOpeningDc(stmt.openingBalance.dc);
+        sf.setOpeningAmount(stmt.openingBalance.parsedAmount);
+        sf.setClosingDc(stmt.closingBalance.dc);
+        sf.setClosingAmount(stmt.closingBalance.parsedAmount);
+        sf.setCurrency(stmt.currency);
+        sf.setIsInterim(stmt.isInterim);
+        sf.setCreatedAt(java.time.LocalDateTime.now());
+        ingestionMetrics.time("write.statement_file", FILE_TYPE, () -> statementFileRepository.save(sf));
+
+        // 3. Persist balances
+        List<StatementBalance> balances = new ArrayList<>();
+        StatementBalance ob = new StatementBalance();
+        ob.setStatementFile(sf);
+        ob.setBalType("OPENING");
+        ob.setDc(stmt.openingBalance.dc);
+        ob.setBalDate(stmt.openingBalance.parsedDate);
+        ob.setCurrency(stmt.openingBalance.currency);
+        ob.setAmount(stmt.openingBalance.parsedAmount);
+        balances.add(ob);
+
+        StatementBalance cb = new StatementBalance();
+        cb.setStatementFile(sf);
+        cb.setBalType("CLOSING");
+        cb.setDc(stmt.closingBalance.dc);
+        cb.setBalDate(stmt.closingBalance.parsedDate);
+        cb.setCurrency(stmt.closingBalance.currency);
+        cb.setAmount(stmt.closingBalance.parsedAmount);
+        balances.add(cb);
+
+        // Other balances
+        if (stmt.otherBalances != null) {
+            for (Mt940Parser.Balance bal : stmt.otherBalances) {
+                StatementBalance b = new StatementBalance();
+                b.setStatementFile(sf);
+                b.setBalType(bal.type);
+                b.setDc(bal.dc);
+                b.setBalDate(bal.parsedDate);
+                b.setCurrency(bal.currency);
+                b.setAmount(bal.parsedAmount);
+                balances.add(b);
+            }
+        }
+        ingestionMetrics.time("write.statement_balance", FILE_TYPE, () -> statementBalanceRepository.saveAll(balances));
+
+        // 4. Persist transactions, their :86: segments and raw lines
+        List<StatementTransaction> transactions = new ArrayList<>();
+        List<Transaction86Segment> segments = new ArrayList<>();
+        List<RawStatementLine> rawLines = new ArrayList<>();
+        for (Mt940Parser.Transaction txn : stmt.transactions) {
+            StatementTransaction st = new StatementTransaction();
+            st.setStatementFile(sf);
+            st.setLineNo(txn.lineNo);
+            st.setValueDate(txn.parsedValueDate);
+            st.setEntryDate(txn.parsedEntryDate);
+            st.setDc(txn.dc);
+            st.setAmount(txn.parsedAmount);
+            st.setSignedAmount(txn.parsedSignedAmount);
+            st.setCurrency(txn.currency);
+            st.setTxnTypeCode(txn.txnTypeCode);
+            st.setBankReference(txn.bankReference);
+            st.setCustomerReference(txn.customerReference);
+            st.setEntryReference(txn.entryReference);
+            st.setNarrative(txn.narrative);
+            st.setNarrativeTokens(null); // Optionally serialize txn.narrativeTokens
+            st.setExtIdempotencyHash(txn.extIdempotencyHash);
+            st.setCreatedAt(java.time.LocalDateTime.now());
+            transactions.add(st);
+
+            addSegments(st, txn, segments);
+
+            // RawStatementLine if available (from stmt.rawLines)
+            if (stmt.rawLines != null) {
+                for (Mt940Parser.RawLine rawLine : stmt.rawLines) {
+                    if (rawLine.lineNo == txn.lineNo) { // match by line number
+                        RawStatementLine rsl = new RawStatementLine();
+                        rsl.setStatementFile(sf);
+                        rsl.setLineNo(rawLine.lineNo);
+                        rsl.setTag(rawLine.tag);
+                        rsl.setRawText(rawLine.rawText);
+                        rawLines.add(rsl);
+                    }
+                }
+            }
+        }
+        BatchFlushEvent flushEvent = new BatchFlushEvent();
+        flushEvent.begin();
+        ingestionMetrics.time("write.statement_transaction", FILE_TYPE, () -> statementTransactionRepository.saveAll(transactions));
+        ingestionMetrics.time("write.transaction_86_segment", FILE_TYPE, () -> transaction86SegmentRepository.saveAll(segments));
+        ingestionMetrics.time("write.raw_statement_line", FILE_TYPE, () -> rawStatementLineRepository.saveAll(rawLines));
+        outboxService.statementTransactionsImported(acct, sf, transactions);
+        if (flushEvent.shouldCommit()) {
+            flushEvent.entity = "statement_transaction";
+            flushEvent.fileHash = importRun.getFileHash();
+            flushEvent.rowCount = transactions.size() + segments.size() + rawLines.size();
+            flushEvent.commit();
+        }
+        importRunRepository.updateCheckpoint(importRun.getId(), checkpoint);
+
+        if (persistedEvent.shouldCommit()) {
+            persistedEvent.fileHash = importRun.getFileHash();
+            persistedEvent.bankAccountId = acct.getId();
+            persistedEvent.stmtRef20 = stmt.stmtRef20;
+            persistedEvent.rowCount = transactions.size();
+            persistedEvent.commit();
+        }
+        return sf;
+    }
+
+    /**
+     * Transaction86Segment for each narrative token (or the full narrative if no tokens).
+     */
+    static void addSegments(StatementTransaction st, Mt940Parser.Transaction txn, List<Transaction86Segment> segments) {
+        if (txn.narrativeTokens != null && !txn.narrativeTokens.isEmpty()) {
+            int segSeq = 1;
+            for (var entry : txn.narrativeTokens.entrySet()) {
+                Transaction86Segment seg = new Transaction86Segment();
+                seg.setStatementTransaction(st);
+                seg.setSegKey(entry.getKey());
+                seg.setSegValue(entry.getValue());
+                seg.setSegSeq(segSeq++);
+                segments.add(seg);
+            }
+        } else if (txn.narrative != null) {
+            Transaction86Segment seg = new Transaction86Segment();
+            seg.setStatementTransaction(st);
+            seg.setSegKey("FULL");
+            seg.setSegValue(txn.narrative);
+            seg.setSegSeq(1);
+            segments.add(seg);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.paymentreconciliation.config.OutboxProperties;
+import com.example.paymentreconciliation.entity.OutboxEvent;
+import com.example.paymentreconciliation.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes unpublished outbox events to the configured {@link OutboxSink} in id order, one batch per
+ * transaction. A pg advisory lock keeps a single relay active across replicas, so each account's
+ * stream is delivered in order. Events are marked published only after the sink accepts the batch
+ * (at-least-once). A sink that is unavailable fails the whole batch: it is retried with exponential
+ * back-off, as often as it takes, and nothing behind it is published or counted against any event.
+ * Only a {@link OutboxSink.RejectedException} is charged to events: the rejected batch is re-sent one
+ * event at a time to find the one the sink refuses, which is dead-lettered after outbox.max-attempts
+ * rejections instead of blocking the feed.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactoryProvider.getLogger(OutboxRelay.class);
+    private static final long ADVISORY_LOCK_KEY = 0x6f757462L;
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OutboxProperties props;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, OutboxSink> sinks;
+    private int consecutiveFailures;
+    private long retryAt;
+    // Events still to be sent one at a time after the sink rejected a batch
+    private int isolating;
+
+    public OutboxRelay(List<OutboxSink> sinks) {
+        this.sinks = sinks.stream().collect(Collectors.toMap(OutboxSink::getName, Function.identity()));
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:1000}")
+    public void relay() {
+        if (!props.isEnabled() || System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        OutboxSink sink = sinks.get(props.getSink());
+        if (sink == null) {
+            log.error("Unknown outbox.sink '{}'; expected one of {}", props.getSink(), sinks.keySet());
+            return;
+        }
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            Integer published = transactionTemplate.execute(status -> publishBatch(sink));
+            if (published == null || published < props.getBatchSize()) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${outbox.purge-cron:0 30 3 * * *}")
+    public void purgePublished() {
+        if (!props.isEnabled()) {
+            return;
+        }
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusDays(props.getRetainDays())));
+        log.info("Purged {} published outbox events older than {} days", deleted, props.getRetainDays());
+    }
+
+    /**
+     * Returns the number of events published, or null if another node holds the relay lock or the sink failed.
+     */
+    private Integer publishBatch(OutboxSink sink) {
+        Boolean locked = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return null;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(props.getSettleMs() * 1_000_000L);
+        int batchSize = isolating > 0 ? 1 : props.getBatchSize();
+        List<OutboxEvent> batch = outboxEventRepository.findByPublishedAtIsNullAndDeadLetteredAtIsNullAndCreatedAtBeforeOrderByIdAsc(
+                cutoff, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            isolating = 0;
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+        try {
+            sink.publish(batch);
+        } catch (OutboxSink.RejectedException e) {
+            registry.counter("outbox.publish.failures", "sink", sink.getName(), "reason", "rejected").increment();
+            if (batch.size() > 1) {
+                // Not known which event was refused: send this batch's events singly, at once
+                isolating = batch.size();
+                log.warn("Outbox batch of {} events (ids {}..{}) rejected by {}, resending one at a time: {}", batch.size(),
+                        ids.get(0), ids.get(ids.size() - 1), sink.getName(), e.getMessage());
+                return null;
+            }
+            OutboxEvent head = batch.get(0);
+            outboxEventRepository.recordFailure(ids, truncate(e.getMessage()));
+            if (head.getAttempts() + 1 >= props.getMaxAttempts()) {
+                outboxEventRepository.markDeadLettered(ids, LocalDateTime.now());
+                registry.counter("outbox.events.dead_lettered", "sink", sink.getName()).increment();
+                log.error("Outbox event {} ({} {}, stream {}) dead-lettered after {} rejections by {}: {}", head.getId(),
+                        head.getEventType(), head.getAggregateId(), head.getStreamKey(), head.getAttempts() + 1,
+                        sink.getName(), e.getMessage());
+                isolating--;
+                consecutiveFailures = 0;
+                return null;
+            }
+            backOff(sink, batch, e);
+            return null;
+        } catch (RuntimeException e) {
+            // Sink unavailable: the batch is not at fault, so no event is charged or skipped
+            registry.counter("outbox.publish.failures", "sink", sink.getName(), "reason", "unavailable").increment();
+            backOff(sink, batch, e);
+            return null;
+        }
+        consecutiveFailures = 0;
+        if (isolating > 0) {
+            isolating--;
+        }
+        outboxEventRepository.markPublished(ids, LocalDateTime.now());
+        registry.counter("outbox.events.published", "sink", sink.getName()).increment(batch.size());
+        return batch.size();
+    }
+
+    private void backOff(OutboxSink sink, List<OutboxEvent> batch, RuntimeException e) {
+        consecutiveFailures++;
+        long backoff = Math.min(props.getMaxBackoffMs(), props.getRelayIntervalMs() << Math.min(consecutiveFailures, 20));
+        retryAt = System.currentTimeMillis() + backoff;
+        log.warn("Outbox publish of {} events (ids {}..{}) to {} failed {} times in a row, retrying in {} ms: {}", batch.size(),
+                batch.get(0).getId(), batch.get(batch.size() - 1).getId(), sink.getName(), consecutiveFailures, backoff,
+                e.getMessage());
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.paymentreconciliation.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.paymentreconciliation.config.OutboxProperties;
+import com.example.paymentreconciliation.dto.StatementTransactionView;
+import com.example.paymentreconciliation.dto.VANTransactionView;
+import com.example.paymentreconciliation.entity.BankAccount;
+import com.example.paymentreconciliation.entity.OutboxEvent;
+import com.example.paymentreconciliation.entity.StatementFile;
+import com.example.paymentreconciliation.entity.StatementTransaction;
+import com.example.paymentreconciliation.entity.VANTransaction;
+import com.example.paymentreconciliation.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends change-feed events to outbox_event. Every method joins the caller's transaction
+ * (MANDATORY), so an event exists exactly when the records it describes were committed.
+ * Does nothing unless outbox.enabled is set.
+ */
+@Service
+public class OutboxService {
+    public static final String STATEMENT_TRANSACTION_IMPORTED = "statement_transaction.imported";
+    public static final String VAN_TRANSACTION_IMPORTED = "van_transaction.imported";
+    public static final String STATEMENT_TRANSACTION_CORRECTED = "statement_transaction.corrected";
+    public static final String RECONCILIATION_RESULT = "reconciliation.result";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OutboxProperties props;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statementTransactionsImported(BankAccount account, StatementFile statementFile,
+                                              List<StatementTransaction> transactions) {
+        if (!props.isEnabled() || transactions.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> events = new ArrayList<>(transactions.size());
+        for (StatementTransaction st : transactions) {
+            StatementTransactionView view = new StatementTransactionView(st.getId(), account.getAccountNo(),
+                    statementFile.getStmtRef20(), st.getValueDate(), st.getEntryDate(), st.getDc(), st.getAmount(),
+                    st.getSignedAmount(), st.getCurrency(), st.getBankReference(), st.getCustomerReference(),
+                    st.getNarrative());
+            events.add(event(STATEMENT_TRANSACTION_IMPORTED, "statement_transaction", st.getId(), account.getAccountNo(), view));
+        }
+        ingestionMetrics.time("write.outbox_event", "MT940", () -> outboxEventRepository.saveAll(events));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void vanTransactionsImported(List<VANTransaction> transactions) {
+        if (!props.isEnabled() || transactions.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> events = new ArrayList<>(transactions.size());
+        for (VANTransaction vt : transactions) {
+            VANTransactionView view = new VANTransactionView(vt.getId(), vt.getMainAccountNumber(),
+                    vt.getVirtualAccountNumber(), vt.getTransactionReferenceNumber(), vt.getTransactionDate(),
+                    vt.getValueDate(), vt.getAmount(), vt.getRemitterName(), vt.getPaymentStatus(),
+                    vt.getMappedCustomerIdCode(), vt.getInvoiceReferenceId());
+            events.add(event(VAN_TRANSACTION_IMPORTED, "van_transaction", vt.getId(), vt.getMainAccountNumber(), view));
+        }
+        ingestionMetrics.time("write.outbox_event", "VAN", () -> outboxEventRepository.saveAll(events));
+    }
+
+    /**
+     * Append a single event, e.g. a reconciliation outcome ({@link #RECONCILIATION_RESULT}) for the
+     * matched transaction, in the transaction that stores the result.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String eventType, String aggregateType, Long aggregateId, String streamKey, Object payload) {
+        if (!props.isEnabled()) {
+            return;
+        }
+        outboxEventRepository.save(event(eventType, aggregateType, aggregateId, streamKey, payload));
+    }
+
+    private OutboxEvent event(String eventType, String aggregateType, Long aggregateId, String streamKey, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setStreamKey(streamKey);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialise outbox payload for " + aggregateType + " " + aggregateId, e);
+        }
+        return event;
+    }
+}
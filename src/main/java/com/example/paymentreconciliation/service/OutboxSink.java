@@ -0,0 +1,61 @@
+package com.example.paymentreconciliation.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.example.paymentreconciliation.entity.OutboxEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Destination the outbox relay publishes to, selected by outbox.sink.
+ * {@link #publish} must return only once the whole batch is durably accepted and throw otherwise;
+ * the batch is then retried, so consumers see events at least once and should dedupe by event id.
+ * Throw {@link RejectedException} when retrying cannot help (the destination refused the content or
+ * it could not be serialised); any other exception is taken as the destination being unavailable.
+ */
+public interface OutboxSink {
+
+    /**
+     * The batch was refused for its content, not because the destination is unavailable.
+     */
+    class RejectedException extends RuntimeException {
+        public RejectedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    String getName();
+
+    void publish(List<OutboxEvent> events);
+
+    /**
+     * Write one event as the JSON envelope shared by all sinks.
+     */
+    static void writeEnvelope(JsonGenerator gen, OutboxEvent event) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", event.getId());
+        gen.writeStringField("type", event.getEventType());
+        gen.writeStringField("aggregateType", event.getAggregateType());
+        gen.writeNumberField("aggregateId", event.getAggregateId());
+        gen.writeStringField("stream", event.getStreamKey());
+        gen.writeStringField("createdAt", event.getCreatedAt().toString());
+        gen.writeFieldName("payload");
+        gen.writeRawValue(event.getPayload());
+        gen.writeEndObject();
+    }
+
+    /**
+     * Write the batch as a JSON array of envelopes.
+     */
+    static void writeBatch(JsonFactory factory, List<OutboxEvent> events, OutputStream out) throws IOException {
+        try (JsonGenerator gen = factory.createGenerator(out)) {
+            gen.writeStartArray();
+            for (OutboxEvent event : events) {
+                writeEnvelope(gen, event);
+            }
+            gen.writeEndArray();
+        }
+    }
+}
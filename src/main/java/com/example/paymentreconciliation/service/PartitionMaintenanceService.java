@@ -0,0 +1,134 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.paymentreconciliation.config.PartitioningProperties;
+
+/**
+ * Keeps the monthly range partitions of statement_transaction (value_date) and van_transaction
+ * (transaction_date) rolling: creates partitions ahead of the current month and detaches partitions
+ * past retention into the archive schema, so hot queries, indexes and vacuum only touch recent months.
+ * Partitions are named &lt;table&gt;_pYYYYMM.
+ */
+@Service
+public class PartitionMaintenanceService {
+    private static final Logger log = LoggerFactoryProvider.getLogger(PartitionMaintenanceService.class);
+    private static final List<String> PARTITIONED_TABLES = List.of("statement_transaction", "van_transaction");
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final Pattern PARTITION_SUFFIX = Pattern.compile("_p(\\d{4})(\\d{2})$");
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    // Serialises maintenance across replicas
+    private static final long ADVISORY_LOCK_KEY = 0x70617274L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PartitioningProperties props;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        try {
+            maintainPartitions();
+        } catch (RuntimeException e) {
+            // Not fatal: rows still land in the default partition until the next scheduled run
+            log.error("Partition maintenance failed on startup: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${partitioning.maintenance-cron:0 15 2 * * *}")
+    public void maintainPartitions() {
+        if (!props.isEnabled()) {
+            return;
+        }
+        // One transaction so the advisory lock is held for the whole run
+        transactionTemplate.executeWithoutResult(status -> maintainLocked());
+    }
+
+    private void maintainLocked() {
+        String schema = identifier(props.getSchema());
+        String archiveSchema = identifier(props.getArchiveSchema());
+        Boolean locked = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Partition maintenance already running on another node");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (String table : PARTITIONED_TABLES) {
+            if (!isPartitioned(schema, table)) {
+                log.debug("Table {}.{} is not partitioned; skipping maintenance", schema, table);
+                continue;
+            }
+            for (int i = 0; i <= props.getMonthsAhead(); i++) {
+                createPartition(schema, table, current.plusMonths(i));
+            }
+            detachExpiredPartitions(schema, archiveSchema, table, current.minusMonths(props.getRetainMonths() - 1L));
+        }
+    }
+
+    private boolean isPartitioned(String schema, String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from pg_partitioned_table pt join pg_class c on c.oid = pt.partrelid "
+                        + "join pg_namespace n on n.oid = c.relnamespace where n.nspname = ? and c.relname = ?",
+                Integer.class, schema, table);
+        return count != null && count > 0;
+    }
+
+    private void createPartition(String schema, String table, YearMonth month) {
+        String partition = table + "_p" + month.format(SUFFIX_FORMAT);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("create table if not exists " + schema + "." + partition
+                + " partition of " + schema + "." + table
+                + " for values from ('" + from + "') to ('" + to + "')");
+        log.debug("Ensured partition {}.{} [{}, {})", schema, partition, from, to);
+    }
+
+    private void detachExpiredPartitions(String schema, String archiveSchema, String table, YearMonth oldestRetained) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+                        + "join pg_class p on p.oid = i.inhparent join pg_namespace n on n.oid = p.relnamespace "
+                        + "where n.nspname = ? and p.relname = ?",
+                String.class, schema, table);
+        for (String partition : partitions) {
+            Matcher m = PARTITION_SUFFIX.matcher(partition);
+            if (!m.find()) {
+                continue; // default partition or manually named
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (!month.isBefore(oldestRetained)) {
+                continue;
+            }
+            jdbcTemplate.execute("create schema if not exists " + archiveSchema);
+            jdbcTemplate.execute("alter table " + schema + "." + table + " detach partition " + schema + "." + identifier(partition));
+            jdbcTemplate.execute("alter table " + schema + "." + identifier(partition) + " set schema " + archiveSchema);
+            log.info("Detached partition {}.{} to archive schema {}", schema, partition, archiveSchema);
+        }
+    }
+
+    private static String identifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid SQL identifier: " + name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.paymentreconciliation.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+/**
+ * PDF report writer on iText. The table is marked incomplete and added to the document every
+ * FLUSH_ROWS rows, so iText lays out and writes finished pages and drops their rows from memory.
+ */
+@Component
+@Lazy
+public class PdfReportWriter implements ReportWriter {
+    private static final int FLUSH_ROWS = 500;
+
+    @Override
+    public String getFormat() {
+        return "pdf";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public void write(String title, List<String> headers, Stream<Object[]> rows, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4.rotate(), 20, 20, 20, 20);
+        try {
+            PdfWriter.getInstance(document, out).setCloseStream(false);
+            document.open();
+            document.add(new Paragraph(title, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12)));
+
+            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 7);
+            Font cellFont = FontFactory.getFont(FontFactory.HELVETICA, 7);
+            PdfPTable table = new PdfPTable(headers.size());
+            table.setWidthPercentage(100);
+            table.setHeaderRows(1);
+            table.setComplete(false);
+            for (String header : headers) {
+                table.addCell(new PdfPCell(new Phrase(header, headerFont)));
+            }
+
+            int pending = 0;
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                for (Object value : it.next()) {
+                    PdfPCell cell = new PdfPCell(new Phrase(format(value), cellFont));
+                    if (value instanceof Number) {
+                        cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+                    }
+                    table.addCell(cell);
+                }
+                if (++pending >= FLUSH_ROWS) {
+                    document.add(table);
+                    pending = 0;
+                }
+            }
+            table.setComplete(true);
+            document.add(table);
+        } catch (DocumentException e) {
+            throw new IOException("Failed to render PDF report: " + title, e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private static String format(Object value) {
+        if (value instanceof BigDecimal amount) {
+            return amount.toPlainString();
+        }
+        return value != null ? value.toString() : "";
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.paymentreconciliation.dto.ReportType;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * Generates reconciliation reports by streaming scalar rows from a forward-only cursor straight into
+ * a {@link ReportWriter}. Nothing is loaded into the persistence context, so memory stays flat
+ * regardless of report size.
+ */
+@Service
+public class ReportService {
+    private static final Logger log = LoggerFactoryProvider.getLogger(ReportService.class);
+    private static final int FETCH_SIZE = 1000;
+
+    // One NOT EXISTS per matching reference rather than an OR inside one, so each probe is an index
+    // lookup on idx_stmt_txn_bank_ref / idx_stmt_txn_cust_ref (db/report_indexes.sql)
+    private static final String UNMATCHED_ITEMS_QUERY =
+            "select v.id, v.mainAccountNumber, v.virtualAccountNumber, v.transactionReferenceNumber, "
+            + "v.bankReferenceTraceId, v.transactionDate, v.amount, v.remitterName, v.paymentStatus "
+            + "from VANTransaction v "
+            + "where v.transactionDate between :fromDate and :toDate "
+            + "and not exists (select 1 from StatementTransaction t where t.bankReference = v.bankReferenceTraceId "
+            + "and t.amount = v.amount and t.dc = 'C') "
+            + "and not exists (select 1 from StatementTransaction t where t.bankReference = v.transactionReferenceNumber "
+            + "and t.amount = v.amount and t.dc = 'C') "
+            + "and not exists (select 1 from StatementTransaction t where t.customerReference = v.transactionReferenceNumber "
+            + "and t.amount = v.amount and t.dc = 'C') "
+            + "order by v.transactionDate, v.id";
+    private static final List<String> UNMATCHED_ITEMS_HEADERS = List.of(
+            "VAN Txn ID", "Main Account", "Virtual Account", "Txn Reference", "Bank Trace ID",
+            "Txn Date", "Amount", "Remitter", "Payment Status");
+
+    private static final String DAILY_ACCOUNT_SUMMARY_QUERY =
+            "select a.accountNo, a.currency, t.valueDate, count(t), "
+            + "sum(case when t.dc = 'C' then t.amount else 0 end), "
+            + "sum(case when t.dc = 'D' then t.amount else 0 end), "
+            + "sum(t.signedAmount) "
+            + "from StatementTransaction t join t.statementFile f join f.bankAccount a "
+            + "where t.valueDate between :fromDate and :toDate "
+            + "group by a.accountNo, a.currency, t.valueDate "
+            + "order by a.accountNo, a.currency, t.valueDate";
+    private static final List<String> DAILY_ACCOUNT_SUMMARY_HEADERS = List.of(
+            "Account", "Currency", "Value Date", "Transactions", "Credits", "Debits", "Net Movement");
+
+    private static final String IMPORT_RUN_AUDIT_QUERY =
+            "select r.id, r.fileType, r.filename, r.fileHash, r.receivedAt, r.status, "
+            + "r.totalRecords, r.processedRecords, r.failedRecords, "
+            + "(select count(e) from ImportError e where e.importRun = r), r.errorMessage "
+            + "from ImportRun r "
+            + "where r.receivedAt >= :fromTime and r.receivedAt < :toTime "
+            + "order by r.receivedAt, r.id";
+    private static final List<String> IMPORT_RUN_AUDIT_HEADERS = List.of(
+            "Run ID", "File Type", "Filename", "SHA-256", "Received At", "Status",
+            "Total", "Processed", "Failed", "Errors", "Error Message");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final List<ReportWriter> writers;
+    private volatile Map<String, ReportWriter> writersByFormat;
+
+    /**
+     * Writers are resolved on the first report request, so POI and iText are not loaded at startup.
+     */
+    @Autowired
+    public ReportService(@Lazy List<ReportWriter> writers) {
+        this.writers = writers;
+    }
+
+    /**
+     * Writer for the requested format (xlsx, pdf).
+     */
+    public ReportWriter getWriter(String format) {
+        Map<String, ReportWriter> writersByFormat = this.writersByFormat;
+        if (writersByFormat == null) {
+            writersByFormat = writers.stream().collect(Collectors.toMap(ReportWriter::getFormat, Function.identity()));
+            this.writersByFormat = writersByFormat;
+        }
+        ReportWriter writer = writersByFormat.get(format != null ? format.toLowerCase() : null);
+        if (writer == null) {
+            throw new IllegalArgumentException("Unsupported report format: " + format + " (supported: " + writersByFormat.keySet() + ")");
+        }
+        return writer;
+    }
+
+    /**
+     * Stream the report for the inclusive date range into the given writer. Runs in a read-only
+     * transaction so the PostgreSQL driver uses a server-side cursor for the fetch size.
+     */
+    @Transactional(readOnly = true)
+    public void writeReport(ReportType type, ReportWriter writer, LocalDate fromDate, LocalDate toDate, OutputStream out) throws IOException {
+        log.info("Generating {} report ({}) for {} to {}", type.getSlug(), writer.getFormat(), fromDate, toDate);
+        Query query;
+        List<String> headers;
+        switch (type) {
+            case UNMATCHED_ITEMS -> {
+                query = entityManager.createQuery(UNMATCHED_ITEMS_QUERY)
+                        .setParameter("fromDate", fromDate)
+                        .setParameter("toDate", toDate);
+                headers = UNMATCHED_ITEMS_HEADERS;
+            }
+            case DAILY_ACCOUNT_SUMMARY -> {
+                query = entityManager.createQuery(DAILY_ACCOUNT_SUMMARY_QUERY)
+                        .setParameter("fromDate", fromDate)
+                        .setParameter("toDate", toDate);
+                headers = DAILY_ACCOUNT_SUMMARY_HEADERS;
+            }
+            case IMPORT_RUN_AUDIT -> {
+                query = entityManager.createQuery(IMPORT_RUN_AUDIT_QUERY)
+                        .setParameter("fromTime", fromDate.atStartOfDay())
+                        .setParameter("toTime", toDate.plusDays(1).atStartOfDay());
+                headers = IMPORT_RUN_AUDIT_HEADERS;
+            }
+            default -> throw new IllegalArgumentException("Unsupported report: " + type);
+        }
+        query.setHint("org.hibernate.fetchSize", FETCH_SIZE);
+        query.setHint("org.hibernate.readOnly", true);
+
+        @SuppressWarnings("unchecked")
+        Stream<Object[]> rows = query.getResultStream();
+        try (rows) {
+            writer.write(type.getTitle(), headers, rows, out);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.paymentreconciliation.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Renders a tabular report from a forward-only row stream. Implementations must keep only a bounded
+ * window of rows in memory so report size is limited by disk/network, not heap.
+ */
+public interface ReportWriter {
+
+    /**
+     * File extension / format key, e.g. "xlsx".
+     */
+    String getFormat();
+
+    String getContentType();
+
+    void write(String title, List<String> headers, Stream<Object[]> rows, OutputStream out) throws IOException;
+}
@@ -0,0 +1,40 @@
+package com.example.paymentreconciliation.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonicalises repeated field values within one parse, so a file's records share one String per
+ * distinct currency, D/C mark, type code, account number, date and so on instead of holding a fresh
+ * copy per record. Bounded: once full, further new values are returned as-is, which keeps a
+ * high-cardinality field from turning the dictionary into a copy of the file. Not thread-safe;
+ * one instance per parse.
+ */
+final class StringDictionary {
+    private static final String[] PRESEEDED = {"C", "D", "RC", "RD"};
+
+    private final int maxEntries;
+    private final Map<String, String> values;
+
+    StringDictionary(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.values = new HashMap<>(Math.min(maxEntries, 256) * 2);
+        for (String value : PRESEEDED) {
+            values.put(value, value);
+        }
+    }
+
+    String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = values.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (values.size() < maxEntries) {
+            values.put(value, value);
+        }
+        return value;
+    }
+}
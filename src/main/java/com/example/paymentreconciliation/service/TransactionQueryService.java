@@ -0,0 +1,146 @@
+package com.example.paymentreconciliation.service;
+
+import com.shared.utilities.logger.LoggerFactoryProvider;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.paymentreconciliation.dto.StatementTransactionView;
+import com.example.paymentreconciliation.dto.TransactionSearchCriteria;
+import com.example.paymentreconciliation.dto.VANTransactionView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Read API over statement and VAN transactions.
+ * Pages are addressed by keyset (date, id) rather than OFFSET, so the database seeks straight to the
+ * first row of the page via the (date, id) indexes and the cost of page N does not grow with N.
+ * Rows are streamed from the result set into the JSON response without materialising the page.
+ */
+@Service
+public class TransactionQueryService {
+    private static final Logger log = LoggerFactoryProvider.getLogger(TransactionQueryService.class);
+    private static final int FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Write one page of MT940 statement transactions ordered by (valueDate, id) as JSON.
+     */
+    @Transactional(readOnly = true)
+    public void writeStatementTransactions(TransactionSearchCriteria criteria, OutputStream out) throws IOException {
+        StringBuilder jpql = new StringBuilder("select new com.example.paymentreconciliation.dto.StatementTransactionView("
+                + "t.id, a.accountNo, f.stmtRef20, t.valueDate, t.entryDate, t.dc, t.amount, t.signedAmount, t.currency, "
+                + "t.bankReference, t.customerReference, t.narrative) "
+                + "from StatementTransaction t join t.statementFile f join f.bankAccount a where 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        appendFilters(jpql, params, criteria, "t.valueDate", "t.id", "a.accountNo", "t.amount", null);
+        TypedQuery<StatementTransactionView> query = entityManager.createQuery(jpql.toString(), StatementTransactionView.class);
+        writePage(query, params, criteria.effectiveLimit(), out, StatementTransactionView::getValueDate, StatementTransactionView::getId);
+    }
+
+    /**
+     * Write one page of VAN transactions ordered by (transactionDate, id) as JSON. Value date is
+     * optional in VAN files, so the always-present transaction date is the keyset column.
+     */
+    @Transactional(readOnly = true)
+    public void writeVanTransactions(TransactionSearchCriteria criteria, OutputStream out) throws IOException {
+        StringBuilder jpql = new StringBuilder("select new com.example.paymentreconciliation.dto.VANTransactionView("
+                + "v.id, v.mainAccountNumber, v.virtualAccountNumber, v.transactionReferenceNumber, v.transactionDate, "
+                + "v.valueDate, v.amount, v.remitterName, v.paymentStatus, v.mappedCustomerIdCode, v.invoiceReferenceId) "
+                + "from VANTransaction v where 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        appendFilters(jpql, params, criteria, "v.transactionDate", "v.id", "v.mainAccountNumber", "v.amount", "v.paymentStatus");
+        TypedQuery<VANTransactionView> query = entityManager.createQuery(jpql.toString(), VANTransactionView.class);
+        writePage(query, params, criteria.effectiveLimit(), out, VANTransactionView::getTransactionDate, VANTransactionView::getId);
+    }
+
+    private void appendFilters(StringBuilder jpql, Map<String, Object> params, TransactionSearchCriteria criteria,
+                               String dateColumn, String idColumn, String accountColumn, String amountColumn, String statusColumn) {
+        if (criteria.getAccountNo() != null && !criteria.getAccountNo().isBlank()) {
+            jpql.append(" and ").append(accountColumn).append(" = :accountNo");
+            params.put("accountNo", criteria.getAccountNo().trim());
+        }
+        if (criteria.getFromDate() != null) {
+            jpql.append(" and ").append(dateColumn).append(" >= :fromDate");
+            params.put("fromDate", criteria.getFromDate());
+        }
+        if (criteria.getToDate() != null) {
+            jpql.append(" and ").append(dateColumn).append(" <= :toDate");
+            params.put("toDate", criteria.getToDate());
+        }
+        if (criteria.getMinAmount() != null) {
+            jpql.append(" and ").append(amountColumn).append(" >= :minAmount");
+            params.put("minAmount", criteria.getMinAmount());
+        }
+        if (criteria.getMaxAmount() != null) {
+            jpql.append(" and ").append(amountColumn).append(" <= :maxAmount");
+            params.put("maxAmount", criteria.getMaxAmount());
+        }
+        if (statusColumn != null && criteria.getStatus() != null && !criteria.getStatus().isBlank()) {
+            jpql.append(" and ").append(statusColumn).append(" = :status");
+            params.put("status", criteria.getStatus().trim());
+        }
+        if (criteria.getAfterDate() != null) {
+            // Row-value comparison so PostgreSQL seeks the (date, id) index to the cursor
+            jpql.append(" and (").append(dateColumn).append(", ").append(idColumn).append(") > (:afterDate, :afterId)");
+            params.put("afterDate", criteria.getAfterDate());
+            params.put("afterId", criteria.getAfterId() != null ? criteria.getAfterId() : 0L);
+        }
+        jpql.append(" order by ").append(dateColumn).append(", ").append(idColumn);
+    }
+
+    /**
+     * Stream the page as {"items":[...],"nextCursor":{"afterDate":..,"afterId":..}}; nextCursor is null
+     * on the last page.
+     */
+    private <T> void writePage(TypedQuery<T> query, Map<String, Object> params, int limit, OutputStream out,
+                               Function<T, LocalDate> dateOf, Function<T, Long> idOf) throws IOException {
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        query.setHint("org.hibernate.fetchSize", FETCH_SIZE);
+        query.setHint("org.hibernate.readOnly", true);
+
+        int count = 0;
+        T last = null;
+        try (JsonGenerator generator = objectMapper.createGenerator(out);
+             Stream<T> rows = query.getResultStream()) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("items");
+            for (T row : (Iterable<T>) rows::iterator) {
+                generator.writeObject(row);
+                last = row;
+                count++;
+            }
+            generator.writeEndArray();
+            if (count == limit && last != null) {
+                generator.writeObjectFieldStart("nextCursor");
+                generator.writeObjectField("afterDate", dateOf.apply(last));
+                generator.writeNumberField("afterId", idOf.apply(last));
+                generator.writeEndObject();
+            } else {
+                generator.writeNullField("nextCursor");
+            }
+            generator.writeEndObject();
+        }
+        log.debug("Streamed {} transaction row(s) (limit={})", count, limit);
+    }
+}
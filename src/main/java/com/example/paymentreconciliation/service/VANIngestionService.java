@@ -4,7 +4,9 @@ import com.shared.utilities.logger.LoggerFactoryProvider;
 import org.slf4j.Logger;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * VAN Ingestion Service
@@ -12,8 +14,8 @@ import java.util.List;
  */
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import com.example.paymentreconciliation.config.VANIngestionProperties;
+import com.example.paymentreconciliation.jfr.ParseEvent;
 
 import com.example.paymentreconciliation.entity.*;
 import com.example.paymentreconciliation.repository.*;
@@ -24,13 +26,22 @@ public class VANIngestionService extends BaseIngestionService {
     @Autowired
     private ImportRunRepository importRunRepository;
     @Autowired
+    private VANTransactionWriter vanTransactionWriter;
+    @Autowired
     private VANTransactionRepository vanTransactionRepository;
     @Autowired
-    private ImportErrorRepository importErrorRepository;
+    private ImportErrorWriter importErrorWriter;
+    @Autowired
+    private FileHashRegistry fileHashRegistry;
 
     @Autowired
     private VANIngestionProperties vanProps;
 
+    @Override
+    protected String getFileType() {
+        return "VAN";
+    }
+
     @Override
     protected String getInboxDir() {
         return vanProps.getInboxDir();
@@ -61,18 +72,11 @@ public class VANIngestionService extends BaseIngestionService {
      */
     @Override
     public void pollAndProcessInbox() {
+        recoverProcessingDir();
         log.info("Polling VAN inbox directory: {}", vanProps.getInboxDir());
         List<File> files = discoverStableFiles(vanProps.getInboxDir());
         log.info("Discovered {} stable file(s) for ingestion", files.size());
-        for (File file : files) {
-            try {
-                log.info("Processing file: {}", file.getAbsolutePath());
-                processFile(file);
-            } catch (Exception e) {
-                log.error("Error processing file: {}. Moving to quarantine. Error: {}", file.getAbsolutePath(), e.getMessage(), e);
-                moveToQuarantine(file, "Unhandled error: " + e.getMessage());
-            }
-        }
+        processInboxFiles(files);
     }
 
     /**
@@ -83,8 +87,22 @@ public class VANIngestionService extends BaseIngestionService {
         log.info("Starting processing for file: {}", file.getAbsolutePath());
         File processingFile = moveToProcessing(file);
         log.debug("Moved file to processing: {}", processingFile.getAbsolutePath());
-        if (processingFile.length() > MAX_FILE_SIZE_BYTES) {
+        processInProcessing(processingFile, false);
+    }
+
+    /**
+     * Resume a file left in PROCESSING by a crashed run: a finished ImportRun only needs its file
+     * moved, an unfinished one continues after its last committed chunk.
+     */
+    @Override
+    protected void recoverProcessingFile(File processingFile) {
+        processInProcessing(processingFile, true);
+    }
+
+    private void processInProcessing(File processingFile, boolean recovering) {
+        if (exceedsMaxFileSize(processingFile)) {
             log.warn("File exceeds max size policy ({} bytes): {}", processingFile.length(), processingFile.getAbsolutePath());
+            recordOutcome("quarantined");
             moveToQuarantine(processingFile, "File exceeds max size policy");
             return;
         }
@@ -92,35 +110,98 @@ public class VANIngestionService extends BaseIngestionService {
         String fileHash = computeSha256(processingFile);
         log.debug("Computed SHA-256 hash for file {}: {}", processingFile.getName(), fileHash);
         long fileSize = processingFile.length();
-        if (isDuplicate(fileHash)) {
-            log.warn("Duplicate file detected: {} (hash={})", processingFile.getName(), fileHash);
+        if (!fileHashRegistry.tryClaim(fileHash)) {
+            log.warn("File with identical content is already being ingested: {} (hash={})", processingFile.getName(), fileHash);
+            recordOutcome("duplicate");
             moveToArchive(processingFile);
             return;
         }
 
-        ImportRun importRun = createImportRun(processingFile.getName(), fileHash, fileSize);
-
         try {
-            log.info("Parsing and persisting VAN file: {}", processingFile.getAbsolutePath());
-            parseValidatePersist(processingFile, importRun);
+            // Checked while holding the claim: a worker that finished this content has marked it known before releasing
+            if (!recovering && isDuplicate(fileHash)) {
+                log.warn("Duplicate file detected: {} (hash={})", processingFile.getName(), fileHash);
+                recordOutcome("duplicate");
+                moveToArchive(processingFile);
+                return;
+            }
+            // An interrupted run is resumed whether the file was recovered or dropped again
+            ImportRun existing = importRunRepository.findByFileHash(fileHash)
+                    .filter(run -> recovering || interrupted(run))
+                    .orElse(null);
+            if (existing != null) {
+                fileHashRegistry.markKnown(fileHash, existing.getId());
+                if (!interrupted(existing) && existing.getStatus() == ImportRun.Status.FAILED) {
+                    log.info("VAN file failed before restart: {}. Moving to quarantine.", processingFile.getAbsolutePath());
+                    recordOutcome("quarantined");
+                    moveToQuarantine(processingFile, "One or more statements failed to import");
+                    return;
+                }
+                if (!interrupted(existing) && existing.getStatus() != ImportRun.Status.NEW && existing.getStatus() != ImportRun.Status.PARSED) {
+                    log.info("VAN file finished before restart: {} (status={}). Moving to archive.", processingFile.getAbsolutePath(), existing.getStatus());
+                    recordOutcome("imported");
+                    moveToArchive(processingFile);
+                    return;
+                }
+                log.info("Resuming VAN file: {} (importRun={}, checkpoint={})", processingFile.getAbsolutePath(), existing.getId(), existing.getCheckpointOffset());
+            }
+            ImportRun importRun = existing != null ? existing : createImportRun(processingFile.getName(), fileHash, fileSize);
+
+            // Rows are always streamed; the permit only bounds how many files hold chunks in memory at once
+            try (IngestionAdmissionController.Permit permit = admissionController.admit(getFileType(), fileSize)) {
+                log.info("Parsing and persisting VAN file: {}", processingFile.getAbsolutePath());
+                parseValidatePersist(processingFile, importRun);
+            } catch (Exception e) {
+                log.warn("Processing failed for file: {}. Moving to quarantine.", processingFile.getAbsolutePath(), e);
+                if (importRun.getStatus() == ImportRun.Status.NEW || importRun.getStatus() == ImportRun.Status.PARSED) {
+                    // Failed before any row was read; a failure while reading already finished the run as interrupted
+                    importRun.setStatus(ImportRun.Status.FAILED);
+                    importRun.setErrorMessage(e.getMessage());
+                    ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+                }
+                persistImportError(importRun, "UNHANDLED", "Unhandled error during VAN ingest: " + e.getMessage(), null);
+                importErrorWriter.finishRun(importRun.getId());
+                // An interrupted run must not be remembered as imported; later lookups go to import_run
+                fileHashRegistry.forget(fileHash);
+                recordOutcome("quarantined");
+                moveToQuarantine(processingFile, "One or more statements failed to import");
+                return;
+            }
+            // Outside the try: the run is committed, so an archive failure must not mark it failed
             log.info("Successfully processed file: {}. Moving to archive.", processingFile.getAbsolutePath());
+            recordOutcome("imported");
             moveToArchive(processingFile);
-        } catch (Exception e) {
-            log.warn("Processing failed for file: {}. Moving to quarantine.", processingFile.getAbsolutePath(), e);
-            importRun.setStatus(ImportRun.Status.FAILED);
-            importRun.setErrorMessage(e.getMessage());
-            importRunRepository.save(importRun);
-            persistImportError(importRun, "UNHANDLED", "Unhandled error during VAN ingest: " + e.getMessage(), null);
-            moveToQuarantine(processingFile, "One or more statements failed to import");
+        } finally {
+            fileHashRegistry.release(fileHash);
         }
     }
 
     /**
-     * Check DB for existing file hash.
+     * Check for an existing file hash: known hashes are rejected from the in-process registry,
+     * unknown hashes fall back to import_run.file_hash (covers files imported by other replicas).
      */
     private boolean isDuplicate(String fileHash) {
         log.debug("Checking for duplicate file hash: {}", fileHash);
-        return importRunRepository.findByFileHash(fileHash).isPresent();
+        if (fileHashRegistry.isKnown(fileHash)) {
+            return true;
+        }
+        java.util.Optional<ImportRun> existing = importRunRepository.findByFileHash(fileHash);
+        if (existing.isPresent() && interrupted(existing.get())) {
+            // Not a duplicate: ingesting the same content again resumes that run
+            return false;
+        }
+        existing.ifPresent(run -> fileHashRegistry.markKnown(fileHash, run.getId()));
+        return existing.isPresent();
+    }
+
+    /**
+     * A run whose file could not be read to the end (see parseValidatePersist). Its hash stays on
+     * import_run, so the same content dropped again resumes the run after its checkpoint instead of
+     * being rejected as a duplicate.
+     */
+    private boolean interrupted(ImportRun run) {
+        return getFileType().equals(run.getFileType()) && run.getTotalRecords() == null
+                && (run.getStatus() == ImportRun.Status.FAILED || run.getStatus() == ImportRun.Status.PARTIAL);
     }
 
     private ImportRun createImportRun(String filename, String fileHash, long fileSize) {
@@ -129,85 +210,134 @@ public class VANIngestionService extends BaseIngestionService {
         importRun.setFileHash(fileHash);
         importRun.setFileSizeBytes(fileSize);
         importRun.setReceivedAt(java.time.LocalDateTime.now());
-        importRun.setFileType("VAN");
+        importRun.setFileType(getFileType());
         importRun.setStatus(ImportRun.Status.NEW);
-        return importRunRepository.save(importRun);
+        ImportRun saved = ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+        fileHashRegistry.markKnown(fileHash, saved.getId());
+        return saved;
     }
 
     /**
-     * Parse, validate, and persist all transactions in a DB transaction.
+     * Validated rows handed to the persist stage as one chunk, with the file row offset of each row.
      */
-    private void parseValidatePersist(File csvFile, ImportRun importRun) {
-        log.debug("Parsing and validating VAN file: {}", csvFile.getAbsolutePath());
-        VANParser parser = new VANParser();
-        List<VANParser.VANTransactionData> transactions;
-        try {
-            transactions = parser.parse(csvFile);
-        } catch (VANParser.VANParseException e) {
-            throw new RuntimeException("VAN parse error: " + e.getMessage(), e);
-        }
-        persistParsedTransactions(transactions, csvFile.getName(), importRun);
+    private static final class Chunk {
+        final List<VANParser.VANTransactionData> rows = new ArrayList<>(PERSIST_CHUNK_SIZE);
+        final List<Integer> offsets = new ArrayList<>(PERSIST_CHUNK_SIZE);
     }
 
-    @Transactional
-    public void persistParsedTransactions(List<VANParser.VANTransactionData> transactions, String filename, ImportRun importRun) {
-        log.info("Persisting parsed transactions for file: {} (hash={})", filename, importRun.getFileHash());
+    /**
+     * Stream the CSV through parse and validate on this thread and hand chunks of PERSIST_CHUNK_SIZE
+     * rows to the persist stage (see {@link IngestionPipeline}), one transaction per chunk
+     * (see {@link VANTransactionWriter}), so partial files commit and ImportRun status reflects reality.
+     * Each chunk commit also advances ImportRun.checkpointOffset, so a resumed run skips committed rows.
+     * If the file cannot be read to the end, the run is finished as FAILED or PARTIAL with what was
+     * committed, its total left unset to mark it interrupted, and the failure rethrown.
+     */
+    private void parseValidatePersist(File csvFile, ImportRun importRun) {
+        log.info("Persisting parsed transactions for file: {} (hash={})", csvFile.getName(), importRun.getFileHash());
         importRun.setStatus(ImportRun.Status.PARSED);
         importRun.setErrorMessage(null);
-        importRunRepository.save(importRun);
-
-        int totalRecords = transactions.size();
-        int processedRecords = 0;
-        int failedRecords = 0;
-
-        for (VANParser.VANTransactionData txn : transactions) {
-            // Basic validation
-            if (txn.mainAccountNumber == null || txn.mainAccountNumber.trim().isEmpty()) {
-                log.error("Missing main account number. Skipping transaction: {}", txn);
-                persistImportError(importRun, "VALIDATION", "Missing main account number", null);
-                failedRecords++;
-                continue;
-            }
-            if (txn.virtualAccountNumber == null || txn.virtualAccountNumber.trim().isEmpty()) {
-                log.error("Missing virtual account number. Skipping transaction: {}", txn);
-                persistImportError(importRun, "VALIDATION", "Missing virtual account number", null);
-                failedRecords++;
-                continue;
-            }
-            if (txn.amount == null || txn.amount.compareTo(java.math.BigDecimal.ZERO) <= 0) {
-                log.error("Invalid amount. Skipping transaction: {}", txn);
-                persistImportError(importRun, "VALIDATION", "Invalid amount", null);
-                failedRecords++;
-                continue;
-            }
+        ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int start = importRun.getCheckpointOffset() != null ? importRun.getCheckpointOffset() : 0;
+        // Mirrors the checkpoint each chunk commit writes, so saving the run does not move it back
+        AtomicInteger checkpoint = new AtomicInteger(start);
+        if (start > 0) {
+            processed.set((int) vanTransactionRepository.countByImportRun(importRun));
+            failed.set(start - processed.get());
+            log.info("Resuming import run {} at row {}", importRun.getId(), start);
+        }
+
+        IngestionPipeline.PersistLane<Chunk> lane = ingestionPipeline.openPersistLane(getFileType(), chunk -> {
+            int persisted = flushChunk(importRun, chunk.rows, chunk.offsets);
+            processed.addAndGet(persisted);
+            failed.addAndGet(chunk.rows.size() - persisted);
+            // Rows that failed on their own are recorded as import errors and not retried on resume
+            checkpoint.set(chunk.offsets.get(chunk.offsets.size() - 1) + 1);
+        });
+        VANParser parser = new VANParser();
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
+        int totalRecords;
+        RuntimeException interruption = null;
+        try {
+            Chunk[] chunk = {new Chunk()};
+            totalRecords = ingestionMetrics.time("parse", getFileType(), () -> {
+                try {
+                    return parser.parse(csvFile, new VANParser.RowHandler() {
+                        @Override
+                        public void onRow(int rowIndex, VANParser.VANTransactionData txn) {
+                            heartbeat();
+                            if (rowIndex < start) {
+                                return;
+                            }
+                            String validationError = ingestionMetrics.time("validation", getFileType(), () -> validateTransaction(txn));
+                            if (validationError != null) {
+                                log.error("{}. Skipping transaction: {}", validationError, txn);
+                                persistImportError(importRun, "VALIDATION", validationError, rowIndex + 2);
+                                failed.incrementAndGet();
+                                return;
+                            }
+                            chunk[0].rows.add(txn);
+                            chunk[0].offsets.add(rowIndex);
+                            if (chunk[0].rows.size() >= PERSIST_CHUNK_SIZE) {
+                                // Blocks while the persist stage is behind
+                                lane.submit(chunk[0]);
+                                chunk[0] = new Chunk();
+                            }
+                        }
 
-            // Persist transaction
-            processedRecords++;
-            VANTransaction vanTxn = new VANTransaction();
-            vanTxn.setImportRun(importRun);
-            vanTxn.setMainAccountNumber(txn.mainAccountNumber);
-            vanTxn.setVirtualAccountNumber(txn.virtualAccountNumber);
-            vanTxn.setTransactionReferenceNumber(txn.transactionReferenceNumber);
-            vanTxn.setBankReferenceTraceId(txn.bankReferenceTraceId);
-            vanTxn.setRemitterName(txn.remitterName);
-            vanTxn.setRemitterAccountNumber(txn.remitterAccountNumber);
-            vanTxn.setRemitterIfscBankName(txn.remitterIfscBankName);
-            vanTxn.setRemitterVpa(txn.remitterVpa);
-            vanTxn.setTransactionDate(txn.transactionDate);
-            vanTxn.setValueDate(txn.valueDate);
-            vanTxn.setAmount(txn.amount);
-            vanTxn.setModeChannel(txn.modeChannel);
-            vanTxn.setPaymentDescriptionNarration(txn.paymentDescriptionNarration);
-            vanTxn.setPaymentStatus(txn.paymentStatus);
-            vanTxn.setMappedCustomerIdCode(txn.mappedCustomerIdCode);
-            vanTxn.setInvoiceReferenceId(txn.invoiceReferenceId);
-            vanTxn.setDateTimeOfCredit(txn.dateTimeOfCredit);
-            vanTxn.setBranchBankCode(txn.branchBankCode);
-            vanTxn.setCreatedAt(java.time.LocalDateTime.now());
-            vanTransactionRepository.save(vanTxn);
+                        @Override
+                        public void onError(int rowIndex, String message) {
+                            if (rowIndex < start) {
+                                return;
+                            }
+                            persistImportError(importRun, "PARSING_ERROR", "Unreadable row: " + message, rowIndex + 2);
+                            failed.incrementAndGet();
+                        }
+                    });
+                } catch (VANParser.VANParseException e) {
+                    throw new RuntimeException("VAN parse error: " + e.getMessage(), e);
+                }
+            });
+            if (!chunk[0].rows.isEmpty()) {
+                lane.submit(chunk[0]);
+            }
+        } catch (RuntimeException e) {
+            interruption = e;
+            totalRecords = -1;
+        } finally {
+            lane.close();
+        }
+        if (interruption != null) {
+            importErrorWriter.finishRun(importRun.getId());
+            // Left at the last committed chunk, where a re-drop resumes
+            importRun.setCheckpointOffset(checkpoint.get());
+            importRun.setProcessedRecords(processed.get());
+            importRun.setFailedRecords(failed.get());
+            importRun.setStatus(processed.get() > 0 ? ImportRun.Status.PARTIAL : ImportRun.Status.FAILED);
+            importRun.setErrorMessage(interruption.getMessage());
+            ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+            throw interruption;
         }
+        if (parseEvent.shouldCommit()) {
+            parseEvent.fileType = getFileType();
+            parseEvent.documentName = csvFile.getName();
+            parseEvent.fileHash = importRun.getFileHash();
+            parseEvent.bytes = csvFile.length();
+            parseEvent.recordCount = totalRecords;
+            parseEvent.commit();
+        }
+        int processedRecords = processed.get();
+        int failedRecords = failed.get();
+
+        // Errors are written before the run turns terminal
+        importErrorWriter.finishRun(importRun.getId());
 
         // Update ImportRun with counts and final status
+        importRun.setCheckpointOffset(totalRecords);
         importRun.setTotalRecords(totalRecords);
         importRun.setProcessedRecords(processedRecords);
         importRun.setFailedRecords(failedRecords);
@@ -218,11 +348,55 @@ public class VANIngestionService extends BaseIngestionService {
         } else {
             importRun.setStatus(ImportRun.Status.FAILED);
         }
-        importRunRepository.save(importRun);
+        ingestionMetrics.time("write.import_run", getFileType(), () -> importRunRepository.save(importRun));
+        ingestionMetrics.recordRecords(getFileType(), "processed", processedRecords);
+        ingestionMetrics.recordRecords(getFileType(), "failed", failedRecords);
+    }
+
+    /**
+     * Validate a parsed row. Returns the validation error message, or null if the row is valid.
+     */
+    private String validateTransaction(VANParser.VANTransactionData txn) {
+        if (txn.mainAccountNumber == null || txn.mainAccountNumber.trim().isEmpty()) {
+            return "Missing main account number";
+        }
+        if (txn.virtualAccountNumber == null || txn.virtualAccountNumber.trim().isEmpty()) {
+            return "Missing virtual account number";
+        }
+        if (txn.amount == null || txn.amount.compareTo(java.math.BigDecimal.ZERO) <= 0) {
+            return "Invalid amount";
+        }
+        return null;
+    }
+
+    /**
+     * Write a chunk in one transaction. If the chunk fails, retry its rows one transaction each so
+     * only the offending rows are lost. Returns the number of rows persisted.
+     */
+    private int flushChunk(ImportRun importRun, List<VANParser.VANTransactionData> chunk, List<Integer> offsets) {
+        int checkpoint = offsets.get(offsets.size() - 1) + 1;
+        try {
+            vanTransactionWriter.writeChunk(importRun, chunk, checkpoint);
+            return chunk.size();
+        } catch (RuntimeException chunkError) {
+            log.warn("Chunk of {} VAN rows failed, retrying row by row. Error: {}", chunk.size(), chunkError.getMessage());
+        }
+        int persisted = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            VANParser.VANTransactionData txn = chunk.get(i);
+            try {
+                vanTransactionWriter.writeChunk(importRun, List.of(txn), offsets.get(i) + 1);
+                persisted++;
+            } catch (RuntimeException e) {
+                log.error("Failed to persist VAN transaction: {}. Error: {}", txn.transactionReferenceNumber, e.getMessage());
+                persistImportError(importRun, "PERSISTENCE_ERROR", "Failed to persist transaction " + txn.transactionReferenceNumber + ": " + e.getMessage(), null);
+            }
+        }
+        return persisted;
     }
 
     /**
-     * Persist import error details.
+     * Queue import error details on the asynchronous {@link ImportErrorWriter}.
      */
     private void persistImportError(ImportRun importRun, String code, String errorMsg, Integer lineNo) {
         if (importRun == null) {
@@ -230,11 +404,6 @@ public class VANIngestionService extends BaseIngestionService {
             return;
         }
 
-        ImportError error = new ImportError();
-        error.setImportRun(importRun);
-        error.setCode(code != null ? code : "VALIDATION_ERROR");
-        error.setMessage(errorMsg);
-        error.setLineNo(lineNo);
-        importErrorRepository.save(error);
+        importErrorWriter.submit(importRun, code != null ? code : "VALIDATION_ERROR", errorMsg, null, lineNo);
     }
 }
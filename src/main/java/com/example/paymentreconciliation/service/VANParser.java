@@ -16,6 +16,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class VANParser {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int DICTIONARY_SIZE = 8192;
 
     public static class VANParseException extends Exception {
         public VANParseException(String message) {
@@ -23,38 +26,86 @@ public class VANParser {
         }
     }
 
+    /**
+     * Receives rows as they are read. rowIndex is the zero-based data row (header excluded).
+     */
+    public interface RowHandler {
+        void onRow(int rowIndex, VANTransactionData data);
+
+        /**
+         * A row that could not be mapped (bad date, amount, missing column); parsing continues.
+         */
+        void onError(int rowIndex, String message);
+    }
+
     public List<VANTransactionData> parse(File csvFile) throws VANParseException {
         List<VANTransactionData> transactions = new ArrayList<>();
+        parse(csvFile, new RowHandler() {
+            @Override
+            public void onRow(int rowIndex, VANTransactionData data) {
+                transactions.add(data);
+            }
+
+            @Override
+            public void onError(int rowIndex, String message) {
+                throw new IllegalArgumentException("Invalid VAN row " + (rowIndex + 1) + ": " + message);
+            }
+        });
+        return transactions;
+    }
+
+    /**
+     * Stream the CSV row by row into the handler without holding the file in memory.
+     * Returns the number of data rows read.
+     */
+    public int parse(File csvFile, RowHandler handler) throws VANParseException {
+        int rowIndex = 0;
+        StringDictionary dictionary = new StringDictionary(DICTIONARY_SIZE);
         try (FileReader reader = new FileReader(csvFile);
              CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
 
             for (CSVRecord record : csvParser) {
-                VANTransactionData data = new VANTransactionData();
-                // Assuming CSV headers match the field names, adjust as needed
-                data.mainAccountNumber = record.get("Main Account Number");
-                data.virtualAccountNumber = record.get("Virtual Account Number (VAN)");
-                data.transactionReferenceNumber = record.get("Transaction Reference Number");
-                data.bankReferenceTraceId = record.get("Bank Reference / Trace ID");
-                data.remitterName = record.get("Remitter Name");
-                data.remitterAccountNumber = record.get("Remitter Account Number");
-                data.remitterIfscBankName = record.get("Remitter IFSC / Bank Name");
-                data.remitterVpa = record.get("Remitter VPA");
-                data.transactionDate = LocalDate.parse(record.get("Transaction Date"), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                data.valueDate = LocalDate.parse(record.get("Value Date"), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                data.amount = new BigDecimal(record.get("Amount (INR)"));
-                data.modeChannel = record.get("Mode / Channel");
-                data.paymentDescriptionNarration = record.get("Payment Description / Narration");
-                data.paymentStatus = record.get("Payment Status");
-                data.mappedCustomerIdCode = record.get("Mapped Customer ID / Code");
-                data.invoiceReferenceId = record.get("Invoice / Reference ID");
-                data.dateTimeOfCredit = LocalDateTime.parse(record.get("Date & Time of Credit"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                data.branchBankCode = record.get("Branch / Bank Code");
-                transactions.add(data);
+                VANTransactionData data;
+                try {
+                    data = toTransaction(record, dictionary);
+                } catch (RuntimeException e) {
+                    handler.onError(rowIndex++, e.getMessage());
+                    continue;
+                }
+                handler.onRow(rowIndex++, data);
             }
         } catch (IOException e) {
             throw new VANParseException("Failed to parse CSV file: " + e.getMessage());
         }
-        return transactions;
+        return rowIndex;
+    }
+
+    /**
+     * Low-cardinality columns (accounts, IFSC/bank, channel, status, customer and branch codes) go
+     * through the per-file dictionary so rows share one String per distinct value.
+     */
+    private VANTransactionData toTransaction(CSVRecord record, StringDictionary dictionary) {
+        VANTransactionData data = new VANTransactionData();
+        // Assuming CSV headers match the field names, adjust as needed
+        data.mainAccountNumber = dictionary.canonical(record.get("Main Account Number"));
+        data.virtualAccountNumber = dictionary.canonical(record.get("Virtual Account Number (VAN)"));
+        data.transactionReferenceNumber = record.get("Transaction Reference Number");
+        data.bankReferenceTraceId = record.get("Bank Reference / Trace ID");
+        data.remitterName = record.get("Remitter Name");
+        data.remitterAccountNumber = record.get("Remitter Account Number");
+        data.remitterIfscBankName = dictionary.canonical(record.get("Remitter IFSC / Bank Name"));
+        data.remitterVpa = record.get("Remitter VPA");
+        data.transactionDate = LocalDate.parse(record.get("Transaction Date"), DATE_FORMAT);
+        data.valueDate = LocalDate.parse(record.get("Value Date"), DATE_FORMAT);
+        data.amount = new BigDecimal(record.get("Amount (INR)"));
+        data.modeChannel = dictionary.canonical(record.get("Mode / Channel"));
+        data.paymentDescriptionNarration = record.get("Payment Description / Narration");
+        data.paymentStatus = dictionary.canonical(record.get("Payment Status"));
+        data.mappedCustomerIdCode = dictionary.canonical(record.get("Mapped Customer ID / Code"));
+        data.invoiceReferenceId = record.get("Invoice / Reference ID");
+        data.dateTimeOfCredit = LocalDateTime.parse(record.get("Date & Time of Credit"), DATE_TIME_FORMAT);
+        data.branchBankCode = dictionary.canonical(record.get("Branch / Bank Code"));
+        return data;
     }
 
     public static class VANTransactionData {
@@ -0,0 +1,75 @@
+package com.example.paymentreconciliation.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.entity.VANTransaction;
+import com.example.paymentreconciliation.jfr.BatchFlushEvent;
+import com.example.paymentreconciliation.repository.ImportRunRepository;
+import com.example.paymentreconciliation.repository.VANTransactionRepository;
+
+/**
+ * Persists validated VAN rows one chunk per transaction.
+ * Kept as a separate bean so the transactional proxy applies to calls from VANIngestionService.
+ */
+@Service
+public class VANTransactionWriter {
+    @Autowired
+    private VANTransactionRepository vanTransactionRepository;
+    @Autowired
+    private ImportRunRepository importRunRepository;
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+    @Autowired
+    private OutboxService outboxService;
+
+    /**
+     * Persist a chunk of validated rows in a new transaction and flush them as one batch,
+     * advancing the run's checkpoint to the row offset after the chunk in the same transaction.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void writeChunk(ImportRun importRun, List<VANParser.VANTransactionData> chunk, int checkpoint) {
+        List<VANTransaction> entities = new ArrayList<>(chunk.size());
+        for (VANParser.VANTransactionData txn : chunk) {
+            VANTransaction vanTxn = new VANTransaction();
+            vanTxn.setImportRun(importRun);
+            vanTxn.setMainAccountNumber(txn.mainAccountNumber);
+            vanTxn.setVirtualAccountNumber(txn.virtualAccountNumber);
+            vanTxn.setTransactionReferenceNumber(txn.transactionReferenceNumber);
+            vanTxn.setBankReferenceTraceId(txn.bankReferenceTraceId);
+            vanTxn.setRemitterName(txn.remitterName);
+            vanTxn.setRemitterAccountNumber(txn.remitterAccountNumber);
+            vanTxn.setRemitterIfscBankName(txn.remitterIfscBankName);
+            vanTxn.setRemitterVpa(txn.remitterVpa);
+            vanTxn.setTransactionDate(txn.transactionDate);
+            vanTxn.setValueDate(txn.valueDate);
+            vanTxn.setAmount(txn.amount);
+            vanTxn.setModeChannel(txn.modeChannel);
+            vanTxn.setPaymentDescriptionNarration(txn.paymentDescriptionNarration);
+            vanTxn.setPaymentStatus(txn.paymentStatus);
+            vanTxn.setMappedCustomerIdCode(txn.mappedCustomerIdCode);
+            vanTxn.setInvoiceReferenceId(txn.invoiceReferenceId);
+            vanTxn.setDateTimeOfCredit(txn.dateTimeOfCredit);
+            vanTxn.setBranchBankCode(txn.branchBankCode);
+            vanTxn.setCreatedAt(java.time.LocalDateTime.now());
+            entities.add(vanTxn);
+        }
+        BatchFlushEvent flushEvent = new BatchFlushEvent();
+        flushEvent.begin();
+        ingestionMetrics.time("write.van_transaction", "VAN", () -> vanTransactionRepository.saveAll(entities));
+        outboxService.vanTransactionsImported(entities);
+        if (flushEvent.shouldCommit()) {
+            flushEvent.entity = "van_transaction";
+            flushEvent.fileHash = importRun.getFileHash();
+            flushEvent.rowCount = entities.size();
+            flushEvent.commit();
+        }
+        importRunRepository.updateCheckpoint(importRun.getId(), checkpoint);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.paymentreconciliation.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.paymentreconciliation.config.OutboxProperties;
+import com.example.paymentreconciliation.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * POSTs each batch as a JSON array to outbox.webhook-url. Any non-2xx response fails the batch; a 4xx
+ * other than 408, 425 or 429 rejects it. The Idempotency-Key header carries the batch's first and last
+ * event ids.
+ */
+@Component
+public class WebhookOutboxSink implements OutboxSink {
+    @Autowired
+    private OutboxProperties props;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        if (props.getWebhookUrl() == null || props.getWebhookUrl().isBlank()) {
+            throw new IllegalStateException("outbox.webhook-url is not configured");
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(events.size() * 512);
+        try {
+            OutboxSink.writeBatch(objectMapper.getFactory(), events, body);
+        } catch (IOException e) {
+            throw new RejectedException("Could not serialise outbox batch: " + e.getMessage(), e);
+        }
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(props.getWebhookUrl()))
+                    .timeout(Duration.ofSeconds(props.getWebhookTimeoutSeconds()))
+                    .header("Content-Type", "application/json")
+                    .header("Idempotency-Key", events.get(0).getId() + "-" + events.get(events.size() - 1).getId())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status / 100 == 4 && status != 408 && status != 425 && status != 429) {
+                throw new RejectedException("Webhook returned HTTP " + status + ": " + response.body(), null);
+            }
+            if (status / 100 != 2) {
+                throw new RuntimeException("Webhook returned HTTP " + status + ": " + response.body());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Webhook publish failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted publishing to webhook", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+-- Pooled id sequences for the bulk-inserted tables (statement_transaction, transaction_86_segment,
+-- van_transaction, import_error). Hibernate cannot batch inserts into IDENTITY columns; with these sequences it
+-- reserves 50 ids per nextval and sends each saveAll as JDBC batches of hibernate.jdbc.batch_size.
+-- Hibernate creates the sequences where ddl-auto is "update"; apply this script manually where it is
+-- "none"/"validate" (dev, prod), with ingestion stopped. INCREMENT BY must match allocationSize (50).
+-- The application supplies every id from here on; the identity defaults on the id columns are unused.
+-- Run before db/partitioning.sql, which checks for these sequences and re-seeds them after copying rows.
+
+DO $$
+DECLARE
+    t record;
+BEGIN
+    FOR t IN
+        SELECT * FROM (VALUES ('statement_transaction', 'statement_transaction_seq'),
+                              ('transaction_86_segment', 'transaction_86_segment_seq'),
+                              ('van_transaction', 'van_transaction_seq'),
+                              ('import_error', 'import_error_seq')) AS v(tbl, seq)
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS payment_flow.%I INCREMENT BY 50', t.seq);
+        -- The first block handed out starts above every existing id
+        EXECUTE format('SELECT setval(''payment_flow.%I'', (SELECT COALESCE(max(id), 0) FROM payment_flow.%I) + 50)',
+                       t.seq, t.tbl);
+    END LOOP;
+END $$;
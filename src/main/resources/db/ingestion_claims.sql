@@ -0,0 +1,25 @@
+-- Multi-node inbox claims (ingestion_claim) and the import checkpoint used to resume interrupted imports.
+-- Hibernate creates the table and column where ddl-auto is "update"; apply this script manually where it is
+-- "none"/"validate" (dev, prod).
+
+CREATE TABLE IF NOT EXISTS ingestion_claim (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    file_type        VARCHAR(16)   NOT NULL,
+    file_path        VARCHAR(1024) NOT NULL,
+    file_size_bytes  BIGINT        NOT NULL,
+    file_mtime       TIMESTAMP     NOT NULL,
+    status           VARCHAR(16)   NOT NULL,
+    owner            VARCHAR(128),
+    processing_path  VARCHAR(1024),
+    lease_expires_at TIMESTAMP,
+    claimed_at       TIMESTAMP,
+    created_at       TIMESTAMP     NOT NULL,
+    CONSTRAINT uq_ingestion_claim UNIQUE (file_type, file_path, file_size_bytes, file_mtime)
+);
+
+-- Recovery looks claims up by the GUID-suffixed path the file was moved to in PROCESSING
+CREATE INDEX IF NOT EXISTS idx_ingestion_claim_processing_path
+    ON ingestion_claim (processing_path);
+
+-- Records fully handled by an import run, written with each committed chunk
+ALTER TABLE import_run ADD COLUMN IF NOT EXISTS checkpoint_offset INTEGER;
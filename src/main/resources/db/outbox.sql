@@ -0,0 +1,39 @@
+-- Transactional outbox / change feed (outbox.enabled).
+-- Hibernate creates the table where ddl-auto is "update"; apply this script manually where it is
+-- "none"/"validate" (dev, prod).
+
+-- Ids come from a pooled sequence (OutboxEvent allocationSize 50) so the rows written alongside each
+-- statement or VAN chunk are inserted as JDBC batches. INCREMENT BY must match allocationSize.
+CREATE SEQUENCE IF NOT EXISTS outbox_event_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id               BIGINT PRIMARY KEY,
+    event_type       VARCHAR(64)  NOT NULL,
+    aggregate_type   VARCHAR(64)  NOT NULL,
+    aggregate_id     BIGINT       NOT NULL,
+    stream_key       VARCHAR(64)  NOT NULL,
+    payload          JSONB        NOT NULL,
+    created_at       TIMESTAMP    NOT NULL,
+    published_at     TIMESTAMP,
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    last_error       VARCHAR(1000),
+    dead_lettered_at TIMESTAMP
+);
+
+-- Tables created before dead-lettering
+ALTER TABLE outbox_event ADD COLUMN IF NOT EXISTS dead_lettered_at TIMESTAMP;
+
+-- Tables created with an identity id: the application now supplies every id, and the first block it
+-- takes from the sequence starts above every existing one. Run with the relay and ingestion stopped.
+ALTER TABLE outbox_event ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('outbox_event_seq', (SELECT COALESCE(max(id), 0) FROM outbox_event) + 50);
+
+-- Relay scan: seeks to published_at IS NULL and reads in id order. Same definition as on OutboxEvent;
+-- the drop replaces the partial (id) WHERE published_at IS NULL index older versions of this script created.
+-- Dead-lettered rows stay (published_at is null) until handled; clear dead_lettered_at to re-queue one.
+DROP INDEX IF EXISTS idx_outbox_unpublished;
+CREATE INDEX IF NOT EXISTS idx_outbox_unpublished
+    ON outbox_event (published_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_stream
+    ON outbox_event (stream_key, id);
@@ -0,0 +1,130 @@
+-- Convert statement_transaction and van_transaction to monthly range partitions.
+--   statement_transaction: PARTITION BY RANGE (value_date)
+--   van_transaction:       PARTITION BY RANGE (transaction_date)
+--
+-- One-off migration; run during a maintenance window with ingestion stopped. Afterwards
+-- PartitionMaintenanceService creates future partitions and detaches expired ones to
+-- payment_flow_archive on its schedule (partitioning.* properties).
+--
+-- Order: run db/id_sequences.sql first. Ids come from its pooled sequences (statement_transaction_seq,
+-- van_transaction_seq), which this script checks for and re-seeds above the copied ids; the
+-- partitioned tables get no identity default.
+--
+-- PostgreSQL requires the partition key in every primary key / unique constraint, so:
+--   * primary keys become (id, value_date) / (id, transaction_date); ids stay application-assigned
+--   * uq_txn_hash becomes (ext_idempotency_hash, value_date); value_date is part of the hash input
+--   * transaction_86_segment.statement_transaction_id loses its FK constraint
+
+BEGIN;
+
+CREATE SCHEMA IF NOT EXISTS payment_flow_archive;
+
+DO $$
+BEGIN
+    IF to_regclass('payment_flow.statement_transaction_seq') IS NULL
+            OR to_regclass('payment_flow.van_transaction_seq') IS NULL THEN
+        RAISE EXCEPTION 'Run db/id_sequences.sql before db/partitioning.sql';
+    END IF;
+END $$;
+
+-- Create monthly partitions <table>_pYYYYMM covering [from_month, to_month]
+CREATE OR REPLACE FUNCTION payment_flow.create_monthly_partitions(parent text, from_month date, to_month date)
+RETURNS void LANGUAGE plpgsql AS $$
+DECLARE
+    m date := date_trunc('month', from_month);
+BEGIN
+    WHILE m <= to_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS payment_flow.%I PARTITION OF payment_flow.%I FOR VALUES FROM (%L) TO (%L)',
+                       parent || '_p' || to_char(m, 'YYYYMM'), parent, m, (m + interval '1 month')::date);
+        m := (m + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Drop FKs that point at statement_transaction (Hibernate-generated names)
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT conrelid::regclass AS tbl, conname
+        FROM pg_constraint
+        WHERE contype = 'f' AND confrelid = 'payment_flow.statement_transaction'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tbl, fk.conname);
+    END LOOP;
+END $$;
+
+-- statement_transaction ------------------------------------------------------
+
+ALTER TABLE payment_flow.statement_transaction RENAME TO statement_transaction_legacy;
+ALTER TABLE payment_flow.statement_transaction_legacy RENAME CONSTRAINT uq_txn_hash TO uq_txn_hash_legacy;
+ALTER INDEX IF EXISTS payment_flow.idx_stmt_txn_value_date_id RENAME TO idx_stmt_txn_value_date_id_legacy;
+ALTER INDEX IF EXISTS payment_flow.idx_stmt_txn_file RENAME TO idx_stmt_txn_file_legacy;
+ALTER INDEX IF EXISTS payment_flow.idx_stmt_txn_file_date_id RENAME TO idx_stmt_txn_file_date_id_legacy;
+ALTER INDEX IF EXISTS payment_flow.idx_stmt_txn_bank_ref RENAME TO idx_stmt_txn_bank_ref_legacy;
+ALTER INDEX IF EXISTS payment_flow.idx_stmt_txn_cust_ref RENAME TO idx_stmt_txn_cust_ref_legacy;
+
+CREATE TABLE payment_flow.statement_transaction (
+    LIKE payment_flow.statement_transaction_legacy INCLUDING DEFAULTS INCLUDING STORAGE
+) PARTITION BY RANGE (value_date);
+
+ALTER TABLE payment_flow.statement_transaction
+    ADD CONSTRAINT statement_transaction_part_pkey PRIMARY KEY (id, value_date),
+    ADD CONSTRAINT uq_txn_hash UNIQUE (ext_idempotency_hash, value_date);
+CREATE INDEX idx_stmt_txn_value_date_id ON payment_flow.statement_transaction (value_date, id);
+CREATE INDEX idx_stmt_txn_file_date_id ON payment_flow.statement_transaction (statement_file_id, value_date, id);
+CREATE INDEX idx_stmt_txn_bank_ref ON payment_flow.statement_transaction (bank_reference, amount);
+CREATE INDEX idx_stmt_txn_cust_ref ON payment_flow.statement_transaction (customer_reference, amount);
+
+-- Catches out-of-range value dates so ingestion never fails on a missing partition
+CREATE TABLE payment_flow.statement_transaction_default PARTITION OF payment_flow.statement_transaction DEFAULT;
+
+SELECT payment_flow.create_monthly_partitions('statement_transaction',
+       COALESCE((SELECT min(value_date) FROM payment_flow.statement_transaction_legacy), current_date),
+       (current_date + interval '3 months')::date);
+
+INSERT INTO payment_flow.statement_transaction
+SELECT * FROM payment_flow.statement_transaction_legacy;
+
+-- As in db/id_sequences.sql: the next block of 50 starts above every copied id
+SELECT setval('payment_flow.statement_transaction_seq',
+              COALESCE((SELECT max(id) FROM payment_flow.statement_transaction), 0) + 50);
+
+-- van_transaction ------------------------------------------------------------
+
+ALTER TABLE payment_flow.van_transaction RENAME TO van_transaction_legacy;
+ALTER INDEX IF EXISTS payment_flow.idx_van_txn_date_id RENAME TO idx_van_txn_date_id_legacy;
+ALTER INDEX IF EXISTS payment_flow.idx_van_txn_account_date_id RENAME TO idx_van_txn_account_date_id_legacy;
+
+CREATE TABLE payment_flow.van_transaction (
+    LIKE payment_flow.van_transaction_legacy INCLUDING DEFAULTS INCLUDING STORAGE
+) PARTITION BY RANGE (transaction_date);
+
+ALTER TABLE payment_flow.van_transaction
+    ADD CONSTRAINT van_transaction_part_pkey PRIMARY KEY (id, transaction_date),
+    ADD FOREIGN KEY (import_run_id) REFERENCES payment_flow.import_run (id);
+CREATE INDEX idx_van_txn_date_id ON payment_flow.van_transaction (transaction_date, id);
+CREATE INDEX idx_van_txn_account_date_id ON payment_flow.van_transaction (main_account_number, transaction_date, id);
+CREATE INDEX idx_van_txn_import_run ON payment_flow.van_transaction (import_run_id);
+
+CREATE TABLE payment_flow.van_transaction_default PARTITION OF payment_flow.van_transaction DEFAULT;
+
+SELECT payment_flow.create_monthly_partitions('van_transaction',
+       COALESCE((SELECT min(transaction_date) FROM payment_flow.van_transaction_legacy), current_date),
+       (current_date + interval '3 months')::date);
+
+INSERT INTO payment_flow.van_transaction
+SELECT * FROM payment_flow.van_transaction_legacy;
+
+SELECT setval('payment_flow.van_transaction_seq',
+              COALESCE((SELECT max(id) FROM payment_flow.van_transaction), 0) + 50);
+
+-- statement_transaction FK to statement_file is kept on the partitioned table
+ALTER TABLE payment_flow.statement_transaction
+    ADD FOREIGN KEY (statement_file_id) REFERENCES payment_flow.statement_file (id);
+
+COMMIT;
+
+-- After verifying row counts:
+--   DROP TABLE payment_flow.statement_transaction_legacy;
+--   DROP TABLE payment_flow.van_transaction_legacy;
@@ -0,0 +1,12 @@
+-- Indexes backing the unmatched-items report (GET /api/reports/unmatched-items): each VAN credit is
+-- probed against statement_transaction once per reference (bank trace id, transaction reference as
+-- bank reference, transaction reference as customer reference), each probe an index lookup on
+-- (reference, amount).
+-- Hibernate creates them where ddl-auto is "update"; apply this script manually where it is
+-- "none"/"validate" (dev, prod). CONCURRENTLY avoids blocking ingestion; run outside a transaction.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_stmt_txn_bank_ref
+    ON statement_transaction (bank_reference, amount);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_stmt_txn_cust_ref
+    ON statement_transaction (customer_reference, amount);
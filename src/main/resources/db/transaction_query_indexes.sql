@@ -0,0 +1,23 @@
+-- Indexes backing the keyset-paginated transaction list APIs
+-- (GET /api/mt940/transactions, GET /api/van/transactions).
+-- Hibernate creates them where ddl-auto is "update"; apply this script manually where it is
+-- "none"/"validate" (dev, prod). CONCURRENTLY avoids blocking ingestion; run outside a transaction.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_stmt_txn_value_date_id
+    ON statement_transaction (value_date, id);
+
+-- Account-filtered MT940 pages: the account's statement files come from uq_stmt on
+-- statement_file (bank_account_id, ...), and each file's rows are read from this index already in
+-- keyset order with the (value_date, id) cursor as an index condition, so a page touches only that
+-- account's rows instead of walking the global (value_date, id) index. statement_file_id leads, so
+-- it also serves the per-file lookups the single-column idx_stmt_txn_file used to.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_stmt_txn_file_date_id
+    ON statement_transaction (statement_file_id, value_date, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_stmt_txn_file;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_van_txn_date_id
+    ON van_transaction (transaction_date, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_van_txn_account_date_id
+    ON van_transaction (main_account_number, transaction_date, id);
@@ -0,0 +1,72 @@
+package com.example.paymentreconciliation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * Startup-time regression check: starts the whole application on an in-memory H2 database, fails if
+ * reaching ready takes longer than the budget, and checks that the report writers (POI, iText) are
+ * still not created at startup. Prints the slowest startup steps so a regression can be traced to a
+ * bean. Runs with the default suite; the budget defaults to a generous 60 s so that only a gross
+ * regression fails a slow CI runner, and can be tightened with {@code -Dstartup.budget-ms}.
+ */
+class ApplicationStartupTimeTest {
+    private static final long BUDGET_MS = Long.getLong("startup.budget-ms", 60_000);
+
+    @Test
+    void startsWithinBudget() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(4096);
+        SpringApplication application = new SpringApplication(ReconciliationServiceApplication.class);
+        application.setApplicationStartup(startup);
+        Duration[] timeTaken = new Duration[1];
+        application.addListeners(event -> {
+            if (event instanceof ApplicationReadyEvent) {
+                timeTaken[0] = ((ApplicationReadyEvent) event).getTimeTaken();
+            }
+        });
+
+        try (ConfigurableApplicationContext context = application.run(
+                "--spring.profiles.active=test",
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "INIT=CREATE SCHEMA IF NOT EXISTS payment_flow\\;CREATE SCHEMA IF NOT EXISTS audit",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--server.port=0")) {
+            print(startup.getBufferedTimeline(), timeTaken[0]);
+
+            assertThat(context.getBeanFactory().containsSingleton("excelReportWriter")).isFalse();
+            assertThat(context.getBeanFactory().containsSingleton("pdfReportWriter")).isFalse();
+            assertThat(timeTaken[0]).isNotNull();
+            assertThat(timeTaken[0].toMillis()).isLessThan(BUDGET_MS);
+        }
+    }
+
+    private static void print(StartupTimeline timeline, Duration timeTaken) {
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .filter(event -> event.getStartupStep().getName().equals("spring.beans.instantiate"))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(10)
+                .collect(Collectors.toList());
+        System.out.printf("Application ready in %d ms (budget %d ms); slowest beans:%n", timeTaken.toMillis(), BUDGET_MS);
+        for (StartupTimeline.TimelineEvent event : slowest) {
+            String beanName = StreamSupport.stream(event.getStartupStep().getTags().spliterator(), false)
+                    .filter(tag -> tag.getKey().equals("beanName"))
+                    .map(StartupStep.Tag::getValue)
+                    .findFirst()
+                    .orElse("?");
+            System.out.printf("  %6d ms  %s%n", event.getDuration().toMillis(), beanName);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.paymentreconciliation.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link RlsDataSource} over a Hikari pool on H2, where set_config is an alias that records the
+ * settings it is given. Public, as H2 calls {@link #setConfig} reflectively.
+ */
+public class RlsDataSourceTest {
+    private static final int POOL_SIZE = 4;
+    private static final int ROWS = 10_000;
+    // Lines per MT940 statement; each statement commits in its own transaction
+    private static final int ROWS_PER_TRANSACTION = 5;
+    private static final List<String> SETTINGS = Collections.synchronizedList(new ArrayList<>());
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RlsProperties props = new RlsProperties();
+    private HikariDataSource pool;
+
+    /**
+     * Stand-in for PostgreSQL's set_config(setting_name, new_value, is_local).
+     */
+    public static String setConfig(String name, String value, boolean isLocal) {
+        SETTINGS.add(name + "=" + value);
+        return value;
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:rls;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        pool = new HikariDataSource(config);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create alias if not exists set_config for '" + RlsDataSourceTest.class.getName() + ".setConfig'");
+            statement.execute("create table if not exists stmt_txn (id bigint auto_increment primary key, "
+                    + "statement_no int, line_no int, amount decimal(18,2), bank_reference varchar(35))");
+            statement.execute("truncate table stmt_txn");
+        }
+        props.setEnabled(true);
+        props.setTenant("tenant-a");
+        SETTINGS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RlsContext.clear();
+        pool.close();
+    }
+
+    @Test
+    void contextIsWrittenOncePerConnectionAndAgainWhenItChanges() throws SQLException {
+        RlsDataSource dataSource = rlsDataSource();
+        RlsContext.set(new RlsContext("tenant-a", "alice"));
+        for (int i = 0; i < 10; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+        }
+        assertThat(count("applied")).isBetween(1.0, (double) POOL_SIZE);
+        assertThat(SETTINGS).contains("app.tenant_id=tenant-a", "app.current_user_id=alice");
+
+        RlsContext.set(new RlsContext("tenant-a", "bob"));
+        SETTINGS.clear();
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(connection.isValid(1)).isTrue();
+        }
+        assertThat(SETTINGS).containsExactly("app.tenant_id=tenant-a", "app.current_user_id=bob");
+    }
+
+    @Test
+    void taskDecoratorCarriesTheContextToTheExecutorThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RlsContext request = new RlsContext("tenant-a", "alice");
+            RlsContext.set(request);
+            Runnable decorated = new RlsDataSourceConfig().rlsContextTaskDecorator().decorate(() -> SETTINGS.add(String.valueOf(RlsContext.current())));
+            // The request thread's filter clears the context before the streamed body is written
+            RlsContext.clear();
+            executor.submit(decorated).get(5, TimeUnit.SECONDS);
+            executor.submit(() -> SETTINGS.add(String.valueOf(RlsContext.current()))).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(SETTINGS).containsExactly("RlsContext[tenant=tenant-a, user=alice]", "null");
+    }
+
+    /**
+     * How often the context is written during a 10k-row import committed statement by statement. H2
+     * answers set_config in-process, so this says nothing about the time RLS costs on PostgreSQL, where
+     * every applied context is a round trip; it checks that a steady context is not rewritten per borrow.
+     */
+    @Test
+    void steadyContextIsWrittenAtMostOncePerPooledConnectionDuringAnImport() throws SQLException {
+        RlsDataSource rls = rlsDataSource();
+        List<RlsContext> users = List.of(new RlsContext("tenant-a", "alice"), new RlsContext("tenant-a", "bob"));
+
+        importRows(rls, users.subList(0, 1));
+        double appliedOneContext = count("applied");
+        importRows(rls, users);
+        double appliedSwitching = count("applied") - appliedOneContext;
+
+        // One context, as in batch ingestion: written at most once per pooled connection
+        assertThat(appliedOneContext).isBetween(1.0, (double) POOL_SIZE);
+        // Alternating users: written again whenever a connection last carried the other one
+        assertThat(appliedSwitching).isGreaterThan(POOL_SIZE).isLessThanOrEqualTo(ROWS / ROWS_PER_TRANSACTION);
+    }
+
+    /**
+     * Inserts ROWS rows, one transaction per statement, each under the next of the contexts.
+     */
+    private void importRows(DataSource dataSource, List<RlsContext> contexts) throws SQLException {
+        for (int statementNo = 0; statementNo < ROWS / ROWS_PER_TRANSACTION; statementNo++) {
+            RlsContext.set(contexts.get(statementNo % contexts.size()));
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "insert into stmt_txn (statement_no, line_no, amount, bank_reference) values (?, ?, ?, ?)")) {
+                    for (int line = 1; line <= ROWS_PER_TRANSACTION; line++) {
+                        insert.setInt(1, statementNo);
+                        insert.setInt(2, line);
+                        insert.setBigDecimal(3, BigDecimal.TEN);
+                        insert.setString(4, "REF" + statementNo + "-" + line);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+                connection.commit();
+            }
+        }
+        RlsContext.clear();
+        // Checked on the pool itself, so the check does not count as a borrow
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet rows = statement.executeQuery("select count(*) from stmt_txn")) {
+                rows.next();
+                assertThat(rows.getLong(1)).isEqualTo(ROWS);
+            }
+            statement.execute("truncate table stmt_txn");
+        }
+    }
+
+    private RlsDataSource rlsDataSource() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("meterRegistry", registry));
+        return new RlsDataSource(pool, props, beans.getBeanProvider(MeterRegistry.class));
+    }
+
+    private double count(String outcome) {
+        return registry.counter("rls.context", "outcome", outcome).count();
+    }
+}
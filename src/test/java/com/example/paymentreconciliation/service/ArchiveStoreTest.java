@@ -0,0 +1,97 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.config.Mt940IngestionProperties;
+import com.example.paymentreconciliation.config.VANIngestionProperties;
+
+/**
+ * Content-addressed archive round trips: what goes in under a hash comes back out byte for byte.
+ */
+class ArchiveStoreTest {
+    private final ArchiveStore archiveStore = new ArchiveStore();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        Mt940IngestionProperties mt940Properties = new Mt940IngestionProperties();
+        mt940Properties.setArchiveDir(dir.resolve("archive").toString());
+        ReflectionTestUtils.setField(archiveStore, "ingestionProperties", new IngestionProperties());
+        ReflectionTestUtils.setField(archiveStore, "mt940Properties", mt940Properties);
+        ReflectionTestUtils.setField(archiveStore, "vanProperties", new VANIngestionProperties());
+    }
+
+    @Test
+    void storedFileIsReadBackUnderItsHash() throws IOException {
+        String content = Mt940TestData.document(20);
+        File file = Files.writeString(dir.resolve("stmt.sta"), content).toFile();
+
+        String hash = archiveStore.store(file, "MT940");
+
+        assertThat(hash).isEqualTo(sha256(content));
+        assertThat(file).doesNotExist();
+        assertThat(read(hash)).isEqualTo(content);
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws IOException {
+        String content = Mt940TestData.document(3);
+        String first = archiveStore.store(Files.writeString(dir.resolve("a.sta"), content).toFile(), "MT940");
+        String second = archiveStore.store(Files.writeString(dir.resolve("b.sta"), content).toFile(), "MT940");
+
+        assertThat(second).isEqualTo(first);
+        try (Stream<Path> files = Files.walk(dir.resolve("archive"))) {
+            assertThat(files.filter(path -> path.toString().endsWith(".gz"))).hasSize(1);
+        }
+    }
+
+    @Test
+    void zipEntryIsFoundUnderItsOwnHash() throws IOException {
+        byte[] entry = Mt940TestData.document(5).getBytes(StandardCharsets.UTF_8);
+        File spooled = Files.write(dir.resolve("entry.tmp"), entry).toFile();
+        String entryHash = Hashing.toHex(Hashing.sha256().digest(entry));
+
+        String hash = archiveStore.storeCopy(spooled, entryHash, "statements.zip!day1.sta", "MT940");
+
+        assertThat(hash).isEqualTo(entryHash);
+        assertThat(spooled).exists();
+        assertThat(archiveStore.find("MT940", hash)).isPresent();
+        try (InputStream in = archiveStore.open("MT940", hash)) {
+            assertThat(in.readAllBytes()).isEqualTo(entry);
+        }
+        // Storing the same entry again (zip re-dropped, or replayed) leaves the archive as it was
+        assertThat(archiveStore.storeCopy(spooled, entryHash, "statements.zip!day1.sta", "MT940")).isEqualTo(hash);
+    }
+
+    @Test
+    void unknownOrMalformedHashIsNotFound() {
+        assertThat(archiveStore.find("MT940", sha256("never stored"))).isEmpty();
+        assertThat(archiveStore.find("MT940", "../../etc/passwd")).isEmpty();
+    }
+
+    private String read(String hash) throws IOException {
+        try (InputStream in = archiveStore.open("MT940", hash)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String sha256(String content) {
+        return Hashing.toHex(Hashing.sha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
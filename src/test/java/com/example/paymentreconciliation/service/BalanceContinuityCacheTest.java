@@ -0,0 +1,138 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Continuity checks per account: consecutive statements pass, a missing statement is reported once
+ * the database has nothing in between, late files do not move the position back, and a statement
+ * whose gap check is waiting on the database is re-checked against one of its account that overtook it.
+ */
+class BalanceContinuityCacheTest {
+    private final BalanceContinuityCache cache = new BalanceContinuityCache();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @BeforeEach
+    void setUp() {
+        // Unstubbed queries return no rows: nothing persisted by other replicas
+        ReflectionTestUtils.setField(cache, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(cache, "registry", registry);
+    }
+
+    @Test
+    void consecutiveStatementsHaveNoGaps() {
+        assertThat(cache.recordPersisted(statement("ACC1", 1, 1000))).isEmpty();
+        assertThat(cache.recordPersisted(statement("ACC1", 2, 1030))).isEmpty();
+        assertThat(cache.recordPersisted(statement("ACC1", 3, 1060))).isEmpty();
+    }
+
+    @Test
+    void missingStatementIsReportedAsBalanceAndSequenceGap() {
+        cache.recordPersisted(statement("ACC1", 1, 1000));
+
+        List<String> gaps = cache.recordPersisted(statement("ACC1", 3, 1060));
+
+        assertThat(gaps).hasSize(2);
+        assertThat(gaps.get(0)).startsWith("Balance gap");
+        assertThat(gaps.get(1)).startsWith("Sequence gap");
+        assertThat(registry.counter("ingestion.statement.continuity.gaps", "type", "balance").count()).isEqualTo(1);
+    }
+
+    @Test
+    void lateStatementDoesNotMoveThePositionBack() {
+        cache.recordPersisted(statement("ACC1", 1, 1000));
+        Mt940Parser.Statement next = statement("ACC1", 2, 1030);
+        Mt940Parser.Statement late = statement("ACC1", 9, 500);
+        late.openingBalance.parsedDate = late.openingBalance.parsedDate.minusDays(10);
+        late.closingBalance.parsedDate = late.closingBalance.parsedDate.minusDays(10);
+
+        assertThat(cache.recordPersisted(late)).isEmpty();
+        assertThat(cache.recordPersisted(next)).isEmpty();
+    }
+
+    @Test
+    void accountsAreCheckedConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int account = 0; account < 64; account++) {
+                String accountNo = "ACC" + account;
+                results.add(executor.submit(() -> {
+                    List<String> gaps = new ArrayList<>();
+                    for (int statementNo = 1; statementNo <= 100; statementNo++) {
+                        gaps.addAll(cache.recordPersisted(statement(accountNo, statementNo, 1000 + 30 * (statementNo - 1))));
+                    }
+                    return gaps;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                assertThat(result.get()).isEmpty();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void statementOvertakenWhileItsGapIsReloadedIsCheckedAgainstTheOneThatOvertookIt() throws Exception {
+        cache.recordPersisted(statement("ACC1", 1, 1000));
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The gap reload of statement 3 holds until statement 2 has been recorded
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            reloading.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            return List.of();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> third = executor.submit(() -> cache.recordPersisted(statement("ACC1", 3, 1060)));
+            assertThat(reloading.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // Not held up by the reload of the same account
+            Future<List<String>> second = executor.submit(() -> cache.recordPersisted(statement("ACC1", 2, 1030)));
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEmpty();
+            release.countDown();
+
+            // Re-checked against statement 2 rather than reported against statement 1
+            assertThat(third.get(10, TimeUnit.SECONDS)).isEmpty();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertThat(cache.recordPersisted(statement("ACC1", 4, 1090))).isEmpty();
+        assertThat(registry.find("ingestion.statement.continuity.gaps").counters()).isEmpty();
+    }
+
+    /**
+     * Statement number {@code statementNo} of an account, opening at {@code opening} with three credits of 10.
+     */
+    private static Mt940Parser.Statement statement(String accountNo, int statementNo, int opening) {
+        Mt940Parser.Statement stmt = Mt940TestData.statement("REF" + statementNo, accountNo, 3);
+        stmt.seq28c = statementNo + "/1";
+        stmt.openingBalance.parsedAmount = BigDecimal.valueOf(opening);
+        stmt.closingBalance.parsedAmount = BigDecimal.valueOf(opening + 30);
+        return stmt;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the transaction idempotency hash: the previous implementation (joined String,
+ * MessageDigest.getInstance per call, String.format hex) against {@link Hashing}. Both produce the
+ * same hash. Run with {@code mvn -Pbenchmark test -Dtest=HashingBenchmarkTest}; the JMH table is printed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmarkTest {
+    private final String accountNo = "NL91ABNA0417164300";
+    private final String stmtRef20 = "STMT20240115001";
+    private final String seq28c = "00015/001";
+    private final String valueDate = "240115";
+    private final String amount = "1234,56";
+    private final String dc = "C";
+    private final String entryReference = "NTRF";
+    private final String bankReference = "BANKREF0001";
+    private final String customerReference = "INV-2024-000123";
+
+    @Benchmark
+    public String previousIdempotencyHash() {
+        String raw = String.join("|", accountNo, stmtRef20, seq28c, valueDate, amount, dc,
+                entryReference, bankReference, customerReference);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashBytes = digest.digest(raw.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hashBytes) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public String idempotencyHash() {
+        return Hashing.sha256Fields()
+                .add(accountNo)
+                .add(stmtRef20)
+                .add(seq28c)
+                .add(valueDate)
+                .add(amount)
+                .add(dc)
+                .add(entryReference)
+                .add(bankReference)
+                .add(customerReference)
+                .hex();
+    }
+
+    @Test
+    void sameHashAsThePreviousImplementation() {
+        assertThat(idempotencyHash()).isEqualTo(previousIdempotencyHash());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void hashingIsFasterThanThePreviousImplementation() throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(HashingBenchmarkTest.class.getName())
+                .build()).run();
+        Map<String, Double> nanosPerHash = results.stream().collect(Collectors.toMap(
+                result -> result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                result -> result.getPrimaryResult().getScore(),
+                (a, b) -> a));
+        nanosPerHash.forEach((benchmark, nanos) -> System.out.printf("%s: %.1f ns/hash%n", benchmark, nanos));
+
+        assertThat(nanosPerHash.get("idempotencyHash")).isLessThan(nanosPerHash.get("previousIdempotencyHash"));
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.entity.IngestionClaim;
+import com.example.paymentreconciliation.repository.IngestionClaimRepository;
+
+/**
+ * Two nodes sharing one ingestion_claim table (H2 in PostgreSQL mode). Every call runs in its own
+ * committed transaction, as it would on separate replicas; in the race test each node polls on its
+ * own thread.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:claims;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;INIT=CREATE SCHEMA IF NOT EXISTS payment_flow",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IngestionClaimServiceTest {
+
+    @Configuration
+    @EntityScan(basePackageClasses = IngestionClaim.class)
+    @EnableJpaRepositories(basePackageClasses = IngestionClaimRepository.class)
+    static class Config {
+    }
+
+    @Autowired
+    private IngestionClaimRepository ingestionClaimRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path inbox;
+
+    @AfterEach
+    void cleanUp() {
+        ingestionClaimRepository.deleteAll();
+    }
+
+    @Test
+    void nodesClaimDisjointFiles() throws Exception {
+        List<String> nodeIds = List.of("node-a", "node-b");
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            files.add(drop("stmt" + i + ".sta", "content " + i));
+        }
+
+        Map<String, List<String>> owners = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(nodeIds.size());
+        try {
+            List<Future<?>> polls = new ArrayList<>();
+            // Both nodes list the same inbox and try every file at the same time
+            for (String nodeId : nodeIds) {
+                IngestionClaimService node = node(nodeId, 900);
+                polls.add(executor.submit(() -> {
+                    start.await();
+                    for (File file : files) {
+                        if (tx(() -> node.tryClaim("MT940", file)) != null) {
+                            owners.computeIfAbsent(file.getName(), name -> new CopyOnWriteArrayList<>()).add(nodeId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> poll : polls) {
+                poll.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(owners).hasSize(files.size());
+        assertThat(owners.values()).allSatisfy(claimedBy -> assertThat(claimedBy).hasSize(1));
+        assertThat(ingestionClaimRepository.findAll())
+                .hasSize(files.size())
+                .allSatisfy(claim -> assertThat(owners.get(new File(claim.getFilePath()).getName())).containsExactly(claim.getOwner()));
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndTheStaleOwnerCannotComplete() throws Exception {
+        IngestionClaimService crashed = node("node-a", 0);
+        IngestionClaimService survivor = node("node-b", 900);
+        File file = drop("stmt.sta", "content");
+
+        IngestionClaim stale = tx(() -> crashed.tryClaim("MT940", file));
+        assertThat(stale).isNotNull();
+        Thread.sleep(10);
+
+        IngestionClaim takenOver = tx(() -> survivor.tryClaim("MT940", file));
+        assertThat(takenOver).isNotNull();
+        assertThat(takenOver.getId()).isEqualTo(stale.getId());
+
+        // The old owner comes back and finishes late: the survivor's claim is left alone
+        tx(() -> {
+            crashed.complete(stale);
+            return null;
+        });
+        assertThat(ingestionClaimRepository.findById(stale.getId()))
+                .hasValueSatisfying(claim -> assertThat(claim.getOwner()).isEqualTo("node-b"));
+    }
+
+    @Test
+    void renewedLeaseIsNotTakenOver() throws Exception {
+        IngestionClaimService owner = node("node-a", 0);
+        IngestionClaimService other = node("node-b", 900);
+        File file = drop("stmt.sta", "content");
+
+        IngestionClaim claim = tx(() -> owner.tryClaim("MT940", file));
+        Thread.sleep(10);
+        // Heartbeat from the owner's record loop, with the configured lease
+        assertThat(tx(() -> node("node-a", 900).renewLease(claim))).isTrue();
+
+        assertThat(tx(() -> other.tryClaim("MT940", file))).isNull();
+    }
+
+    @Test
+    void renewalFailsOnceTheClaimWasTakenOver() throws Exception {
+        IngestionClaimService stalled = node("node-a", 0);
+        IngestionClaimService survivor = node("node-b", 900);
+        File file = drop("stmt.sta", "content");
+
+        IngestionClaim claim = tx(() -> stalled.tryClaim("MT940", file));
+        Thread.sleep(10);
+        assertThat(tx(() -> survivor.tryClaim("MT940", file))).isNotNull();
+
+        assertThat(tx(() -> stalled.renewLease(claim))).isFalse();
+    }
+
+    @Test
+    void completedClaimIsDeletedSoTheSameFileCanBeDroppedAgain() throws IOException {
+        IngestionClaimService node = node("node-a", 900);
+        File file = drop("stmt.sta", "content");
+        long mtime = file.lastModified();
+
+        IngestionClaim first = tx(() -> node.tryClaim("MT940", file));
+        tx(() -> {
+            node.complete(first);
+            return null;
+        });
+        assertThat(ingestionClaimRepository.count()).isZero();
+
+        // A corrected file under the same name, size and mtime
+        File corrected = drop("stmt.sta", "CONTENT");
+        assertThat(corrected.setLastModified(mtime)).isTrue();
+        assertThat(tx(() -> node.tryClaim("MT940", corrected))).isNotNull();
+    }
+
+    @Test
+    void fileInProcessingIsRecoveredOnlyAfterItsLeaseExpires() throws Exception {
+        IngestionClaimService crashed = node("node-a", 0);
+        IngestionClaimService survivor = node("node-b", 900);
+        File file = drop("stmt.sta", "content");
+        File processing = drop("stmt.sta_0b7f3c4e-8d2a-4e1f-9c6b-2a5d7e9f1b3c", "content");
+
+        IngestionClaim claim = tx(() -> survivor.tryClaim("MT940", file));
+        tx(() -> {
+            survivor.recordProcessingPath(claim, processing);
+            return null;
+        });
+        assertThat(tx(() -> crashed.tryClaimForRecovery("MT940", processing))).isNull();
+
+        // A node that died after moving another file to processing
+        IngestionClaimService restarted = node("node-c", 0);
+        File other = drop("other.sta", "other");
+        File otherProcessing = drop("other.sta_1c8e4d5f-9e3b-4f2a-8d7c-3b6e8f0a2c4d", "other");
+        IngestionClaim crashedClaim = tx(() -> restarted.tryClaim("MT940", other));
+        tx(() -> {
+            restarted.recordProcessingPath(crashedClaim, otherProcessing);
+            return null;
+        });
+        Thread.sleep(10);
+        IngestionClaim recovered = tx(() -> survivor.tryClaimForRecovery("MT940", otherProcessing));
+        assertThat(recovered).isNotNull();
+        assertThat(recovered.getId()).isEqualTo(crashedClaim.getId());
+    }
+
+    private IngestionClaimService node(String nodeId, int leaseSeconds) {
+        IngestionProperties props = new IngestionProperties();
+        props.setNodeId(nodeId);
+        props.setClaimLeaseSeconds(leaseSeconds);
+        IngestionClaimService service = new IngestionClaimService();
+        ReflectionTestUtils.setField(service, "ingestionClaimRepository", ingestionClaimRepository);
+        ReflectionTestUtils.setField(service, "ingestionProps", props);
+        return service;
+    }
+
+    private File drop(String name, String content) throws IOException {
+        return Files.writeString(inbox.resolve(name), content).toFile();
+    }
+
+    private <T> T tx(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+}
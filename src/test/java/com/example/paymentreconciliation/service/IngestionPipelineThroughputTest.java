@@ -0,0 +1,141 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Throughput and per-file latency of the ingestion stages on platform-thread pools and on virtual
+ * threads (Java 21+), over the same MT940 corpus. File reads and persists carry a fixed simulated
+ * latency standing in for NFS and JDBC round trips, so the numbers compare the execution modes
+ * rather than the disk or database. Run with {@code mvn -Pbenchmark test -Dtest=IngestionPipelineThroughputTest}.
+ */
+@Tag("benchmark")
+class IngestionPipelineThroughputTest {
+    private static final int FILES = 64;
+    private static final int STATEMENTS_PER_FILE = 50;
+    private static final int FILE_CONCURRENCY = 16;
+    private static final int DB_PERMITS = 4;
+    private static final long READ_LATENCY_MS = 20;
+    private static final long PERSIST_LATENCY_MS = 2;
+
+    @TempDir
+    Path corpus;
+
+    @Test
+    void virtualThreadsAgainstPlatformPools() throws IOException {
+        List<File> files = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            files.add(Files.writeString(corpus.resolve("stmt" + i + ".sta"), Mt940TestData.document(STATEMENTS_PER_FILE)).toFile());
+        }
+        // Warm-up pass so class loading and JIT are not charged to the first mode
+        run(files, false);
+
+        Result platform = run(files, false);
+        print("platform", platform);
+        assertThat(platform.persisted).isEqualTo(FILES * STATEMENTS_PER_FILE);
+
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21+");
+        Result virtual = run(files, true);
+        print("virtual", virtual);
+        assertThat(virtual.persisted).isEqualTo(FILES * STATEMENTS_PER_FILE);
+    }
+
+    private Result run(List<File> files, boolean virtualThreads) {
+        IngestionProperties properties = new IngestionProperties();
+        properties.setVirtualThreads(virtualThreads);
+        properties.setDbPermits(DB_PERMITS);
+        IngestionProperties.Pipeline settings = properties.getPipeline("MT940");
+        settings.setFileConcurrency(FILE_CONCURRENCY);
+        settings.setPersistConcurrency(DB_PERMITS);
+        settings.setQueueCapacity(4);
+        IngestionMetrics metrics = new IngestionMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        IngestionPipeline pipeline = new IngestionPipeline();
+        ReflectionTestUtils.setField(pipeline, "ingestionProperties", properties);
+        ReflectionTestUtils.setField(pipeline, "ingestionMetrics", metrics);
+        ReflectionTestUtils.setField(pipeline, "connectionPoolSize", DB_PERMITS);
+        pipeline.init();
+
+        AtomicInteger persisted = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(files.size()));
+        long start = System.nanoTime();
+        try {
+            pipeline.processFiles("MT940", files, file -> {
+                long fileStart = System.nanoTime();
+                List<Mt940Parser.Statement> statements;
+                try {
+                    sleep(READ_LATENCY_MS);
+                    statements = new Mt940Parser().parse(Files.readString(file.toPath()));
+                } catch (IOException | Mt940Parser.Mt940ParseException e) {
+                    throw new RuntimeException(e);
+                }
+                IngestionPipeline.PersistLane<Mt940Parser.Statement> lane = pipeline.openPersistLane("MT940", stmt -> {
+                    sleep(PERSIST_LATENCY_MS);
+                    persisted.incrementAndGet();
+                });
+                try {
+                    statements.forEach(lane::submit);
+                } finally {
+                    lane.close();
+                }
+                latencies.add(System.nanoTime() - fileStart);
+            });
+        } finally {
+            pipeline.shutdown();
+        }
+        return new Result(System.nanoTime() - start, persisted.get(), latencies);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void print(String mode, Result result) {
+        double seconds = result.elapsedNanos / 1e9;
+        System.out.printf("%s: %d files in %.2f s, %.1f files/s, %.0f statements/s, file latency p50 %d ms, p99 %d ms%n",
+                mode, FILES, seconds, FILES / seconds, result.persisted / seconds,
+                result.percentileMillis(50), result.percentileMillis(99));
+    }
+
+    private static final class Result {
+        final long elapsedNanos;
+        final int persisted;
+        final List<Long> latencies;
+
+        Result(long elapsedNanos, int persisted, List<Long> latencies) {
+            this.elapsedNanos = elapsedNanos;
+            this.persisted = persisted;
+            this.latencies = new ArrayList<>(latencies);
+            Collections.sort(this.latencies);
+        }
+
+        long percentileMillis(int percentile) {
+            int index = Math.min(latencies.size() - 1, (int) Math.ceil(percentile / 100.0 * latencies.size()) - 1);
+            return TimeUnit.NANOSECONDS.toMillis(latencies.get(Math.max(0, index)));
+        }
+    }
+}
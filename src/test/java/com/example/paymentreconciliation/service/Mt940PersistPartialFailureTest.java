@@ -0,0 +1,101 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.entity.StatementFile;
+import com.example.paymentreconciliation.repository.ImportRunRepository;
+import com.example.paymentreconciliation.repository.StatementFileRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Persist stage of MT940 ingestion with injected failures: every failing statement rolls back alone,
+ * the rest commit, and the ImportRun ends PARTIAL with exact counts.
+ */
+class Mt940PersistPartialFailureTest {
+    private static final int STATEMENTS = 2000;
+    private static final int TRANSACTIONS_PER_STATEMENT = 5;
+
+    private final Mt940IngestionService service = new Mt940IngestionService();
+    private final Mt940StatementWriter writer = mock(Mt940StatementWriter.class);
+    private final ImportErrorWriter importErrorWriter = mock(ImportErrorWriter.class);
+    private final ImportRunRepository importRunRepository = mock(ImportRunRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        IngestionMetrics metrics = new IngestionMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", registry);
+        IngestionPipeline pipeline = new IngestionPipeline();
+        ReflectionTestUtils.setField(pipeline, "ingestionProperties", ingestionProperties);
+        ReflectionTestUtils.setField(pipeline, "ingestionMetrics", metrics);
+
+        ReflectionTestUtils.setField(service, "ingestionMetrics", metrics);
+        ReflectionTestUtils.setField(service, "ingestionPipeline", pipeline);
+        ReflectionTestUtils.setField(service, "mt940StatementWriter", writer);
+        ReflectionTestUtils.setField(service, "importErrorWriter", importErrorWriter);
+        ReflectionTestUtils.setField(service, "importRunRepository", importRunRepository);
+        ReflectionTestUtils.setField(service, "statementFileRepository", mock(StatementFileRepository.class));
+        ReflectionTestUtils.setField(service, "balanceContinuityCache", mock(BalanceContinuityCache.class));
+        ReflectionTestUtils.setField(service, "fileHashRegistry", mock(FileHashRegistry.class));
+        when(importRunRepository.save(any(ImportRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void failingStatementsRollBackAloneAndTheRunEndsPartial() {
+        List<Mt940Parser.Statement> statements = new ArrayList<>(STATEMENTS);
+        for (int i = 0; i < STATEMENTS; i++) {
+            Mt940Parser.Statement stmt = Mt940TestData.statement("REF" + i, "ACC" + (i % 50), TRANSACTIONS_PER_STATEMENT);
+            if (i % 100 == 0) {
+                // Injected validation failure: never reaches the writer
+                stmt.accountNo = null;
+            }
+            statements.add(stmt);
+        }
+        AtomicInteger writes = new AtomicInteger();
+        // Injected persistence failure on every 10th statement that reaches the writer
+        when(writer.writeStatement(any(ImportRun.class), any(Mt940Parser.Statement.class), anyInt())).thenAnswer(invocation -> {
+            if (writes.incrementAndGet() % 10 == 0) {
+                throw new IllegalStateException("injected failure");
+            }
+            return new StatementFile();
+        });
+        ImportRun run = new ImportRun();
+        run.setId(1L);
+        run.setFilename("partial.mt940");
+        run.setFileHash("hash");
+
+        service.persistParsedStatements(statements, run);
+
+        int invalid = STATEMENTS / 100;
+        int persistFailures = (STATEMENTS - invalid) / 10;
+        assertThat(run.getTotalRecords()).isEqualTo(STATEMENTS);
+        assertThat(run.getFailedRecords()).isEqualTo(invalid + persistFailures);
+        assertThat(run.getProcessedRecords()).isEqualTo(STATEMENTS - invalid - persistFailures);
+        assertThat(run.getStatus()).isEqualTo(ImportRun.Status.PARTIAL);
+        assertThat(run.getCheckpointOffset()).isEqualTo(STATEMENTS);
+        verify(importErrorWriter, times(invalid)).submit(eq(run), eq("VALIDATION_ERROR"), anyString(), isNull(), isNull());
+        verify(importErrorWriter, times(persistFailures)).submit(eq(run), eq("PERSISTENCE_ERROR"), anyString(), isNull(), isNull());
+        verify(importErrorWriter).finishRun(1L);
+    }
+}
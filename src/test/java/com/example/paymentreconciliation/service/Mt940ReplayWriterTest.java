@@ -0,0 +1,171 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.paymentreconciliation.dto.ReplayReport;
+import com.example.paymentreconciliation.entity.BankAccount;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.entity.StatementFile;
+import com.example.paymentreconciliation.entity.StatementTransaction;
+import com.example.paymentreconciliation.repository.StatementFileRepository;
+import com.example.paymentreconciliation.repository.StatementTransactionRepository;
+import com.example.paymentreconciliation.repository.Transaction86SegmentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Replay upserts: a corrected line updates the row persisted at the same (statement_file, line_no),
+ * hash included, instead of being inserted next to it.
+ */
+class Mt940ReplayWriterTest {
+    private final Mt940ReplayWriter writer = new Mt940ReplayWriter();
+    private final StatementFileRepository statementFileRepository = mock(StatementFileRepository.class);
+    private final StatementTransactionRepository statementTransactionRepository = mock(StatementTransactionRepository.class);
+    private final Transaction86SegmentRepository transaction86SegmentRepository = mock(Transaction86SegmentRepository.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+
+    private final ImportRun importRun = new ImportRun();
+    private final StatementFile statementFile = new StatementFile();
+
+    @BeforeEach
+    void setUp() {
+        IngestionMetrics metrics = new IngestionMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "statementFileRepository", statementFileRepository);
+        ReflectionTestUtils.setField(writer, "statementTransactionRepository", statementTransactionRepository);
+        ReflectionTestUtils.setField(writer, "transaction86SegmentRepository", transaction86SegmentRepository);
+        ReflectionTestUtils.setField(writer, "mt940StatementWriter", mock(Mt940StatementWriter.class));
+        ReflectionTestUtils.setField(writer, "outboxService", outboxService);
+        ReflectionTestUtils.setField(writer, "ingestionMetrics", metrics);
+
+        BankAccount account = new BankAccount();
+        account.setAccountNo("ACC1");
+        statementFile.setId(7L);
+        statementFile.setBankAccount(account);
+        when(statementFileRepository.findFirstByImportRunAndStmtRef20AndSeq28c(importRun, "REF1", "1/1"))
+                .thenReturn(Optional.of(statementFile));
+        when(statementTransactionRepository.findByExtIdempotencyHashAndValueDate(any(), any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void correctedLineUpdatesTheSameRowAndItsHash() {
+        Mt940Parser.Statement stmt = hashed(Mt940TestData.statement("REF1", "ACC1", 3));
+        List<StatementTransaction> rows = persisted(stmt);
+        // The parser fix changes the amount of line 2, and with it the hash
+        Mt940Parser.Transaction corrected = stmt.transactions.get(1);
+        corrected.parsedAmount = new BigDecimal("12.50");
+        corrected.parsedSignedAmount = corrected.parsedAmount;
+        corrected.extIdempotencyHash = "hash-2-corrected";
+
+        ReplayReport report = new ReplayReport("job", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), false);
+        writer.replayStatement(importRun, stmt, report);
+
+        StatementTransaction row = rows.get(1);
+        assertThat(row.getId()).isEqualTo(102L);
+        assertThat(row.getAmount()).isEqualByComparingTo("12.50");
+        assertThat(row.getExtIdempotencyHash()).isEqualTo("hash-2-corrected");
+        assertThat(report.getRowsChanged()).hasValue(1);
+        assertThat(report.getRowsUnchanged()).hasValue(2);
+        assertThat(report.getRowsAdded()).hasValue(0);
+        assertThat(report.getRowsMissing()).hasValue(0);
+        assertThat(savedRows()).isEmpty();
+        verify(outboxService).append(eq(OutboxService.STATEMENT_TRANSACTION_CORRECTED), eq("statement_transaction"),
+                eq(102L), eq("ACC1"), any());
+    }
+
+    @Test
+    void newLineIsInsertedAndDroppedLineIsOnlyReported() {
+        Mt940Parser.Statement stmt = hashed(Mt940TestData.statement("REF1", "ACC1", 3));
+        persisted(stmt);
+        // Line 3 is no longer produced; line 4 is new
+        stmt.transactions.remove(2);
+        Mt940Parser.Transaction added = hashed(Mt940TestData.statement("REF1", "ACC1", 4)).transactions.get(3);
+        stmt.transactions.add(added);
+
+        ReplayReport report = new ReplayReport("job", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), false);
+        writer.replayStatement(importRun, stmt, report);
+
+        assertThat(report.getRowsAdded()).hasValue(1);
+        assertThat(report.getRowsUnchanged()).hasValue(2);
+        assertThat(report.getRowsMissing()).hasValue(1);
+        assertThat(savedRows()).singleElement().satisfies(row -> {
+            assertThat(row.getLineNo()).isEqualTo(4);
+            assertThat(row.getExtIdempotencyHash()).isEqualTo("hash-4");
+        });
+        verify(outboxService, never()).append(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void correctionIsNotAppliedWhenTheNewHashBelongsToAnotherRow() {
+        Mt940Parser.Statement stmt = hashed(Mt940TestData.statement("REF1", "ACC1", 2));
+        List<StatementTransaction> rows = persisted(stmt);
+        Mt940Parser.Transaction corrected = stmt.transactions.get(0);
+        corrected.bankReference = "REF1-other";
+        corrected.extIdempotencyHash = "hash-of-another-row";
+        when(statementTransactionRepository.findByExtIdempotencyHashAndValueDate("hash-of-another-row", corrected.parsedValueDate))
+                .thenReturn(Optional.of(new StatementTransaction()));
+
+        ReplayReport report = new ReplayReport("job", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), false);
+        writer.replayStatement(importRun, stmt, report);
+
+        assertThat(rows.get(0).getExtIdempotencyHash()).isEqualTo("hash-1");
+        assertThat(rows.get(0).getBankReference()).isEqualTo("REF1-1");
+        assertThat(report.getRowsChanged()).hasValue(0);
+        assertThat(report.getRowsUnchanged()).hasValue(2);
+    }
+
+    private static Mt940Parser.Statement hashed(Mt940Parser.Statement stmt) {
+        for (Mt940Parser.Transaction txn : stmt.transactions) {
+            txn.extIdempotencyHash = "hash-" + txn.lineNo;
+        }
+        return stmt;
+    }
+
+    /**
+     * Rows as the earlier import persisted them, one per transaction of the statement.
+     */
+    private List<StatementTransaction> persisted(Mt940Parser.Statement stmt) {
+        List<StatementTransaction> rows = new ArrayList<>();
+        for (Mt940Parser.Transaction txn : stmt.transactions) {
+            StatementTransaction st = new StatementTransaction();
+            st.setId(100L + txn.lineNo);
+            st.setStatementFile(statementFile);
+            st.setLineNo(txn.lineNo);
+            st.setExtIdempotencyHash(txn.extIdempotencyHash);
+            st.setValueDate(txn.parsedValueDate);
+            st.setEntryDate(txn.parsedEntryDate);
+            st.setDc(txn.dc);
+            st.setAmount(txn.parsedAmount);
+            st.setSignedAmount(txn.parsedSignedAmount);
+            st.setCurrency(txn.currency);
+            st.setBankReference(txn.bankReference);
+            rows.add(st);
+        }
+        when(statementTransactionRepository.findByStatementFile(statementFile)).thenReturn(new ArrayList<>(rows));
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StatementTransaction> savedRows() {
+        ArgumentCaptor<List<StatementTransaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(statementTransactionRepository).saveAll(saved.capture());
+        return saved.getValue();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.config.Mt940IngestionProperties;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.entity.StatementFile;
+import com.example.paymentreconciliation.repository.ImportRunRepository;
+import com.example.paymentreconciliation.repository.StatementFileRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Streamed MT940 documents: the streaming parser hands over the same statements as a whole-document
+ * parse, and a document that breaks off part-way leaves an interrupted run that the same content,
+ * dropped again, resumes instead of being rejected as a duplicate. Zip entries are capped and
+ * admitted by their inflated size, not the size of the zip.
+ */
+class Mt940StreamingIngestionTest {
+    private static final String HASH = "c0ffee";
+
+    private final Mt940IngestionService service = new Mt940IngestionService();
+    private final Mt940StatementWriter writer = mock(Mt940StatementWriter.class);
+    private final ImportRunRepository importRunRepository = mock(ImportRunRepository.class);
+    private final StatementFileRepository statementFileRepository = mock(StatementFileRepository.class);
+    private final FileHashRegistry fileHashRegistry = mock(FileHashRegistry.class);
+    private final ArchiveStore archiveStore = mock(ArchiveStore.class);
+    private final IngestionProperties ingestionProperties = new IngestionProperties();
+    private final List<ImportRun> savedRuns = new ArrayList<>();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IngestionMetrics metrics = new IngestionMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", registry);
+        IngestionPipeline pipeline = new IngestionPipeline();
+        ReflectionTestUtils.setField(pipeline, "ingestionProperties", ingestionProperties);
+        ReflectionTestUtils.setField(pipeline, "ingestionMetrics", metrics);
+        IngestionAdmissionController admissionController = new IngestionAdmissionController();
+        ReflectionTestUtils.setField(admissionController, "ingestionProperties", ingestionProperties);
+        ReflectionTestUtils.setField(admissionController, "registry", registry);
+        admissionController.init();
+        Mt940IngestionProperties mt940Props = new Mt940IngestionProperties();
+        mt940Props.setProcessingDir(Files.createDirectory(dir.resolve("processing")).toString());
+
+        ReflectionTestUtils.setField(service, "ingestionMetrics", metrics);
+        ReflectionTestUtils.setField(service, "ingestionPipeline", pipeline);
+        ReflectionTestUtils.setField(service, "mt940StatementWriter", writer);
+        ReflectionTestUtils.setField(service, "importErrorWriter", mock(ImportErrorWriter.class));
+        ReflectionTestUtils.setField(service, "importRunRepository", importRunRepository);
+        ReflectionTestUtils.setField(service, "statementFileRepository", statementFileRepository);
+        ReflectionTestUtils.setField(service, "balanceContinuityCache", mock(BalanceContinuityCache.class));
+        ReflectionTestUtils.setField(service, "fileHashRegistry", fileHashRegistry);
+        ReflectionTestUtils.setField(service, "admissionController", admissionController);
+        ReflectionTestUtils.setField(service, "ingestionProperties", ingestionProperties);
+        ReflectionTestUtils.setField(service, "archiveStore", archiveStore);
+        ReflectionTestUtils.setField(service, "mt940Props", mt940Props);
+        when(fileHashRegistry.tryClaim(any())).thenReturn(true);
+        when(importRunRepository.save(any(ImportRun.class))).thenAnswer(invocation -> {
+            savedRuns.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(writer.writeStatement(any(ImportRun.class), any(Mt940Parser.Statement.class), anyInt())).thenReturn(new StatementFile());
+    }
+
+    @Test
+    void streamingParseMatchesWholeDocumentParse() throws Exception {
+        String document = Mt940TestData.document(120);
+        List<Mt940Parser.Statement> whole = new Mt940Parser().parse(document);
+        List<Mt940Parser.Statement> streamed = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        int count = new Mt940Parser().parse(new StringReader(document), (index, stmt) -> {
+            indexes.add(index);
+            streamed.add(stmt);
+        });
+
+        assertThat(count).isEqualTo(120);
+        assertThat(indexes).hasSize(120).isSorted().startsWith(0).endsWith(119);
+        for (int i = 0; i < whole.size(); i++) {
+            assertThat(streamed.get(i).stmtRef20).isEqualTo(whole.get(i).stmtRef20);
+            assertThat(streamed.get(i).closingBalance.parsedAmount).isEqualByComparingTo(whole.get(i).closingBalance.parsedAmount);
+            assertThat(streamed.get(i).transactions).hasSameSizeAs(whole.get(i).transactions);
+        }
+    }
+
+    @Test
+    void documentBrokenOffPartWayLeavesAResumableRun() throws IOException {
+        // Bytes that are not UTF-8 part-way through: the reader fails after the statements before them were handed over
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(Mt940TestData.document(200).getBytes(StandardCharsets.UTF_8));
+        content.write(new byte[] {(byte) 0xFF, (byte) 0xFE});
+        content.write(Mt940TestData.document(10).getBytes(StandardCharsets.UTF_8));
+        File file = Files.write(dir.resolve("stmt.sta"), content.toByteArray()).toFile();
+
+        assertThat(ingest(file)).isFalse();
+
+        ImportRun run = savedRuns.get(savedRuns.size() - 1);
+        assertThat(run.getStatus()).isEqualTo(ImportRun.Status.PARTIAL);
+        assertThat(run.getTotalRecords()).isNull();
+        assertThat(run.getErrorMessage()).contains("Failed to read MT940 document");
+        assertThat(run.getProcessedRecords()).isPositive();
+        assertThat(run.getCheckpointOffset()).isEqualTo(run.getProcessedRecords());
+        verify(fileHashRegistry).forget(HASH);
+
+        // The same content dropped again is not a duplicate
+        when(importRunRepository.findByFileHash(HASH)).thenReturn(Optional.of(run));
+        Boolean duplicate = ReflectionTestUtils.invokeMethod(service, "isDuplicate", HASH);
+        assertThat(duplicate).isFalse();
+    }
+
+    @Test
+    void droppingTheContentAgainResumesTheInterruptedRun() throws IOException {
+        ImportRun interrupted = new ImportRun();
+        interrupted.setId(7L);
+        interrupted.setFilename("stmt.sta");
+        interrupted.setFileHash(HASH);
+        interrupted.setFileType("MT940");
+        interrupted.setStatus(ImportRun.Status.PARTIAL);
+        interrupted.setCheckpointOffset(150);
+        interrupted.setProcessedRecords(150);
+        interrupted.setErrorMessage("Failed to read MT940 file");
+        when(importRunRepository.findByFileHash(HASH)).thenReturn(Optional.of(interrupted));
+        when(statementFileRepository.countByImportRun(interrupted)).thenReturn(150L);
+        File file = Files.writeString(dir.resolve("stmt.sta"), Mt940TestData.document(210)).toFile();
+
+        assertThat(ingest(file)).isTrue();
+
+        // Only the statements after the checkpoint are written, into the same run
+        verify(writer, times(60)).writeStatement(any(ImportRun.class), any(Mt940Parser.Statement.class), anyInt());
+        assertThat(savedRuns).containsOnly(interrupted);
+        assertThat(interrupted.getStatus()).isEqualTo(ImportRun.Status.IMPORTED);
+        assertThat(interrupted.getTotalRecords()).isEqualTo(210);
+        assertThat(interrupted.getProcessedRecords()).isEqualTo(210);
+        assertThat(interrupted.getErrorMessage()).isNull();
+    }
+
+    @Test
+    void zipEntryOverTheSizeCapIsRejectedWhileTheOthersAreImported() throws IOException {
+        String small = Mt940TestData.document(5);
+        String large = Mt940TestData.document(50);
+        // Between the two entries, and far above the zip itself once the large entry is deflated
+        ingestionProperties.setMaxFileSizeBytes(small.length() + 1024);
+        File zip = dir.resolve("statements.zip").toFile();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip.toPath()))) {
+            out.putNextEntry(new ZipEntry("large.sta"));
+            out.write(large.getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("small.sta"));
+            out.write(small.getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(zip.length()).isLessThan(ingestionProperties.getMaxFileSizeBytes());
+
+        Boolean success = ReflectionTestUtils.invokeMethod(service, "ingestZipEntries", zip, false);
+
+        assertThat(success).isFalse();
+        assertThat(savedRuns).extracting(ImportRun::getFilename).containsOnly("statements.zip!small.sta");
+        assertThat(savedRuns.get(savedRuns.size() - 1).getStatus()).isEqualTo(ImportRun.Status.IMPORTED);
+        verify(writer, times(5)).writeStatement(any(ImportRun.class), any(Mt940Parser.Statement.class), anyInt());
+        verify(archiveStore, times(1)).storeCopy(any(File.class), any(), any(), any());
+        // Spool files are removed once their entry is done
+        assertThat(dir.resolve("processing")).isEmptyDirectory();
+    }
+
+    private boolean ingest(File file) {
+        Boolean success = ReflectionTestUtils.invokeMethod(service, "ingestDocuments", file, HASH, file.length(), false, true);
+        return Boolean.TRUE.equals(success);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.paymentreconciliation.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * Builders for MT940 test input: parsed statements for service tests and raw messages for parser tests.
+ */
+final class Mt940TestData {
+    private Mt940TestData() {
+    }
+
+    /**
+     * A statement that passes validation: opening balance plus one credit per transaction equals closing.
+     */
+    static Mt940Parser.Statement statement(String ref, String accountNo, int transactions) {
+        LocalDate date = LocalDate.of(2024, 1, 15);
+        Mt940Parser.Statement stmt = new Mt940Parser.Statement();
+        stmt.stmtRef20 = ref;
+        stmt.seq28c = "1/1";
+        stmt.accountNo = accountNo;
+        stmt.currency = "EUR";
+        stmt.openingBalance = balance("OPENING", date, new BigDecimal("1000.00"));
+        stmt.closingBalance = balance("CLOSING", date, new BigDecimal("1000.00").add(BigDecimal.TEN.multiply(BigDecimal.valueOf(transactions))));
+        stmt.otherBalances = new ArrayList<>();
+        stmt.transactions = new ArrayList<>();
+        for (int i = 1; i <= transactions; i++) {
+            Mt940Parser.Transaction txn = new Mt940Parser.Transaction();
+            txn.lineNo = i;
+            txn.dc = "C";
+            txn.amount = "10,00";
+            txn.parsedAmount = BigDecimal.TEN;
+            txn.parsedSignedAmount = BigDecimal.TEN;
+            txn.parsedValueDate = date;
+            txn.currency = "EUR";
+            txn.bankReference = ref + "-" + i;
+            stmt.transactions.add(txn);
+        }
+        stmt.rawLines = new ArrayList<>();
+        return stmt;
+    }
+
+    private static Mt940Parser.Balance balance(String type, LocalDate date, BigDecimal amount) {
+        Mt940Parser.Balance balance = new Mt940Parser.Balance();
+        balance.type = type;
+        balance.dc = "C";
+        balance.currency = "EUR";
+        balance.parsedDate = date;
+        balance.parsedAmount = amount;
+        return balance;
+    }
+
+    /**
+     * One SWIFT MT940 message with a single credit of 100.00.
+     */
+    static String message(String ref, String accountNo) {
+        return "{1:F01BANKBEBBAXXX0000000000}{2:I940BANKBEBBXXXXN}{4:\n"
+                + ":20:" + ref + "\n"
+                + ":25:" + accountNo + "\n"
+                + ":28C:1/1\n"
+                + ":60F:C240115EUR1000,00\n"
+                + ":61:2401150115C100,00NTRF" + ref + "//B" + ref + "\n"
+                + ":86:Payment " + ref + "\n"
+                + ":62F:C240115EUR1100,00\n"
+                + "-}";
+    }
+
+    /**
+     * A document of count messages separated by newlines.
+     */
+    static String document(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(message("REF" + i, "NL91ABNA0417164300")).append('\n');
+        }
+        return sb.toString();
+    }
+}
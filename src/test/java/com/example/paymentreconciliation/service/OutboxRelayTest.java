@@ -0,0 +1,155 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.paymentreconciliation.config.OutboxProperties;
+import com.example.paymentreconciliation.entity.OutboxEvent;
+import com.example.paymentreconciliation.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Relay failure handling over an in-memory outbox: an unavailable sink holds the feed back without
+ * charging or skipping any event, while an event the sink rejects is found and dead-lettered and
+ * the rest of its stream is delivered in order.
+ */
+class OutboxRelayTest {
+    private final List<OutboxEvent> outbox = new ArrayList<>();
+    private final TestSink sink = new TestSink();
+    private final OutboxProperties props = new OutboxProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        props.setEnabled(true);
+        props.setSink("test");
+        props.setSettleMs(0);
+        // No back-off between relay runs
+        props.setRelayIntervalMs(0);
+        props.setMaxAttempts(3);
+        for (long id = 1; id <= 5; id++) {
+            OutboxEvent event = new OutboxEvent();
+            event.setId(id);
+            event.setEventType(OutboxService.STATEMENT_TRANSACTION_IMPORTED);
+            event.setAggregateType("statement_transaction");
+            event.setAggregateId(id);
+            event.setStreamKey("ACC1");
+            event.setPayload("{}");
+            event.setCreatedAt(LocalDateTime.now().minusMinutes(1));
+            outbox.add(event);
+        }
+
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+        when(repository.findByPublishedAtIsNullAndDeadLetteredAtIsNullAndCreatedAtBeforeOrderByIdAsc(any(), any()))
+                .thenAnswer(invocation -> outbox.stream()
+                        .filter(e -> e.getPublishedAt() == null && e.getDeadLetteredAt() == null)
+                        .sorted(Comparator.comparing(OutboxEvent::getId))
+                        .limit(invocation.<Pageable>getArgument(1).getPageSize())
+                        .toList());
+        when(repository.markPublished(anyList(), any())).thenAnswer(invocation -> update(invocation.getArgument(0),
+                e -> e.setPublishedAt(invocation.getArgument(1))));
+        when(repository.recordFailure(anyList(), any())).thenAnswer(invocation -> update(invocation.getArgument(0), e -> {
+            e.setAttempts(e.getAttempts() + 1);
+            e.setLastError(invocation.getArgument(1));
+        }));
+        when(repository.markDeadLettered(anyList(), any())).thenAnswer(invocation -> update(invocation.getArgument(0),
+                e -> e.setDeadLetteredAt(invocation.getArgument(1))));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any())).thenReturn(Boolean.TRUE);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        relay = new OutboxRelay(List.of(sink));
+        ReflectionTestUtils.setField(relay, "outboxEventRepository", repository);
+        ReflectionTestUtils.setField(relay, "props", props);
+        ReflectionTestUtils.setField(relay, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(relay, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(relay, "registry", registry);
+    }
+
+    @Test
+    void outageIsRetriedWithoutChargingOrSkippingEvents() {
+        sink.down = true;
+        for (int i = 0; i < 50; i++) {
+            relay.relay();
+        }
+
+        assertThat(sink.published).isEmpty();
+        assertThat(outbox).allSatisfy(event -> {
+            assertThat(event.getAttempts()).isZero();
+            assertThat(event.getDeadLetteredAt()).isNull();
+        });
+
+        sink.down = false;
+        relay.relay();
+
+        assertThat(sink.published).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void rejectedEventIsDeadLetteredAndTheRestOfItsStreamFollowsInOrder() {
+        sink.rejected = 3L;
+        for (int i = 0; i < 20; i++) {
+            relay.relay();
+        }
+
+        assertThat(sink.published).containsExactly(1L, 2L, 4L, 5L);
+        OutboxEvent rejected = outbox.get(2);
+        assertThat(rejected.getDeadLetteredAt()).isNotNull();
+        assertThat(rejected.getAttempts()).isEqualTo(3);
+        assertThat(outbox).filteredOn(event -> event != rejected).allSatisfy(event -> assertThat(event.getAttempts()).isZero());
+        assertThat(registry.counter("outbox.events.dead_lettered", "sink", "test").count()).isEqualTo(1);
+    }
+
+    private int update(List<Long> ids, Consumer<OutboxEvent> change) {
+        outbox.stream().filter(e -> ids.contains(e.getId())).forEach(change);
+        return ids.size();
+    }
+
+    /**
+     * Accepts batches unless it is down or the batch holds the event it refuses.
+     */
+    private static class TestSink implements OutboxSink {
+        private final List<Long> published = new ArrayList<>();
+        private boolean down;
+        private Long rejected;
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public void publish(List<OutboxEvent> events) {
+            if (down) {
+                throw new IllegalStateException("Connection refused");
+            }
+            if (events.stream().anyMatch(e -> e.getId().equals(rejected))) {
+                throw new RejectedException("HTTP 422", null);
+            }
+            events.forEach(e -> published.add(e.getId()));
+        }
+    }
+}
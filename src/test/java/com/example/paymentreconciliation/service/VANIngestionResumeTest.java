@@ -0,0 +1,202 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.paymentreconciliation.config.IngestionProperties;
+import com.example.paymentreconciliation.config.VANIngestionProperties;
+import com.example.paymentreconciliation.entity.ImportRun;
+import com.example.paymentreconciliation.repository.ImportRunRepository;
+import com.example.paymentreconciliation.repository.VANTransactionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * VAN files that break off part-way: the committed chunks stay, the run is left PARTIAL at its
+ * checkpoint, and the same content dropped again resumes it. Archiving happens after the run is
+ * finished, so an archive failure cannot mark an imported run failed.
+ */
+class VANIngestionResumeTest {
+    private static final String HEADER = "Main Account Number,Virtual Account Number (VAN),Transaction Reference Number,"
+            + "Bank Reference / Trace ID,Remitter Name,Remitter Account Number,Remitter IFSC / Bank Name,Remitter VPA,"
+            + "Transaction Date,Value Date,Amount (INR),Mode / Channel,Payment Description / Narration,Payment Status,"
+            + "Mapped Customer ID / Code,Invoice / Reference ID,Date & Time of Credit,Branch / Bank Code";
+
+    private final VANIngestionService service = new VANIngestionService();
+    private final VANTransactionWriter writer = mock(VANTransactionWriter.class);
+    private final ImportRunRepository importRunRepository = mock(ImportRunRepository.class);
+    private final VANTransactionRepository vanTransactionRepository = mock(VANTransactionRepository.class);
+    private final FileHashRegistry fileHashRegistry = mock(FileHashRegistry.class);
+    private final ArchiveStore archiveStore = mock(ArchiveStore.class);
+    private final List<Integer> writtenRows = new ArrayList<>();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IngestionMetrics metrics = new IngestionMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", registry);
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        IngestionPipeline pipeline = new IngestionPipeline();
+        ReflectionTestUtils.setField(pipeline, "ingestionProperties", ingestionProperties);
+        ReflectionTestUtils.setField(pipeline, "ingestionMetrics", metrics);
+        IngestionAdmissionController admissionController = new IngestionAdmissionController();
+        ReflectionTestUtils.setField(admissionController, "ingestionProperties", ingestionProperties);
+        ReflectionTestUtils.setField(admissionController, "registry", registry);
+        admissionController.init();
+        VANIngestionProperties vanProps = new VANIngestionProperties();
+        vanProps.setQuarantineDir(Files.createDirectory(dir.resolve("quarantine")).toString());
+
+        ReflectionTestUtils.setField(service, "ingestionMetrics", metrics);
+        ReflectionTestUtils.setField(service, "ingestionPipeline", pipeline);
+        ReflectionTestUtils.setField(service, "admissionController", admissionController);
+        ReflectionTestUtils.setField(service, "ingestionProperties", ingestionProperties);
+        ReflectionTestUtils.setField(service, "archiveStore", archiveStore);
+        ReflectionTestUtils.setField(service, "vanProps", vanProps);
+        ReflectionTestUtils.setField(service, "vanTransactionWriter", writer);
+        ReflectionTestUtils.setField(service, "vanTransactionRepository", vanTransactionRepository);
+        ReflectionTestUtils.setField(service, "importErrorWriter", mock(ImportErrorWriter.class));
+        ReflectionTestUtils.setField(service, "importRunRepository", importRunRepository);
+        ReflectionTestUtils.setField(service, "fileHashRegistry", fileHashRegistry);
+        when(fileHashRegistry.tryClaim(anyString())).thenReturn(true);
+        when(importRunRepository.save(any(ImportRun.class))).thenAnswer(invocation -> {
+            ImportRun run = invocation.getArgument(0);
+            if (run.getId() == null) {
+                run.setId(1L);
+            }
+            return run;
+        });
+        doAnswer(invocation -> {
+            writtenRows.add(invocation.<List<?>>getArgument(1).size());
+            return null;
+        }).when(writer).writeChunk(any(ImportRun.class), anyList(), anyInt());
+    }
+
+    @Test
+    void fileBrokenOffPartWayLeavesAResumableRun() throws IOException {
+        // An unterminated quote after 1,200 rows: the chunks handed over before it commit, the rest is lost
+        File file = write("van.csv", 1200, "5010000,VAN1,\"TRN-broken");
+        String hash = hash(file);
+
+        process(file);
+
+        ImportRun run = lastSaved();
+        assertThat(writtenRows).containsExactly(500, 500);
+        assertThat(run.getStatus()).isEqualTo(ImportRun.Status.PARTIAL);
+        assertThat(run.getTotalRecords()).isNull();
+        assertThat(run.getCheckpointOffset()).isEqualTo(1000);
+        assertThat(run.getProcessedRecords()).isEqualTo(1000);
+        assertThat(run.getErrorMessage()).isNotBlank();
+        verify(fileHashRegistry).forget(hash);
+        assertThat(dir.resolve("quarantine").resolve("van.csv")).exists();
+
+        // The same content dropped again is not a duplicate
+        when(importRunRepository.findByFileHash(hash)).thenReturn(Optional.of(run));
+        Boolean duplicate = ReflectionTestUtils.invokeMethod(service, "isDuplicate", hash);
+        assertThat(duplicate).isFalse();
+    }
+
+    @Test
+    void droppingTheContentAgainResumesTheInterruptedRun() throws IOException {
+        File file = write("van.csv", 1300, null);
+        ImportRun interrupted = interruptedRun(hash(file), 1000);
+        when(importRunRepository.findByFileHash(interrupted.getFileHash())).thenReturn(Optional.of(interrupted));
+        when(vanTransactionRepository.countByImportRun(interrupted)).thenReturn(1000L);
+
+        process(file);
+
+        // Only the rows after the checkpoint are written, into the same run
+        assertThat(writtenRows).containsExactly(300);
+        assertThat(interrupted.getStatus()).isEqualTo(ImportRun.Status.IMPORTED);
+        assertThat(interrupted.getTotalRecords()).isEqualTo(1300);
+        assertThat(interrupted.getProcessedRecords()).isEqualTo(1300);
+        assertThat(interrupted.getErrorMessage()).isNull();
+        verify(archiveStore).store(file, "VAN");
+    }
+
+    @Test
+    void archiveFailureLeavesTheRunImported() throws IOException {
+        File file = write("van.csv", 10, null);
+        when(archiveStore.store(any(File.class), anyString())).thenThrow(new RuntimeException("disk full"));
+
+        assertThatThrownBy(() -> process(file)).hasMessageContaining("disk full");
+
+        assertThat(lastSaved().getStatus()).isEqualTo(ImportRun.Status.IMPORTED);
+        assertThat(lastSaved().getTotalRecords()).isEqualTo(10);
+    }
+
+    private void process(File file) {
+        ReflectionTestUtils.invokeMethod(service, "processInProcessing", file, false);
+    }
+
+    private ImportRun lastSaved() {
+        ArgumentCaptor<ImportRun> saved = ArgumentCaptor.forClass(ImportRun.class);
+        verify(importRunRepository, atLeastOnce()).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private String hash(File file) {
+        return ReflectionTestUtils.invokeMethod(service, "computeSha256", file);
+    }
+
+    private static ImportRun interruptedRun(String hash, int checkpoint) {
+        ImportRun run = new ImportRun();
+        run.setId(7L);
+        run.setFilename("van.csv");
+        run.setFileHash(hash);
+        run.setFileType("VAN");
+        run.setStatus(ImportRun.Status.PARTIAL);
+        run.setCheckpointOffset(checkpoint);
+        run.setProcessedRecords(checkpoint);
+        run.setErrorMessage("VAN parse error");
+        return run;
+    }
+
+    /**
+     * {@code rows} valid rows, then {@code trailer} as the last line when given.
+     */
+    private File write(String name, int rows, String trailer) throws IOException {
+        Path path = dir.resolve(name);
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write(HEADER);
+            out.newLine();
+            for (int i = 0; i < rows; i++) {
+                out.write(String.join(",", "5010000", "VAN" + (i % 10), "TRN" + i, "UTR" + i, "Remitter", "ACC1",
+                        "IFSC0001", "", "2024-01-15", "2024-01-15", "100.00", "NEFT", "Invoice " + i, "SUCCESS",
+                        "CUST1", "INV" + i, "2024-01-15 10:00:00", "BR1"));
+                out.newLine();
+            }
+            if (trailer != null) {
+                out.write(trailer);
+                out.newLine();
+            }
+        }
+        return path.toFile();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.paymentreconciliation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Heap retained by a million parsed VAN rows, with the parser's dictionary and with every
+ * low-cardinality column held as its own String, as rows were before the dictionary. Both sets are
+ * parsed from the same file and held until measured. Run with
+ * {@code mvn -Pbenchmark test -Dtest=VANParserHeapUsageTest} (the profile raises the test heap to 4 GB).
+ */
+@Tag("benchmark")
+class VANParserHeapUsageTest {
+    private static final int ROWS = 1_000_000;
+    private static final String HEADER = "Main Account Number,Virtual Account Number (VAN),Transaction Reference Number,"
+            + "Bank Reference / Trace ID,Remitter Name,Remitter Account Number,Remitter IFSC / Bank Name,Remitter VPA,"
+            + "Transaction Date,Value Date,Amount (INR),Mode / Channel,Payment Description / Narration,Payment Status,"
+            + "Mapped Customer ID / Code,Invoice / Reference ID,Date & Time of Credit,Branch / Bank Code";
+    private static final String[] CHANNELS = {"NEFT", "RTGS", "IMPS", "UPI"};
+    private static final String[] STATUSES = {"SUCCESS", "PENDING", "RETURNED"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void dictionaryShrinksRetainedHeap() throws Exception {
+        File csv = write(dir.resolve("van.csv"));
+
+        long baseline = usedHeap();
+        List<VANParser.VANTransactionData> canonical = parse(csv, false);
+        long canonicalBytes = usedHeap() - baseline;
+        assertThat(canonical).hasSize(ROWS);
+        // 50 + 1,000 + 100 + 4 + 3 + 200 + 20 distinct values
+        assertThat(distinct(canonical)).isEqualTo(1_377);
+        canonical = null;
+
+        baseline = usedHeap();
+        List<VANParser.VANTransactionData> copies = parse(csv, true);
+        long copiesBytes = usedHeap() - baseline;
+        assertThat(copies).hasSize(ROWS);
+        assertThat(distinct(copies)).isEqualTo(ROWS * 7);
+
+        System.out.printf("%d VAN rows: %d MB retained with the dictionary (%d bytes/row), %d MB without (%d bytes/row), %.0f%% saved%n",
+                ROWS, canonicalBytes >> 20, canonicalBytes / ROWS, copiesBytes >> 20, copiesBytes / ROWS,
+                100.0 * (copiesBytes - canonicalBytes) / copiesBytes);
+        assertThat(canonicalBytes).isLessThan(copiesBytes);
+    }
+
+    /**
+     * Parse the file and hold every row; with {@code copyFields} the dictionary's work is undone by
+     * giving each row its own copy of the canonicalised columns.
+     */
+    private static List<VANParser.VANTransactionData> parse(File csv, boolean copyFields) throws VANParser.VANParseException {
+        List<VANParser.VANTransactionData> rows = new ArrayList<>(ROWS);
+        new VANParser().parse(csv, new VANParser.RowHandler() {
+            @Override
+            public void onRow(int rowIndex, VANParser.VANTransactionData data) {
+                if (copyFields) {
+                    data.mainAccountNumber = new String(data.mainAccountNumber);
+                    data.virtualAccountNumber = new String(data.virtualAccountNumber);
+                    data.remitterIfscBankName = new String(data.remitterIfscBankName);
+                    data.modeChannel = new String(data.modeChannel);
+                    data.paymentStatus = new String(data.paymentStatus);
+                    data.mappedCustomerIdCode = new String(data.mappedCustomerIdCode);
+                    data.branchBankCode = new String(data.branchBankCode);
+                }
+                rows.add(data);
+            }
+
+            @Override
+            public void onError(int rowIndex, String message) {
+                throw new IllegalArgumentException("Invalid VAN row " + (rowIndex + 1) + ": " + message);
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Distinct String instances across the low-cardinality columns.
+     */
+    private static int distinct(List<VANParser.VANTransactionData> rows) {
+        Map<String, Boolean> instances = new IdentityHashMap<>();
+        for (VANParser.VANTransactionData data : rows) {
+            instances.put(data.mainAccountNumber, Boolean.TRUE);
+            instances.put(data.virtualAccountNumber, Boolean.TRUE);
+            instances.put(data.remitterIfscBankName, Boolean.TRUE);
+            instances.put(data.modeChannel, Boolean.TRUE);
+            instances.put(data.paymentStatus, Boolean.TRUE);
+            instances.put(data.mappedCustomerIdCode, Boolean.TRUE);
+            instances.put(data.branchBankCode, Boolean.TRUE);
+        }
+        return instances.size();
+    }
+
+    /**
+     * 50 collection accounts, 1,000 virtual accounts and a handful of channels, statuses and banks;
+     * references and narrations are unique per row.
+     */
+    private static File write(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write(HEADER);
+            out.newLine();
+            for (int i = 0; i < ROWS; i++) {
+                out.write(String.join(",",
+                        "5010000" + (i % 50),
+                        "VAN" + (i % 1000),
+                        "TRN" + i,
+                        "UTR" + i,
+                        "Remitter " + (i % 5000),
+                        "ACC" + (i % 5000),
+                        "IFSC000" + (i % 100),
+                        "",
+                        "2024-01-15",
+                        "2024-01-15",
+                        (i % 100000) + ".00",
+                        CHANNELS[i % CHANNELS.length],
+                        "Invoice payment " + i,
+                        STATUSES[i % STATUSES.length],
+                        "CUST" + (i % 200),
+                        "INV" + i,
+                        "2024-01-15 10:00:00",
+                        "BR" + (i % 20)));
+                out.newLine();
+            }
+        }
+        return path.toFile();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}